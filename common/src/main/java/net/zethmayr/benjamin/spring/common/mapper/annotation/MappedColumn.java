@@ -0,0 +1,71 @@
+package net.zethmayr.benjamin.spring.common.mapper.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field of a {@link MappedTable} POJO as mapped to a column.
+ * Fields are mapped in declaration order.
+ * <p>
+ * Accessors are found by JavaBean convention unless named explicitly.
+ *
+ * @see Kind
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface MappedColumn {
+    /**
+     * Returns the column name; by default, the field name in snake case.
+     *
+     * @return The column name
+     */
+    String name() default "";
+
+    /**
+     * Returns the column type.
+     *
+     * @return The column type
+     */
+    Kind type() default Kind.AUTO;
+
+    /**
+     * Returns the getter method name; by default, getX.
+     *
+     * @return The getter method name
+     */
+    String getter() default "";
+
+    /**
+     * Returns the setter method name; by default, setX.
+     *
+     * @return The setter method name
+     */
+    String setter() default "";
+
+    /**
+     * Column types, corresponding to the {@link net.zethmayr.benjamin.spring.common.mapper.base.ColumnType} constants.
+     */
+    enum Kind {
+        /**
+         * Inferred from the field type.
+         * int and Integer fields are INTEGER, or INTEGER_INDEX if the column is named "id";
+         * long and Long fields are LONG; Strings are LONG_STRING; Instants are INSTANT;
+         * BigDecimals are MONEY; enums are INTEGER, storing the ordinal.
+         */
+        AUTO,
+        INTEGER_INDEX,
+        INTEGER,
+        LONG,
+        SHORT_STRING,
+        LONG_STRING,
+        INSTANT,
+        /**
+         * Two-digit BigDecimal values, stored as LONG hundredths.
+         */
+        MONEY
+    }
+}
@@ -0,0 +1,37 @@
+package net.zethmayr.benjamin.spring.common.mapper.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a POJO for which a row mapper is generated at compile time.
+ * <p>
+ * The generated mapper is an {@link net.zethmayr.benjamin.spring.common.mapper.base.InvertibleRowMapperBase}
+ * in the POJO's package, with a field mapper constant for each {@link MappedColumn} field
+ * and its SELECT and INSERT queries as constants.
+ * The POJO needs a public no-argument constructor.
+ *
+ * @see net.zethmayr.benjamin.spring.common.mapper.processor.MapperProcessor
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface MappedTable {
+    /**
+     * Returns the table name.
+     *
+     * @return The table name
+     */
+    String value();
+
+    /**
+     * Returns the simple name of the generated mapper class;
+     * by default, the POJO's simple name followed by "GeneratedMapper".
+     *
+     * @return The generated mapper's simple name
+     */
+    String mapper() default "";
+}
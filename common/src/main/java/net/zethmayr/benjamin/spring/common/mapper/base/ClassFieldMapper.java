@@ -1,5 +1,6 @@
 package net.zethmayr.benjamin.spring.common.mapper.base;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.function.Predicate;
 
@@ -44,6 +45,15 @@ public abstract class ClassFieldMapper<C> {
      */
     public abstract Object serFrom(C container);
 
+    /**
+     * Sets the serialized field value from the containing object
+     * as this field's parameter in a whole-row INSERT statement.
+     *
+     * @param ps        The INSERT statement
+     * @param container The instance being mapped
+     */
+    public abstract void serInto(PreparedStatement ps, C container);
+
     /**
      * Deserializes the field into the containing object from a {@link ResultSet}.
      * Must call setter with null if the field value was null, even for primitive-valued fields.
@@ -54,6 +64,20 @@ public abstract class ClassFieldMapper<C> {
      */
     public abstract Object desTo(C container, ResultSet rs);
 
+    /**
+     * Deserializes the field into the containing object from a resolved column of a {@link ResultSet}.
+     * Must call setter with null if the field value was null, even for primitive-valued fields.
+     * By default, this reads the field by name, as {@link #desTo(Object, ResultSet)} does.
+     *
+     * @param container The instance being mapped into
+     * @param rs        A ResultSet containing the field to map
+     * @param column    The 1-based index of the field's column in the ResultSet
+     * @return true if the value passed to the setter was null, else false
+     */
+    public boolean desColumnTo(final C container, final ResultSet rs, final int column) {
+        return desTo(container, rs) == null;
+    }
+
     /**
      * Sets this field's position in a whole-row INSERT query.
      *
@@ -76,6 +100,25 @@ public abstract class ClassFieldMapper<C> {
      */
     public abstract String fieldAlias();
 
+    /**
+     * Determines whether this and another mapper map the same field of the same class,
+     * as when one is a {@link #copyTransforming transformed copy} of the other.
+     *
+     * @param other Another field mapper
+     * @return true if they map the same field
+     */
+    boolean mapsSameFieldAs(final ClassFieldMapper<?> other) {
+        final Object accessor = accessor();
+        return this == other || accessor != null && accessor == other.accessor() && fieldName().equals(other.fieldName());
+    }
+
+    /**
+     * Returns the accessor reading the field from instances, which copies share, or null if not known.
+     */
+    Object accessor() {
+        return null;
+    }
+
     /**
      * Returns this field's SQL type and constraints
      *
@@ -0,0 +1,29 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A single-use row mapper which resolves its columns on the first row it sees.
+ *
+ * @param <T> The row type
+ * @see InvertibleRowMapper#forQuery()
+ */
+final class ColumnBoundRowMapper<T> implements RowMapper<T> {
+    private final InvertibleRowMapper<T> mapper;
+    private int[] columns;
+
+    ColumnBoundRowMapper(final InvertibleRowMapper<T> mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public T mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+        if (columns == null) {
+            columns = mapper.columnsIn(rs);
+        }
+        return mapper.mapRow(rs, rowNum, columns);
+    }
+}
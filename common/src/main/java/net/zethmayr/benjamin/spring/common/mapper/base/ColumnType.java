@@ -17,6 +17,18 @@ public interface ColumnType<O> {
      */
     RsGetterFactory<O> getterFactory();
 
+    /**
+     * Provides access to the {@link ResultSet} getter by column index.
+     * By default there is none, and mappers read the column by the label they were built with,
+     * using a getter from the {@link #getterFactory() getter factory};
+     * column types which can read by index override this.
+     *
+     * @return the column getter, or null
+     */
+    default RsColumnGetter<O> columnGetter() {
+        return null;
+    }
+
     /**
      * Provides access to the {@link PreparedStatement} setter factory.
      *
@@ -56,12 +68,17 @@ public interface ColumnType<O> {
     /**
      * A generated 32-bit signed integer index column.
      */
-    ColumnType<Integer> INTEGER_INDEX = new ColumnType<Integer>() {
+    IntColumnType INTEGER_INDEX = new IntColumnType() {
         @Override
         public RsGetterFactory<Integer> getterFactory() {
             return RsGetterFactory.integer();
         }
 
+        @Override
+        public RsColumnGetter<Integer> columnGetter() {
+            return RsColumnGetter.integer();
+        }
+
         @Override
         public PsSetterFactory<Integer> setterFactory() {
             throw new UnsupportedOperationException();
@@ -91,12 +108,17 @@ public interface ColumnType<O> {
     /**
      * A signed 32-bit integer column.
      */
-    ColumnType<Integer> INTEGER = new ColumnType<Integer>() {
+    IntColumnType INTEGER = new IntColumnType() {
         @Override
         public RsGetterFactory<Integer> getterFactory() {
             return RsGetterFactory.integer();
         }
 
+        @Override
+        public RsColumnGetter<Integer> columnGetter() {
+            return RsColumnGetter.integer();
+        }
+
         @Override
         public PsSetterFactory<Integer> setterFactory() {
             return PsSetterFactory::integer;
@@ -126,12 +148,17 @@ public interface ColumnType<O> {
     /**
      * A signed 64-bit integer column.
      */
-    ColumnType<Long> LONG = new ColumnType<Long>() {
+    LongColumnType LONG = new LongColumnType() {
         @Override
         public RsGetterFactory<Long> getterFactory() {
             return RsGetterFactory.longInteger();
         }
 
+        @Override
+        public RsColumnGetter<Long> columnGetter() {
+            return RsColumnGetter.longInteger();
+        }
+
         @Override
         public PsSetterFactory<Long> setterFactory() {
             return PsSetterFactory::longInteger;
@@ -168,6 +195,11 @@ public interface ColumnType<O> {
             return RsGetterFactory.string();
         }
 
+        @Override
+        public RsColumnGetter<String> columnGetter() {
+            return RsColumnGetter.string();
+        }
+
         @Override
         public PsSetterFactory<String> setterFactory() {
             return PsSetterFactory::shortString;
@@ -204,6 +236,11 @@ public interface ColumnType<O> {
             return RsGetterFactory.string();
         }
 
+        @Override
+        public RsColumnGetter<String> columnGetter() {
+            return RsColumnGetter.string();
+        }
+
         @Override
         public PsSetterFactory<String> setterFactory() {
             return PsSetterFactory::longString;
@@ -239,6 +276,11 @@ public interface ColumnType<O> {
             return RsGetterFactory.instant();
         }
 
+        @Override
+        public RsColumnGetter<Instant> columnGetter() {
+            return RsColumnGetter.instant();
+        }
+
         @Override
         public PsSetterFactory<Instant> setterFactory() {
             return PsSetterFactory::instant;
@@ -9,13 +9,19 @@ import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 import static net.zethmayr.benjamin.spring.common.Constants.MONEY_CONTEXT;
 
 /**
- * This is the sole concrete field mapper implementation.
+ * This is the sole concrete field mapper implementation,
+ * apart from its primitive specializations {@link IntMapper} and {@link LongMapper}.
  * <p>
  * Instances are primarily obtained via factory methods. See
  * {@link #simpleField(String, Function, ColumnType, BiConsumer)} and
@@ -27,7 +33,12 @@ import static net.zethmayr.benjamin.spring.common.Constants.MONEY_CONTEXT;
  * {@link #enumField(String, Function, SerMapper, ColumnType, DesMapper)}
  * for mapping enum fields, and
  * {@link #enumId(SerMapper, DesMapper)}
- * for mapping enum IDs.
+ * for mapping enum IDs. See
+ * {@link #enumSet(String, Class, Function, BiConsumer)}
+ * for mapping sets of enum constants as bitmasks. See
+ * {@link #intField(String, ToIntFunction, IntColumnType, ObjIntConsumer)} and
+ * {@link #longField(String, ToLongFunction, LongColumnType, ObjLongConsumer)}
+ * for mapping primitive POJO fields.
  * {@inheritDoc}
  */
 /*
@@ -39,6 +50,7 @@ public class ComposedMapper<C, I, O> extends Mapper<C, I, O> {
     private final Function<C, I> cGetter;
     private final SerMapper<I, O> serMapper;
     private final RsGetter<O> rsGetter;
+    private final RsColumnGetter<O> columnGetter;
     private final DesMapper<I, O> desMapper;
     private final BiConsumer<C, I> cSetter;
     private final String sqlType;
@@ -66,6 +78,7 @@ public class ComposedMapper<C, I, O> extends Mapper<C, I, O> {
      * Internal copy constructor.
      *
      * @param fieldName  The SQL name of the field
+     * @param fieldAlias The SQL alias of the field
      * @param cGetter    The accessor to retrieve the field value from an instance of the class
      * @param serMapper  The mapper to serialize  field value to a JDBC value
      * @param columnType The SQL column type information
@@ -73,11 +86,12 @@ public class ComposedMapper<C, I, O> extends Mapper<C, I, O> {
      * @param desMapper  The mapper to deserialize a JDBC value to a field value
      * @param cSetter    The accessor to set the field value into an instance of the class
      */
-    private ComposedMapper(final String fieldName, final String fieldAlias, final Function<C, I> cGetter, final SerMapper<I, O> serMapper, final ColumnType<O> columnType, final RsGetter<O> rsGetter, final DesMapper<I, O> desMapper, final BiConsumer<C, I> cSetter) {
+    ComposedMapper(final String fieldName, final String fieldAlias, final Function<C, I> cGetter, final SerMapper<I, O> serMapper, final ColumnType<O> columnType, final RsGetter<O> rsGetter, final DesMapper<I, O> desMapper, final BiConsumer<C, I> cSetter) {
         super(fieldName, fieldAlias);
         this.cGetter = cGetter;
         this.serMapper = serMapper;
         this.rsGetter = rsGetter;
+        this.columnGetter = columnType.columnGetter();
         this.desMapper = desMapper;
         this.cSetter = cSetter;
         sqlType = columnType.sqlType();
@@ -114,6 +128,41 @@ public class ComposedMapper<C, I, O> extends Mapper<C, I, O> {
         psSetter.apply(insertPs, value);
     }
 
+    Function<C, I> cGetter() {
+        return cGetter;
+    }
+
+    @Override
+    Object accessor() {
+        return cGetter;
+    }
+
+    SerMapper<I, O> serMapper() {
+        return serMapper;
+    }
+
+    /**
+     * Returns the column type's getter by index, which is null if it can only read by label.
+     */
+    RsColumnGetter<O> columnGetter() {
+        return columnGetter;
+    }
+
+    DesMapper<I, O> desMapper() {
+        return desMapper;
+    }
+
+    BiConsumer<C, I> cSetter() {
+        return cSetter;
+    }
+
+    /**
+     * Returns the insert parameter setter, which is null until the insert ordinal is set.
+     */
+    PsSetter<O> psSetter() {
+        return psSetter;
+    }
+
     @Override
     public ColumnType<O> getColumnType() {
         return columnType;
@@ -153,6 +202,16 @@ public class ComposedMapper<C, I, O> extends Mapper<C, I, O> {
         }
     }
 
+    /**
+     * Uses the column type's getter by index, which checks for nulls,
+     * or the resultset getter supplied at construction if the column type has none.
+     * {@inheritDoc}
+     */
+    @Override
+    public O from(final ResultSet rs, final int column) throws MappingException {
+        return columnGetter == null ? from(rs) : columnGetter.from(rs, column);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -219,6 +278,85 @@ public class ComposedMapper<C, I, O> extends Mapper<C, I, O> {
         );
     }
 
+    /**
+     * Creates a mapper
+     * for a primitive int field, which is read and written without boxing.
+     *
+     * @param fieldName  The field name
+     * @param cGetter    The instance getter method
+     * @param columnType The SQL type information
+     * @param cSetter    The instance setter method
+     * @param <C>        The instance type
+     * @return A field mapper
+     */
+    public static <C> IntMapper<C> intField(final String fieldName, final ToIntFunction<C> cGetter, final IntColumnType columnType, final ObjIntConsumer<C> cSetter) {
+        return new IntMapper<>(
+                fieldName,
+                fieldName,
+                cGetter,
+                columnType,
+                cSetter
+        );
+    }
+
+    /**
+     * Creates a mapper
+     * for a primitive long field, which is read and written without boxing.
+     *
+     * @param fieldName  The field name
+     * @param cGetter    The instance getter method
+     * @param columnType The SQL type information
+     * @param cSetter    The instance setter method
+     * @param <C>        The instance type
+     * @return A field mapper
+     */
+    public static <C> LongMapper<C> longField(final String fieldName, final ToLongFunction<C> cGetter, final LongColumnType columnType, final ObjLongConsumer<C> cSetter) {
+        return new LongMapper<>(
+                fieldName,
+                fieldName,
+                cGetter,
+                columnType,
+                cSetter
+        );
+    }
+
+    /**
+     * Creates a mapper
+     * for a set of enum constants, stored in a {@link ColumnType#LONG LONG} column as a bitmask,
+     * so set membership can be tested in SQL with bitwise operators.
+     * Each constant's bit is given by a stable id, not its ordinal, so constants may be added or reordered.
+     * Sets are read as {@link java.util.EnumSet}s.
+     *
+     * @param fieldName The field name
+     * @param enumClass The enum class
+     * @param bit       Returns each constant's distinct bit position, from 0 to 63
+     * @param cGetter   The instance getter method
+     * @param cSetter   The instance setter method
+     * @param <C>       The instance type
+     * @param <E>       The enum type
+     * @return A field mapper
+     * @throws MappingException if constants have no bit, or the same bit
+     */
+    public static <C, E extends Enum<E>> Mapper<C, Set<E>, Long> enumSet(final String fieldName, final Class<E> enumClass, final ToIntFunction<E> bit,
+                                                                        final Function<C, Set<E>> cGetter, final BiConsumer<C, Set<E>> cSetter) {
+        long used = 0L;
+        for (final E value : enumClass.getEnumConstants()) {
+            final int position = bit.applyAsInt(value);
+            if (position < 0 || position >= Long.SIZE || (used & 1L << position) != 0L) {
+                throw MappingException.badSetup(value + " has no distinct bit position: " + position);
+            }
+            used |= 1L << position;
+        }
+        return new ComposedMapper<>(
+                fieldName,
+                cGetter,
+                (in) -> Functions.bitmask(in, bit),
+                ColumnType.LONG,
+                (out) -> Functions.enumSet(enumClass, out, bit),
+                cSetter
+        );
+    }
+
     private static final BigDecimal ONE_HUNDRED = new BigDecimal(100);
 
     /**
@@ -76,13 +76,13 @@ public abstract class EnumRowMapper<T extends Enum<T>> extends InvertibleRowMapp
 
     @Override
     public EnumRowMapper<T> copyTransforming(final RowMapperTransform rowTransform, final FieldMapperTransform fieldTransform) {
-        return new Cloned<>(
+        return withCodecOf(new Cloned<>(
                 rowClassToken,
                 fields().stream()
                         .map((field) -> field.copyTransforming(fieldTransform))
                         .collect(Collectors.toList()),
                 rowTransform.table(table())
-        );
+        ));
     }
 
     @Override
@@ -105,6 +105,12 @@ public abstract class EnumRowMapper<T extends Enum<T>> extends InvertibleRowMapp
         return idMapper.des(idMapper.from(rs));
     }
 
+    @Nullable
+    @Override
+    public final T mapRow(final ResultSet rs, final int rowNum, final int[] columns) {
+        return idMapper.des(idMapper.from(rs, columns[0]));
+    }
+
     private static final Predicate<ClassFieldMapper> IS_ID_MAPPER = (m) -> "id".equals(m.fieldName());
 
     @SuppressWarnings("unchecked") // if you construct row mappers with incompatible id mappers, this will blow up
@@ -0,0 +1,93 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which joins and columns a {@link JoiningRowMapper} should read, for queries narrower than its full graph.
+ * Plans are immutable; {@link JoiningRowMapper#planned(FetchPlan)} caches its copies by what they read.
+ */
+@EqualsAndHashCode
+@ToString
+public final class FetchPlan {
+    private static final FetchPlan ALL = new FetchPlan(Integer.MAX_VALUE, null, Collections.emptyMap());
+
+    private final int maxDepth;
+    private final Set<MapperAndJoin> joins;
+    private final Map<String, Set<String>> columns;
+
+    private FetchPlan(final int maxDepth, final Set<MapperAndJoin> joins, final Map<String, Set<String>> columns) {
+        this.maxDepth = maxDepth;
+        this.joins = joins;
+        this.columns = columns;
+    }
+
+    /**
+     * Returns a plan reading whatever the mapper reads by default.
+     *
+     * @return The default plan
+     */
+    public static FetchPlan all() {
+        return ALL;
+    }
+
+    /**
+     * Returns a plan reading no joins deeper than given, where joins to the primary table are at depth 1.
+     *
+     * @param maxDepth The maximum depth, where 0 reads only the primary table
+     * @return A new plan
+     */
+    public FetchPlan maxDepth(final int maxDepth) {
+        if (maxDepth < 0) {
+            throw MappingException.badSetup("Depth must not be negative");
+        }
+        return new FetchPlan(maxDepth, joins, columns);
+    }
+
+    /**
+     * Returns a plan reading only the given joins, whether eager or lazy.
+     * A join is read only if the join it hangs from is read.
+     *
+     * @param joins Joins as listed by {@link JoiningRowMapper#joinedMappers()}
+     * @return A new plan
+     */
+    public FetchPlan joins(final Collection<? extends MapperAndJoin> joins) {
+        return new FetchPlan(maxDepth, Collections.unmodifiableSet(new HashSet<>(joins)), columns);
+    }
+
+    /**
+     * Returns a plan reading only the named columns, and the id column, wherever the table is read.
+     * Instances of {@link net.zethmayr.benjamin.spring.common.model.base.Trusting Trusting} classes
+     * read this way remember it, and updates of them write only the columns read, unless they record their changes;
+     * instances of other classes cannot, so should not be updated whole.
+     *
+     * @param table      The table name
+     * @param fieldNames The SQL field names
+     * @return A new plan
+     */
+    public FetchPlan columns(final String table, final String... fieldNames) {
+        final Map<String, Set<String>> copy = new HashMap<>(columns);
+        copy.put(table, Collections.unmodifiableSet(new HashSet<>(Arrays.asList(fieldNames))));
+        return new FetchPlan(maxDepth, joins, Collections.unmodifiableMap(copy));
+    }
+
+    int maxDepth() {
+        return maxDepth;
+    }
+
+    boolean reads(final MapperAndJoin join, final boolean byDefault) {
+        return joins == null ? byDefault : joins.contains(join);
+    }
+
+    Set<String> columnsFor(final String table) {
+        return columns.get(table);
+    }
+}
@@ -0,0 +1,211 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A set of the id column values seen for one join, read straight from a result set.
+ * Integer and long id columns are kept unboxed in open-addressed tables,
+ * which are cleared in constant time so they can be reused across rows and roots.
+ */
+abstract class IdSet {
+    /**
+     * The id column was null.
+     */
+    static final int NULL = 0;
+    /**
+     * The id was not yet present, and has been added.
+     */
+    static final int ADDED = 1;
+    /**
+     * The id was already present.
+     */
+    static final int PRESENT = 2;
+
+    /**
+     * Reads an id column and adds its value.
+     *
+     * @param rs     The result set
+     * @param column The 1-based id column index
+     * @return {@link #NULL}, {@link #ADDED} or {@link #PRESENT}
+     * @throws SQLException on SQL errors
+     */
+    abstract int addFrom(ResultSet rs, int column) throws SQLException;
+
+    /**
+     * Removes all ids.
+     */
+    abstract void clear();
+
+    /**
+     * Creates a set suited to the given id field's column type.
+     *
+     * @param idMapper The id field mapper
+     * @return An empty id set
+     */
+    static IdSet forId(final Mapper<?, ?, ?> idMapper) {
+        final ColumnType<?> columnType = idMapper.getColumnType();
+        if (columnType instanceof IntColumnType) {
+            return new Ints((IntColumnType) columnType);
+        }
+        if (columnType instanceof LongColumnType) {
+            return new Longs((LongColumnType) columnType);
+        }
+        return new Boxed(idMapper);
+    }
+
+    /**
+     * Open addressing with generation stamps: a slot is occupied only if its stamp is the current generation.
+     */
+    private abstract static class Stamped extends IdSet {
+        private static final int INITIAL_CAPACITY = 16;
+
+        int[] stamps = new int[INITIAL_CAPACITY];
+        int generation = 1;
+        int size;
+
+        static int mix(final long key) {
+            final long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        @Override
+        final void clear() {
+            size = 0;
+            if (++generation == 0) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+        }
+
+        final boolean needsGrowth() {
+            return (size + 1) * 2 > stamps.length;
+        }
+    }
+
+    private static final class Ints extends Stamped {
+        private final IntColumnType columnType;
+        private int[] keys = new int[stamps.length];
+
+        private Ints(final IntColumnType columnType) {
+            this.columnType = columnType;
+        }
+
+        @Override
+        int addFrom(final ResultSet rs, final int column) throws SQLException {
+            final int id = columnType.getInt(rs, column);
+            if (rs.wasNull()) {
+                return NULL;
+            }
+            if (needsGrowth()) {
+                grow();
+            }
+            final int mask = keys.length - 1;
+            int i = mix(id) & mask;
+            while (stamps[i] == generation) {
+                if (keys[i] == id) {
+                    return PRESENT;
+                }
+                i = (i + 1) & mask;
+            }
+            stamps[i] = generation;
+            keys[i] = id;
+            size++;
+            return ADDED;
+        }
+
+        private void grow() {
+            final int[] oldKeys = keys;
+            final int[] oldStamps = stamps;
+            keys = new int[oldKeys.length * 2];
+            stamps = new int[oldStamps.length * 2];
+            final int mask = keys.length - 1;
+            for (int o = 0; o < oldKeys.length; o++) {
+                if (oldStamps[o] == generation) {
+                    int i = mix(oldKeys[o]) & mask;
+                    while (stamps[i] == generation) {
+                        i = (i + 1) & mask;
+                    }
+                    stamps[i] = generation;
+                    keys[i] = oldKeys[o];
+                }
+            }
+        }
+    }
+
+    private static final class Longs extends Stamped {
+        private final LongColumnType columnType;
+        private long[] keys = new long[stamps.length];
+
+        private Longs(final LongColumnType columnType) {
+            this.columnType = columnType;
+        }
+
+        @Override
+        int addFrom(final ResultSet rs, final int column) throws SQLException {
+            final long id = columnType.getLong(rs, column);
+            if (rs.wasNull()) {
+                return NULL;
+            }
+            if (needsGrowth()) {
+                grow();
+            }
+            final int mask = keys.length - 1;
+            int i = mix(id) & mask;
+            while (stamps[i] == generation) {
+                if (keys[i] == id) {
+                    return PRESENT;
+                }
+                i = (i + 1) & mask;
+            }
+            stamps[i] = generation;
+            keys[i] = id;
+            size++;
+            return ADDED;
+        }
+
+        private void grow() {
+            final long[] oldKeys = keys;
+            final int[] oldStamps = stamps;
+            keys = new long[oldKeys.length * 2];
+            stamps = new int[oldStamps.length * 2];
+            final int mask = keys.length - 1;
+            for (int o = 0; o < oldKeys.length; o++) {
+                if (oldStamps[o] == generation) {
+                    int i = mix(oldKeys[o]) & mask;
+                    while (stamps[i] == generation) {
+                        i = (i + 1) & mask;
+                    }
+                    stamps[i] = generation;
+                    keys[i] = oldKeys[o];
+                }
+            }
+        }
+    }
+
+    private static final class Boxed extends IdSet {
+        private final Mapper<?, ?, ?> idMapper;
+        private final Set<Object> seen = new HashSet<>();
+
+        private Boxed(final Mapper<?, ?, ?> idMapper) {
+            this.idMapper = idMapper;
+        }
+
+        @Override
+        int addFrom(final ResultSet rs, final int column) {
+            final Object id = idMapper.from(rs, column);
+            if (id == null) {
+                return NULL;
+            }
+            return seen.add(id) ? ADDED : PRESENT;
+        }
+
+        @Override
+        void clear() {
+            seen.clear();
+        }
+    }
+}
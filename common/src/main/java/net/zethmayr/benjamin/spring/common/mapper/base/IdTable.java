@@ -0,0 +1,92 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import java.util.Objects;
+
+/**
+ * An open-addressed hash table from ids to values, for grouping rows by id in a single pass.
+ * Keys must not be null, and entries are never removed.
+ *
+ * @param <V> The value type
+ */
+final class IdTable<V> {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private Object[] keys;
+    private Object[] values;
+    private int size;
+
+    IdTable() {
+        keys = new Object[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+    }
+
+    private static int slot(final Object key, final int mask) {
+        final int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the value for an id.
+     *
+     * @param key An id
+     * @return The value, or null if there is none
+     */
+    @SuppressWarnings("unchecked") // only Vs are stored
+    V get(final Object key) {
+        final int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            final Object found = keys[i];
+            if (found == null) {
+                return null;
+            }
+            if (Objects.equals(found, key)) {
+                return (V) values[i];
+            }
+        }
+    }
+
+    /**
+     * Sets the value for an id not already present.
+     *
+     * @param key   An id
+     * @param value The value
+     */
+    void putNew(final Object key, final V value) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        insert(keys, values, key, value);
+        size++;
+    }
+
+    private static void insert(final Object[] keys, final Object[] values, final Object key, final Object value) {
+        final int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    private void grow() {
+        final Object[] oldKeys = keys;
+        final Object[] oldValues = values;
+        keys = new Object[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insert(keys, values, oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of ids present.
+     *
+     * @return The size
+     */
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,117 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Instances already materialized, by table and id, so rows shared by many joined objects are mapped once.
+ * Instances found here are shared between their parents, so should be treated as read-only.
+ */
+public final class IdentityMap {
+    private final Map<String, Map<Object, Object>> tables = new HashMap<>();
+
+    /**
+     * Returns the instance read for an id, if any.
+     *
+     * @param table    The table read from
+     * @param id       The id
+     * @param rowClass The class of instance wanted
+     * @param <F>      The instance type
+     * @return The instance, or null if there is none of the wanted class
+     */
+    public <F> F get(final String table, final Object id, final Class<F> rowClass) {
+        final Map<Object, Object> byId = tables.get(table);
+        if (byId == null) {
+            return null;
+        }
+        final Object found = byId.get(id);
+        return rowClass.isInstance(found) ? rowClass.cast(found) : null;
+    }
+
+    /**
+     * Records the instance read for an id.
+     *
+     * @param table    The table read from
+     * @param id       The id
+     * @param instance The instance
+     */
+    public void put(final String table, final Object id, final Object instance) {
+        tables.computeIfAbsent(table, (t) -> new HashMap<>()).put(id, instance);
+    }
+
+    /**
+     * Returns the number of instances held.
+     *
+     * @return The size
+     */
+    public int size() {
+        return tables.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Removes the instances read from a table.
+     *
+     * @param table The table
+     */
+    public void evict(final String table) {
+        tables.remove(table);
+    }
+
+    /**
+     * Removes all instances.
+     */
+    public void clear() {
+        tables.clear();
+    }
+
+    /**
+     * Returns the identity map bound to the current transaction, binding a new one if needed.
+     * Without transaction synchronization, returns a new identity map.
+     *
+     * @return An identity map
+     */
+    public static IdentityMap forTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new IdentityMap();
+        }
+        final IdentityMap bound = (IdentityMap) TransactionSynchronizationManager.getResource(IdentityMap.class);
+        if (bound != null) {
+            return bound;
+        }
+        final IdentityMap created = new IdentityMap();
+        TransactionSynchronizationManager.bindResource(IdentityMap.class, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(final int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(IdentityMap.class);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Empties the identity map bound to the current transaction, if there is one, so later reads see writes.
+     */
+    public static void clearTransaction() {
+        final IdentityMap bound = (IdentityMap) TransactionSynchronizationManager.getResource(IdentityMap.class);
+        if (bound != null) {
+            bound.clear();
+        }
+    }
+
+    /**
+     * Removes the instances read from a table from the identity map bound to the current transaction, if there is one,
+     * so later reads see writes to that table.
+     *
+     * @param table The table written
+     */
+    public static void evictTransaction(final String table) {
+        final IdentityMap bound = (IdentityMap) TransactionSynchronizationManager.getResource(IdentityMap.class);
+        if (bound != null) {
+            bound.evict(table);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A column type for 32-bit integer columns
+ * which can also be read and written without boxing.
+ *
+ * @see IntMapper
+ */
+public interface IntColumnType extends ColumnType<Integer> {
+
+    /**
+     * Reads the column as a primitive; callers must check {@link ResultSet#wasNull()}.
+     *
+     * @param rs     The result set
+     * @param column The 1-based column index
+     * @return The column value, or 0 if null
+     * @throws SQLException on SQL errors
+     */
+    default int getInt(final ResultSet rs, final int column) throws SQLException {
+        return rs.getInt(column);
+    }
+
+    /**
+     * Sets a primitive value as a statement parameter.
+     *
+     * @param ps      The prepared statement
+     * @param ordinal The 1-based parameter index
+     * @param value   The value
+     * @throws SQLException on SQL errors
+     */
+    default void setInt(final PreparedStatement ps, final int ordinal, final int value) throws SQLException {
+        ps.setInt(ordinal, value);
+    }
+}
@@ -0,0 +1,107 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * A field mapper for primitive int fields.
+ * Rows read by column and whole-row inserts do not box the value.
+ * <p>
+ * A null column value leaves the field as it was.
+ * See {@link ComposedMapper#intField(String, ToIntFunction, IntColumnType, ObjIntConsumer)}.
+ *
+ * @param <C> The instance type
+ */
+public class IntMapper<C> extends ComposedMapper<C, Integer, Integer> {
+    private final ToIntFunction<C> intGetter;
+    private final IntColumnType intColumnType;
+    private final ObjIntConsumer<C> intSetter;
+
+    /**
+     * Internal (and copy) constructor.
+     *
+     * @param fieldName  The SQL name of the field
+     * @param fieldAlias The SQL alias of the field
+     * @param intGetter  The accessor to retrieve the field value from an instance of the class
+     * @param columnType The SQL column type information
+     * @param intSetter  The accessor to set the field value into an instance of the class
+     */
+    IntMapper(final String fieldName, final String fieldAlias, final ToIntFunction<C> intGetter, final IntColumnType columnType, final ObjIntConsumer<C> intSetter) {
+        super(fieldName, fieldAlias,
+                intGetter::applyAsInt,
+                (in) -> in,
+                columnType,
+                columnType.getterFactory().field(fieldAlias),
+                (out) -> out,
+                (container, value) -> {
+                    if (value != null) {
+                        intSetter.accept(container, value);
+                    }
+                });
+        this.intGetter = intGetter;
+        this.intColumnType = columnType;
+        this.intSetter = intSetter;
+    }
+
+    @Override
+    public IntMapper<C> copyTransforming(final FieldMapperTransform fieldTransform) {
+        return new IntMapper<>(fieldName, fieldTransform.fieldName(fieldName), intGetter, intColumnType, intSetter);
+    }
+
+    ToIntFunction<C> intGetter() {
+        return intGetter;
+    }
+
+    @Override
+    Object accessor() {
+        return intGetter;
+    }
+
+    IntColumnType intColumnType() {
+        return intColumnType;
+    }
+
+    ObjIntConsumer<C> intSetter() {
+        return intSetter;
+    }
+
+    /**
+     * Retrieves the field value without boxing.
+     *
+     * @param container The containing instance
+     * @return The field value
+     */
+    public int getIntFrom(final C container) {
+        return intGetter.applyAsInt(container);
+    }
+
+    @Override
+    public boolean desColumnTo(final C container, final ResultSet rs, final int column) {
+        try {
+            final int value = intColumnType.getInt(rs, column);
+            if (rs.wasNull()) {
+                return true;
+            }
+            intSetter.accept(container, value);
+            return false;
+        } catch (SQLException sqle) {
+            throw MappingException.because(sqle);
+        }
+    }
+
+    @Override
+    public void serInto(final PreparedStatement ps, final C container) {
+        final int ordinal = getInsertOrdinal();
+        if (ordinal < 0) {
+            throw MappingException.badSetup("Ordinal not set");
+        }
+        try {
+            intColumnType.setInt(ps, ordinal, intGetter.applyAsInt(container));
+        } catch (SQLException sqle) {
+            throw MappingException.because(sqle);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.Nullable;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * An extension of the {@link RowMapper} interface
+ * to include information sufficient to bind a class to a row or a part thereof
+ * and also allow for inserting instances
+ *
+ * @param <T> The bound class
+ */
+public interface InvertibleRowMapper<T> extends RowMapper<T> {
+    /**
+     * Returns the row class given at creation.
+     *
+     * @return the row class given at creation.
+     */
+    Class<T> rowClass();
+
+    /**
+     * Returns the field mappers given at creation.
+     *
+     * @return All the field mappers
+     */
+    List<ClassFieldMapper<T>> fields();
+
+    /**
+     * Returns the field mappers that are actually used in SELECT queries
+     *
+     * @return Some of the field mappers
+     */
+    List<ClassFieldMapper<T>> mappableFields();
+
+    /**
+     * Returns the table name given at creation.
+     *
+     * @return the table name given at creation.
+     */
+    String table();
+
+    /**
+     * Returns the SELECT query from the time of creation.
+     *
+     * @return the SELECT query from the time of creation.
+     */
+    String select();
+
+    /**
+     * Returns the INSERT query from the time of creation.
+     *
+     * @return the INSERT query from the time of creation.
+     */
+    String insert();
+
+    /**
+     * Returns the FROM clause of the {@link #select() SELECT} query, including any joins.
+     *
+     * @return A FROM clause
+     */
+    default String from() {
+        return " FROM " + table();
+    }
+
+    /**
+     * Returns the column a field is read from, as it may be referred to in conditions on the {@link #select() SELECT} query.
+     *
+     * @param field A field mapper
+     * @return The column name, qualified as needed
+     */
+    default String column(final ClassFieldMapper<?> field) {
+        return field.fieldName();
+    }
+
+    /**
+     * Returns a supplier for empty instances of the row class.
+     *
+     * @return A supplier of new {@link T}
+     */
+    Supplier<T> empty();
+
+    @Override
+    T mapRow(@Nullable ResultSet rs, int i);
+
+    /**
+     * Maps the current row using column indexes already resolved by {@link #columnsIn(ResultSet)}.
+     *
+     * @param rs      The result set
+     * @param i       The row number
+     * @param columns The column indexes of the mappable fields
+     * @return An instance, or null if all mapped fields were null
+     */
+    T mapRow(ResultSet rs, int i, int[] columns);
+
+    /**
+     * Resolves the column index of each of the mappable fields in a result set.
+     * This need only be done once per query.
+     *
+     * @param rs The result set
+     * @return The column indexes, parallel to {@link #mappableFields()}
+     * @throws SQLException if a field's column is not present
+     */
+    default int[] columnsIn(final ResultSet rs) throws SQLException {
+        final List<ClassFieldMapper<T>> fields = mappableFields();
+        final int[] columns = new int[fields.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = rs.findColumn(fields.get(i).fieldAlias());
+        }
+        return columns;
+    }
+
+    /**
+     * Returns a row mapper for use in a single query,
+     * which resolves column indexes on the first row and reads every row by index.
+     *
+     * @return A single-use row mapper
+     */
+    default RowMapper<T> forQuery() {
+        return new ColumnBoundRowMapper<>(this);
+    }
+
+    /**
+     * Returns an iterator which reads instances from the result set as it is advanced,
+     * rather than reading every row up front. Rows mapping to nothing are skipped.
+     * The result set should be positioned before its first row, and remains open.
+     *
+     * @param rs A result set from this mapper's SELECT
+     * @return An iterator over instances
+     */
+    default Iterator<T> iterator(final ResultSet rs) {
+        return new ResultSetIterator.Rows<>(this, rs);
+    }
+
+    /**
+     * Extracts insert field values from an instance of the row type.
+     *
+     * @param insert An instance of the row type
+     * @return An array of JDBC values
+     */
+    Object[] getInsertValues(T insert);
+
+    /**
+     * Binds insert field values from an instance of the row type
+     * directly to the parameters of a prepared {@link #insert() INSERT} statement.
+     *
+     * @param insert An instance of the row type
+     * @param ps     The prepared statement
+     */
+    void setInsertValues(T insert, PreparedStatement ps);
+
+    /**
+     * Returns the SQL field names changed on an instance since it was read or last written,
+     * for instances which track their changes.
+     *
+     * @param row An instance of the row type
+     * @return The changed field names, empty if the instance tracks changes and none were made,
+     * or null if the instance does not track changes or recorded none
+     */
+    default Set<String> changedFields(final T row) {
+        return null;
+    }
+
+    /**
+     * Returns the SQL field names read into an instance by a {@link FetchPlan#columns projection},
+     * for instances which track this; other fields of such instances are unknown, not null.
+     *
+     * @param row An instance of the row type
+     * @return The field names read, or null if the instance does not track this or was read whole
+     */
+    default Set<String> projectedFields(final T row) {
+        return null;
+    }
+
+    /**
+     * Makes an instance which tracks its changes forget them, as after writing them.
+     *
+     * @param row An instance of the row type
+     */
+    default void markUnchanged(final T row) {
+    }
+
+    /**
+     * Create a new mapper copied from this one, applying the given transformations.
+     *
+     * @param mapperTransform The transformation for the row mapper itself
+     * @param fieldTransform  The transformation for each field mapper
+     * @return A new row mapper
+     */
+    InvertibleRowMapper<T> copyTransforming(final RowMapperTransform mapperTransform, final FieldMapperTransform fieldTransform);
+
+    /**
+     * Returns the field mapper bound to the ID field.
+     *
+     * @return the field mapper bound to the ID field.
+     */
+    Mapper<T, ?, ?> idMapper();
+}
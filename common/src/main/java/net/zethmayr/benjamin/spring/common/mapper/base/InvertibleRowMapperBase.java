@@ -1,13 +1,18 @@
 package net.zethmayr.benjamin.spring.common.mapper.base;
 
 import net.zethmayr.benjamin.spring.common.model.base.ModelTrusted;
+import net.zethmayr.benjamin.spring.common.model.base.Trusting;
 import org.springframework.lang.Nullable;
 
 import java.lang.reflect.InvocationTargetException;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -28,6 +33,10 @@ public abstract class InvertibleRowMapperBase<T> extends ModelTrusted<Invertible
     private final String selectMappable;
     private final String insert;
     private final Mapper<T, ?, ?> idMapper;
+    private final ClassFieldMapper<T>[] insertFields;
+    private final boolean trusting;
+    private volatile RowCodec<T> codec;
+    private Set<String> projection;
 
     /**
      * Internal (and copy) constructor.
@@ -40,6 +49,7 @@ public abstract class InvertibleRowMapperBase<T> extends ModelTrusted<Invertible
      * @param selectMappable                The generated SELECT query
      * @param insert                        The generated INSERT query
      */
+    @SuppressWarnings("unchecked") // generic array creation
     InvertibleRowMapperBase(
             final Class<T> rowClass,
             final List<ClassFieldMapper<T>> fields,
@@ -50,6 +60,8 @@ public abstract class InvertibleRowMapperBase<T> extends ModelTrusted<Invertible
             final String insert
     ) {
         this.rowClass = rowClass;
+        // only trusting rows need marking while they are read
+        this.trusting = rowClass == null || Trusting.class.isAssignableFrom(rowClass);
         this.empty = empty;
         this.fields = Collections.unmodifiableList(fields);
         int i = 1;
@@ -59,6 +71,9 @@ public abstract class InvertibleRowMapperBase<T> extends ModelTrusted<Invertible
                 ++i;
             }
         }
+        insertFields = fields.stream()
+                .filter(NOT_INDEX)
+                .toArray(ClassFieldMapper[]::new);
         if (!allowNoId) {
             idMapper = findIdMapper(fields);
         } else {
@@ -67,6 +82,7 @@ public abstract class InvertibleRowMapperBase<T> extends ModelTrusted<Invertible
         this.table = table;
         this.selectMappable = selectMappable;
         this.insert = insert;
+        this.codec = RowCodecs.interpreted(this.fields);
     }
 
     /**
@@ -115,11 +131,64 @@ public abstract class InvertibleRowMapperBase<T> extends ModelTrusted<Invertible
         }, true, selectMappable, insert);
     }
 
+    /**
+     * Creates a new instance with queries prepared ahead of time,
+     * as by {@link net.zethmayr.benjamin.spring.common.mapper.processor.MapperProcessor}.
+     *
+     * @param rowClass       The row class
+     * @param fields         The field mappers
+     * @param table          The table name
+     * @param empty          The empty instance supplier
+     * @param selectMappable A SELECT query to retrieve mappable fields, as from {@link #genSelect}
+     * @param insert         An INSERT query to insert settable fields, as from {@link #genInsert}
+     */
+    protected InvertibleRowMapperBase(final Class<T> rowClass, final List<ClassFieldMapper<T>> fields, final String table, final Supplier<T> empty, final String selectMappable, final String insert) {
+        this(rowClass, fields, table, empty, false, selectMappable, insert);
+    }
+
     @Override
     public final Supplier<T> empty() {
         return empty;
     }
 
+    /**
+     * Opts this mapper in to a row codec generated at runtime for its field list,
+     * which decodes and encodes whole rows in straight-line code calling each field's own components.
+     * Codecs are shared by mappers whose fields share components, as copies of this mapper do.
+     * If generation is not possible the mapper keeps interpreting its field list.
+     *
+     * @return This mapper
+     */
+    public InvertibleRowMapperBase<T> generateCodec() {
+        if (!RowCodecs.isGenerated(codec)) {
+            codec = RowCodecs.generated(fields);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the codec used to decode and encode whole rows.
+     *
+     * @return The row codec
+     */
+    public final RowCodec<T> codec() {
+        return codec;
+    }
+
+    /**
+     * Gives the copy a generated codec if this mapper has one, which is shared where the copy's fields allow.
+     *
+     * @param copy A copy of this mapper
+     * @param <M>  The copy type
+     * @return The copy
+     */
+    final <M extends InvertibleRowMapperBase<T>> M withCodecOf(final M copy) {
+        if (RowCodecs.isGenerated(codec)) {
+            copy.generateCodec();
+        }
+        return copy;
+    }
+
     private static class Cloned<T> extends InvertibleRowMapperBase<T> {
         private Cloned(final Class<T> rowClass, final List<ClassFieldMapper<T>> fields, final String table, final Supplier<T> empty) {
             super(rowClass, fields, table, empty);
@@ -133,12 +202,52 @@ public abstract class InvertibleRowMapperBase<T> extends ModelTrusted<Invertible
                 .map((field) -> field.copyTransforming(fieldTransform))
                 .collect(Collectors.toList());
 
-        return new Cloned<>(
+        final InvertibleRowMapperBase<T> copy = new Cloned<>(
                 this.rowClass,
                 fieldsTransformed,
                 tableTransformed,
                 this.empty
         );
+        copy.projection = projection;
+        return withCodecOf(copy);
+    }
+
+    /**
+     * Returns a copy of this mapper which maps only the named fields, and the id field, from the same columns.
+     *
+     * @param fieldNames The SQL names of the fields to map
+     * @return A narrower copy of this mapper
+     * @throws MappingException if a field is not mapped by this mapper
+     */
+    public InvertibleRowMapperBase<T> projecting(final Collection<String> fieldNames) {
+        for (final String fieldName : fieldNames) {
+            if (fields.stream().noneMatch(f -> f.fieldName().equals(fieldName))) {
+                throw MappingException.badSetup("No field " + fieldName + " in " + table);
+            }
+        }
+        final Map<String, String> aliases = fields.stream()
+                .collect(Collectors.toMap(ClassFieldMapper::fieldName, ClassFieldMapper::fieldAlias));
+        final FieldMapperTransform sameAlias = new FieldMapperTransform() {
+            @Override
+            public String fieldName(final String fieldName) {
+                return aliases.get(fieldName);
+            }
+        };
+        final List<ClassFieldMapper<T>> fieldsProjected = this.fields.stream()
+                .filter((field) -> field == idMapper || fieldNames.contains(field.fieldName()))
+                .map((field) -> field.copyTransforming(sameAlias))
+                .collect(Collectors.toList());
+        final InvertibleRowMapperBase<T> projected = new Cloned<>(
+                this.rowClass,
+                fieldsProjected,
+                this.table,
+                this.empty
+        );
+        // instances read are marked, so updates write only what was read
+        projected.projection = Collections.unmodifiableSet(fieldsProjected.stream()
+                .map(ClassFieldMapper::fieldName)
+                .collect(Collectors.toSet()));
+        return withCodecOf(projected);
     }
 
     @SuppressWarnings("unchecked") // All ClassFieldMappers are secretly Mappers.
@@ -233,11 +342,38 @@ public abstract class InvertibleRowMapperBase<T> extends ModelTrusted<Invertible
     public T mapRow(final @Nullable ResultSet rs, final int i) {
         final T partial = empty.get();
         boolean allNull = true;
-        marshaling(partial, true);
+        if (trusting) {
+            marshaling(partial, true);
+        }
         for (ClassFieldMapper<T> m : fields) {
             allNull &= Objects.isNull(m.desTo(partial, rs));
         }
-        marshaling(partial, false);
+        if (trusting) {
+            marshaling(partial, false);
+            if (projection != null) {
+                projected(partial, projection);
+            }
+        }
+        if (allNull) {
+            return null;
+        } else {
+            return partial;
+        }
+    }
+
+    @Override
+    public T mapRow(final ResultSet rs, final int i, final int[] columns) {
+        final T partial = empty.get();
+        if (trusting) {
+            marshaling(partial, true);
+        }
+        final boolean allNull = codec.decode(partial, rs, columns);
+        if (trusting) {
+            marshaling(partial, false);
+            if (projection != null) {
+                projected(partial, projection);
+            }
+        }
         if (allNull) {
             return null;
         } else {
@@ -247,9 +383,30 @@ public abstract class InvertibleRowMapperBase<T> extends ModelTrusted<Invertible
 
     @Override
     public final Object[] getInsertValues(final T insert) {
-        return fields.stream()
-                .filter(NOT_INDEX)
-                .map((m) -> m.serFrom(insert))
-                .toArray();
+        final Object[] values = new Object[insertFields.length];
+        for (int f = 0; f < values.length; f++) {
+            values[f] = insertFields[f].serFrom(insert);
+        }
+        return values;
+    }
+
+    @Override
+    public final void setInsertValues(final T insert, final PreparedStatement ps) {
+        codec.encode(insert, ps);
+    }
+
+    @Override
+    public Set<String> changedFields(final T row) {
+        return changes(row);
+    }
+
+    @Override
+    public Set<String> projectedFields(final T row) {
+        return projection(row);
+    }
+
+    @Override
+    public void markUnchanged(final T row) {
+        unchanged(row);
     }
 }
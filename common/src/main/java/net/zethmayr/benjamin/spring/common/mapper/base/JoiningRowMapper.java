@@ -0,0 +1,954 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A mapper for objects represented over multiple tables.
+ *
+ * @param <T> The POJO class mapped
+ */
+@Slf4j
+public abstract class JoiningRowMapper<T> implements InvertibleRowMapper<T> {
+
+    public final InvertibleRowMapperBase<T> primary;
+    private final List<MapperAndJoin> joinedMappers;
+    private final List<MapperAndJoin<T, ?, ?>> topMappers;
+    private final int[][] mapperClears;
+    private final BiConsumer[] bareAcceptors;
+    private final int[] joinParents;
+    private final boolean[] shareable;
+    private final boolean[] fetched;
+    private final boolean[] local;
+    private final InvertibleRowMapperBase<T> readPrimary;
+    private final InvertibleRowMapper<?>[] readJoined;
+    private final String selectEntire;
+    /**
+     * The most planned copies kept; beyond this, all are forgotten and made again as needed.
+     */
+    private static final int MAX_PLANS = 256;
+    private final ConcurrentMap<List<Object>, JoiningRowMapper<T>> plans = new ConcurrentHashMap<>();
+    private static final String LIST_SEP = ", ";
+
+    /**
+     * Subclass constructor.
+     *
+     * @param primary       A non-joining mapper for the class being mapped.
+     * @param joinedMappers Specifications and mappers for each join - if a joining mapper is provided its joins
+     *                      will be composed into this mapper's joins.
+     */
+    @SafeVarargs
+    public JoiningRowMapper(final InvertibleRowMapperBase<T> primary, final MapperAndJoin<T, ?, ?>... joinedMappers) {
+        this(primary, 0, joinedMappers);
+        LOG.trace("subclass constructor end");
+    }
+
+    /**
+     * Internal / copy constructor.
+     *
+     * @param primary       A non-joining mapper for the class being mapped.
+     * @param initIndex     This mapper's position in the overall join.
+     * @param joinedMappers Specifications and mappers for each join.
+     */
+    @SafeVarargs
+    private JoiningRowMapper(final InvertibleRowMapperBase<T> primary, final int initIndex, final MapperAndJoin<T, ?, ?>... joinedMappers) {
+        LOG.trace("new, initIndex is {}", initIndex);
+        this.primary = rebindPrimary(primary, initIndex, initIndex);
+        final List<BiConsumer> acceptors = new ArrayList<>();
+        this.joinedMappers = Collections.unmodifiableList(rebindAndFlatten(initIndex, acceptors, joinedMappers));
+        this.bareAcceptors = acceptors.toArray(new BiConsumer[0]);
+        this.joinParents = this.joinedMappers.stream().mapToInt(j -> j.leftIndex() - initIndex).toArray();
+        this.shareable = findShareable(this.joinedMappers, joinParents);
+        this.fetched = findFetched(this.joinedMappers, joinParents);
+        this.local = findLocal(this.joinedMappers, joinParents);
+        this.mapperClears = findClears(this.joinedMappers);
+        this.topMappers = topMappers(this.joinedMappers, initIndex);
+        this.readPrimary = this.primary;
+        this.readJoined = this.joinedMappers.stream().map(MapperAndJoin::mapper).toArray(InvertibleRowMapper[]::new);
+        selectEntire = generateSelectEntire(readPrimary, this.joinedMappers, fetched, local, readJoined);
+        LOG.trace("generated JOIN select {}", selectEntire);
+    }
+
+    /**
+     * Planned copy constructor.
+     *
+     * @param source      The mapper to copy
+     * @param fetched     Whether each join is read
+     * @param readPrimary The mapper to read primary instances with
+     * @param readJoined  The mappers to read joined instances with, or null for joins not read
+     */
+    private JoiningRowMapper(final JoiningRowMapper<T> source, final boolean[] fetched,
+                             final InvertibleRowMapperBase<T> readPrimary, final InvertibleRowMapper<?>[] readJoined) {
+        this.primary = source.primary;
+        this.joinedMappers = source.joinedMappers;
+        this.bareAcceptors = source.bareAcceptors;
+        this.joinParents = source.joinParents;
+        this.mapperClears = source.mapperClears;
+        this.topMappers = source.topMappers;
+        this.fetched = fetched;
+        this.local = source.local;
+        this.readPrimary = readPrimary;
+        this.readJoined = readJoined;
+        // narrowed instances must not be shared with full reads
+        this.shareable = new boolean[readJoined.length];
+        for (int i = 0; i < shareable.length; i++) {
+            shareable[i] = source.shareable[i] && readJoined[i] == source.readJoined[i];
+        }
+        selectEntire = generateSelectEntire(readPrimary, joinedMappers, fetched, local, readJoined);
+        LOG.trace("generated planned JOIN select {}", selectEntire);
+    }
+
+    /**
+     * Returns a copy of this mapper reading only what the plan specifies, with its own SELECT.
+     * Copies are cached by what they read, so plans differing only in joins or tables this mapper lacks share one.
+     *
+     * @param plan A fetch plan
+     * @return A mapper reading per the plan
+     */
+    public JoiningRowMapper<T> planned(final FetchPlan plan) {
+        final boolean[] planFetched = fetchedBy(plan);
+        final List<Object> key = new ArrayList<>(planFetched.length + 1);
+        key.add(plan.columnsFor(readPrimary.table()));
+        for (int i = 0; i < planFetched.length; i++) {
+            // a joined table read from its parent's column has no columns to narrow
+            key.add(!planFetched[i] ? Boolean.FALSE : local[i] ? Boolean.TRUE : plan.columnsFor(baseOf(readJoined[i]).table()));
+        }
+        final JoiningRowMapper<T> known = plans.get(key);
+        if (known != null) {
+            return known;
+        }
+        final JoiningRowMapper<T> made = plan(plan, planFetched);
+        if (plans.size() >= MAX_PLANS) {
+            plans.clear();
+        }
+        final JoiningRowMapper<T> raced = plans.putIfAbsent(Collections.unmodifiableList(key), made);
+        return raced == null ? made : raced;
+    }
+
+    private boolean[] fetchedBy(final FetchPlan plan) {
+        val count = joinedMappers.size();
+        final boolean[] planFetched = new boolean[count];
+        final int[] depths = new int[count];
+        for (int i = 0; i < count; i++) {
+            final int parent = joinParents[i];
+            depths[i] = parent == 0 ? 1 : depths[parent - 1] + 1;
+            planFetched[i] = plan.reads(joinedMappers.get(i), fetched[i])
+                    && depths[i] <= plan.maxDepth()
+                    && (parent == 0 || planFetched[parent - 1]);
+        }
+        return planFetched;
+    }
+
+    private JoiningRowMapper<T> plan(final FetchPlan plan, final boolean[] planFetched) {
+        final InvertibleRowMapper<?>[] planReaders = new InvertibleRowMapper[planFetched.length];
+        for (int i = 0; i < planFetched.length; i++) {
+            if (planFetched[i]) {
+                planReaders[i] = local[i] ? readJoined[i] : projecting(readJoined[i], plan);
+            }
+        }
+        return new Cloned<>(this, planFetched, projecting(readPrimary, plan), planReaders);
+    }
+
+    @SuppressWarnings("unchecked") // the primary keeps the row type
+    private static <F> InvertibleRowMapper<F> baseOf(final InvertibleRowMapper<F> mapper) {
+        return mapper instanceof JoiningRowMapper ? ((JoiningRowMapper<F>) mapper).primary : mapper;
+    }
+
+    @SuppressWarnings("unchecked") // projections keep the row type
+    private static <F> InvertibleRowMapper<F> projecting(final InvertibleRowMapper<F> mapper, final FetchPlan plan) {
+        final InvertibleRowMapper<F> base = baseOf(mapper);
+        final Set<String> fieldNames = plan.columnsFor(base.table());
+        if (fieldNames == null || !(base instanceof InvertibleRowMapperBase)) {
+            return mapper;
+        }
+        return ((InvertibleRowMapperBase<F>) base).projecting(fieldNames);
+    }
+
+    private static <T> InvertibleRowMapperBase<T> projecting(final InvertibleRowMapperBase<T> mapper, final FetchPlan plan) {
+        final Set<String> fieldNames = plan.columnsFor(mapper.table());
+        return fieldNames == null ? mapper : mapper.projecting(fieldNames);
+    }
+
+    /**
+     * Finds all clearing position lists to use to invalidate the deduplicate cache when a new object is constructed.
+     *
+     * @param joins A list of joins to evaluate
+     * @return An array of clearing positions, parallel to the provided list
+     */
+    private static int[][] findClears(final List<MapperAndJoin> joins) {
+        val count = joins.size();
+        final int[][] clears = new int[count][];
+        for (int outer = 0; outer < count; outer++) {
+            val leftIndex = joins.get(outer).leftIndex();
+            clears[outer] = IntStream.range(0, count)
+                    .filter(inner -> joins.get(inner).leftIndex() > leftIndex)
+                    .toArray();
+        }
+        return clears;
+    }
+
+    /**
+     * Finds the joins whose instances may be shared between parents through an {@link IdentityMap}:
+     * those to single instances, with no joins of their own.
+     *
+     * @param joins       A list of joins to evaluate
+     * @param joinParents The parent position of each join, parallel to the provided list
+     * @return Whether each join is shareable, parallel to the provided list
+     */
+    private static boolean[] findShareable(final List<MapperAndJoin> joins, final int[] joinParents) {
+        final boolean[] shareable = new boolean[joins.size()];
+        for (int i = 0; i < shareable.length; i++) {
+            final MapperAndJoin.GetterState<?, ?> state = (MapperAndJoin.GetterState<?, ?>) joins.get(i).getter().get();
+            shareable[i] = state.initialState() == MapperAndJoin.GetterState.State.INIT_INSTANCE;
+        }
+        for (final int parent : joinParents) {
+            if (parent > 0) {
+                shareable[parent - 1] = false;
+            }
+        }
+        return shareable;
+    }
+
+    /**
+     * Finds the joins read along with the primary instance: those which are eager, under eager joins.
+     *
+     * @param joins       A list of joins to evaluate
+     * @param joinParents The parent position of each join, parallel to the provided list
+     * @return Whether each join is read, parallel to the provided list
+     */
+    private static boolean[] findFetched(final List<MapperAndJoin> joins, final int[] joinParents) {
+        final boolean[] fetched = new boolean[joins.size()];
+        for (int i = 0; i < fetched.length; i++) {
+            // parents always precede their children
+            fetched[i] = joins.get(i).fetch() == MapperAndJoin.FetchStyle.EAGER
+                    && (joinParents[i] == 0 || fetched[joinParents[i] - 1]);
+        }
+        return fetched;
+    }
+
+    /**
+     * Finds the joins which need not be made at all: those to enum tables on their ids, with no joins of their own.
+     * The enum id is read from the parent's join column instead, and decoded without the enum table.
+     *
+     * @param joins       A list of joins to evaluate
+     * @param joinParents The parent position of each join, parallel to the provided list
+     * @return Whether each join is read from its parent's column, parallel to the provided list
+     */
+    private static boolean[] findLocal(final List<MapperAndJoin> joins, final int[] joinParents) {
+        final boolean[] local = new boolean[joins.size()];
+        for (int i = 0; i < local.length; i++) {
+            final MapperAndJoin join = joins.get(i);
+            local[i] = join.mapper() instanceof EnumRowMapper
+                    && join.relation() == SqlOp.EQ
+                    && join.relatedField().fieldName.equals(join.mapper().idMapper().fieldName);
+        }
+        for (final int parent : joinParents) {
+            if (parent > 0) {
+                local[parent - 1] = false;
+            }
+        }
+        return local;
+    }
+
+    /**
+     * Returns the flattened list of all joins bound to this mapper.
+     *
+     * @return All joins bound to this mapper.
+     */
+    public List<MapperAndJoin> joinedMappers() {
+        return joinedMappers;
+    }
+
+    /**
+     * Returns the list of joins immediately bound to this mapper.
+     *
+     * @return The joins as given at construction bound to this mapper.
+     */
+    public List<MapperAndJoin<T, ?, ?>> topMappers() {
+        return topMappers;
+    }
+
+    @SuppressWarnings("unchecked") // we know the parent types of all top-level mappers - it's our own type.
+    private static <T> List<MapperAndJoin<T, ?, ?>> topMappers(final List<MapperAndJoin> joinedMappers, final int topIndex) {
+        return joinedMappers.stream()
+                .filter(m -> m.leftIndex() == topIndex)
+                .map(m -> (MapperAndJoin<T, ?, ?>) m)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Recursively flattens and composes all joins specified in provided mappers.
+     * @param leftIndex The starting index for this recursion
+     * @param acceptors Receives the acceptor of each join for its immediate parent, parallel to the result
+     * @param topJoinedMappers A list of join specifications, some of whose mappers may be joining mappers
+     * @return All join specifications from provided mappers, rebound to this mapper
+     */
+    private List<MapperAndJoin> rebindAndFlatten(final int leftIndex, final List<BiConsumer> acceptors, final MapperAndJoin... topJoinedMappers) {
+        LOG.trace("rebinding joins under {}", this);
+        val flattened = new ArrayList<MapperAndJoin>();
+        rebindAndFlatten(leftIndex, null, flattened, acceptors, topJoinedMappers);
+        return flattened;
+    }
+
+    @SuppressWarnings("unchecked") // We are adapting types in here, hopefully safely
+    private void rebindAndFlatten(final int leftIndex, final MapperAndJoin chainParent, final List<MapperAndJoin> list, final List<BiConsumer> acceptors, final MapperAndJoin... topJoinedMappers) {
+        LOG.trace("internal rebinding joins, leftIndex is {}, chainParent is {}", leftIndex, chainParent);
+        int index = leftIndex;
+        for (val originalJoin : topJoinedMappers) {
+            ++index;
+            val mapperTransform = mapperTransform(leftIndex);
+            val fieldTransform = fieldTransform(index);
+            val transformedJoin = copyJoinTransforming(originalJoin, chainParent, mapperTransform, fieldTransform);
+            list.add(transformedJoin);
+            acceptors.add(originalJoin.acceptor());
+            final InvertibleRowMapper joinedMapper = transformedJoin.mapper();
+            if (joinedMapper instanceof JoiningRowMapper) {
+                val joiningMapper = (JoiningRowMapper) joinedMapper;
+                joiningMapper.rebindAndFlatten(index++, transformedJoin, list, acceptors, (MapperAndJoin[]) joiningMapper.topMappers().toArray(new MapperAndJoin[]{}));
+            }
+        }
+    }
+
+    private static class Cloned<T> extends JoiningRowMapper<T> {
+        @SafeVarargs
+        private Cloned(final InvertibleRowMapperBase<T> primary, final int initIndex, MapperAndJoin<T, ?, ?>... joinedMappers) {
+            super(primary, initIndex, joinedMappers);
+        }
+
+        private Cloned(final JoiningRowMapper<T> source, final boolean[] fetched,
+                       final InvertibleRowMapperBase<T> readPrimary, final InvertibleRowMapper<?>[] readJoined) {
+            super(source, fetched, readPrimary, readJoined);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    // All members of 'copy' will be MapperAndJoin<T, ?, ?> since they are immediate joins
+    public JoiningRowMapper<T> copyTransforming(final RowMapperTransform mapperTransform, final FieldMapperTransform fieldTransform) {
+        LOG.trace("copying, leftIndex is {}, fieldTransform is {}", mapperTransform.leftIndex(), fieldTransform);
+        MapperAndJoin[] copy = new MapperAndJoin[topMappers.size()];
+        final int leftIndex = mapperTransform.leftIndex();
+        for (int i = 0; i < copy.length; i++) {
+            final MapperAndJoin<T, ?, ?> original = topMappers.get(i);
+            copy[i] = copyJoinTransforming(original, null, mapperTransform, fieldTransform(leftIndex + 1 + i));
+        }
+        return new Cloned<T>(primary.copyTransforming(mapperTransform, fieldTransform), fieldTransform.joinIndex(), copy);
+    }
+
+    @SuppressWarnings("unchecked") // we adapt types in here, quite a bit, and as far as we know safely...
+    private <P, F, X> MapperAndJoin copyJoinTransforming(final MapperAndJoin<P, F, X> original, final MapperAndJoin<T, P, ?> parent, final RowMapperTransform mapperTransform, final FieldMapperTransform fieldTransform) {
+        LOG.trace("copying join, leftIndex is {}, fieldTransform is {}", mapperTransform.leftIndex(), fieldTransform);
+        final BiConsumer<P, F> bareAcceptor = original.acceptor();
+        final Supplier<MapperAndJoin.GetterState<P, F>> bareGetter = original.getter();
+        /*
+         * We construct an acceptor which will accept a leaf field value into a root instance
+         */
+        final BiConsumer curriedAcceptor;
+        /*
+         * We construct a getter which will return a leaf object from the root instance
+         */
+        // I feel like there's a lot of optimization potential here. Maybe a build stack?
+        final Supplier curriedGetter;
+        if (parent != null) {
+            LOG.trace("Currying acceptor over {}", bareAcceptor);
+            final Function parentLast = parent.getter().get().getLast();
+            curriedAcceptor = (t, f) -> bareAcceptor.accept((P) parentLast.apply(t), (F) f);
+            curriedGetter = bareGetter.get().rebind(parentLast);
+        } else {
+            curriedAcceptor = bareAcceptor;
+            curriedGetter = bareGetter;
+        }
+        return original.toBuilder()
+                .mapper((InvertibleRowMapper) original.mapper().copyTransforming(mapperTransform, fieldTransform))
+                .acceptor(curriedAcceptor)
+                .getter(curriedGetter)
+                .parentField((Mapper) original.parentField().copyTransforming(fieldTransform(mapperTransform.leftIndex())))
+                .relatedField((Mapper) original.relatedField().copyTransforming(fieldTransform))
+                .leftIndex(mapperTransform.leftIndex())
+                .build();
+    }
+
+    private static String prefix(final AtomicInteger index) {
+        return prefix(index.get());
+    }
+
+    /**
+     * Returns the prefix to apply to result column names for a given joined table index
+     *
+     * @param index The joined table index
+     * @return An identifier prefix string
+     */
+    public static String prefix(final int index) {
+        return "_" + index + "__";
+    }
+
+    private static <T> String generateSelectEntire(final InvertibleRowMapper<T> primary, final List<MapperAndJoin> joinedMappers,
+                                                   final boolean[] fetched, final boolean[] local,
+                                                   final InvertibleRowMapper<?>[] readers) {
+        val sb = new StringBuilder();
+        final AtomicInteger initIndex = new AtomicInteger(0);
+        sb.append("SELECT \n")
+                .append(primary.mappableFields().stream().map(f ->
+                                prefix(initIndex) + "." + f.fieldName()
+                                        + " AS " + prefix(initIndex) + f.fieldName()
+                        ).collect(Collectors.joining(LIST_SEP))
+                );
+        for (int i = 0; i < joinedMappers.size(); i++) {
+            initIndex.incrementAndGet();
+            if (!fetched[i]) {
+                continue; // unread joins keep their table index, so the rest of the aliases are unchanged
+            }
+            final InvertibleRowMapper<?> joinedMapper = readers[i];
+            if (local[i]) {
+                // the parent's join column holds the enum id, so is read under the enum id's alias
+                val join = joinedMappers.get(i);
+                sb.append(LIST_SEP + "\n")
+                        .append(prefix(join.leftIndex())).append(".").append(join.parentField().fieldName)
+                        .append(" AS ").append(prefix(initIndex)).append(joinedMapper.idMapper().fieldName);
+                continue;
+            }
+            sb.append(LIST_SEP + "\n")
+                    .append(joinedMapper.mappableFields().stream().map(f ->
+                            prefix(initIndex) + "." + f.fieldName()
+                                    + " AS " + prefix(initIndex) + f.fieldName()
+                    ).collect(Collectors.joining(LIST_SEP)));
+        }
+        initIndex.set(0);
+        sb.append("\nFROM ")
+                .append(primary.table()).append(" ").append(prefix(initIndex))
+                .append("\n");
+        for (val j : joinedMappers) {
+            final int i = initIndex.getAndIncrement();
+            if (!fetched[i] || local[i]) {
+                continue;
+            }
+            sb.append("LEFT JOIN ").append(j.mapper().table()).append(" ").append(prefix(initIndex))
+                    .append(" ON ").append(prefix(j.leftIndex())).append(".").append(j.parentField().fieldName())
+                    .append(" ").append(j.relation().sql).append(" ")
+                    .append(prefix(initIndex)).append(".").append(j.relatedField().fieldName)
+                    .append("\n");
+        }
+        return sb.toString();
+    }
+
+    private static <T> InvertibleRowMapperBase<T> rebindPrimary(final InvertibleRowMapperBase<T> original, final int leftIndex, final int joinIndex) {
+        LOG.trace("static rebind of {} to leftIndex {}, joinIndex {}", original, leftIndex, joinIndex);
+        return original.copyTransforming(
+                mapperTransform(leftIndex),
+                fieldTransform(joinIndex)
+        );
+    }
+
+    private static RowMapperTransform mapperTransform(final int leftIndex) {
+        LOG.trace("new mapper transform, leftIndex is {}", leftIndex);
+        return new RowMapperTransform() {
+            @Override
+            public String table(final String table) {
+                return table;
+            }
+
+            @Override
+            public int leftIndex() {
+                return leftIndex;
+            }
+        };
+    }
+
+    private static FieldMapperTransform fieldTransform(final int joinIndex) {
+        LOG.trace("new field transform, joinIndex is {}", joinIndex);
+        return new FieldMapperTransform() {
+            @Override
+            public String fieldName(final String fieldName) {
+                return prefix(joinIndex) + fieldName;
+            }
+
+            @Override
+            public int joinIndex() {
+                return joinIndex;
+            }
+        };
+    }
+
+    @Override
+    public Class<T> rowClass() {
+        return primary.rowClass();
+    }
+
+    @Override
+    public List<ClassFieldMapper<T>> fields() {
+        return primary.fields();
+    }
+
+    @Override
+    public List<ClassFieldMapper<T>> mappableFields() {
+        return primary.mappableFields();
+    }
+
+    @Override
+    public String table() {
+        return primary.table();
+    }
+
+    @Override
+    public String select() {
+        return selectEntire;
+    }
+
+    @Override
+    public String from() {
+        return selectEntire.substring(selectEntire.indexOf("\nFROM "));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Fields of joined tables, as listed by {@link #joinedMappers()}, are qualified by their table's prefix.
+     * Other field mappers are found as the table mappers they came from were copied:
+     * in the primary table, or failing that in exactly one joined table.
+     * Mappers matching no field that way are found by name, in exactly one table.
+     *
+     * @throws MappingException if a field is not found, or is found in more than one table
+     */
+    @Override
+    public String column(final ClassFieldMapper<?> field) {
+        final String name = field.fieldName();
+        final String alias = field.fieldAlias();
+        if (alias.length() > name.length() && alias.endsWith(name)) {
+            return alias.substring(0, alias.length() - name.length()) + "." + name;
+        }
+        for (final ClassFieldMapper<T> own : primary.fields()) {
+            if (own.mapsSameFieldAs(field)) {
+                return column(own);
+            }
+        }
+        final String copied = joinedColumn(field, (joined) -> joined.mapsSameFieldAs(field));
+        if (copied != null) {
+            return copied;
+        }
+        String found = null;
+        for (final ClassFieldMapper<T> own : primary.fields()) {
+            if (own.fieldName().equals(name)) {
+                found = column(own);
+            }
+        }
+        final String joined = joinedColumn(field, (each) -> each.fieldName().equals(name));
+        if (found != null && joined != null) {
+            throw MappingException.badSetup("Field " + name + " is in the primary and a joined table");
+        }
+        if (found == null && joined == null) {
+            throw MappingException.badSetup("Field " + name + " is not read by this mapper");
+        }
+        return found != null ? found : joined;
+    }
+
+    private String joinedColumn(final ClassFieldMapper<?> field, final Predicate<ClassFieldMapper<?>> matches) {
+        String found = null;
+        for (int i = 0; i < joinedMappers.size(); i++) {
+            if (!fetched[i] || local[i]) {
+                continue;
+            }
+            for (final ClassFieldMapper<?> joined : ((InvertibleRowMapper<?>) joinedMappers.get(i).mapper()).fields()) {
+                if (matches.test(joined)) {
+                    if (found != null) {
+                        throw MappingException.badSetup("Field " + field.fieldName() + " is in more than one joined table");
+                    }
+                    found = column(joined);
+                }
+            }
+        }
+        return found;
+    }
+
+    // TODO: should these 2 methods be less supported?
+    @Override
+    public String insert() {
+        return primary.insert();
+    }
+
+    @Override
+    public Supplier<T> empty() {
+        return primary.empty();
+    }
+
+    /**
+     * Returns an extractor which will process all result rows and produce a list of instances.
+     *
+     * @return A result list extractor
+     */
+    public ResultSetExtractor<List<T>> listExtractor() {
+        return listExtractor(null);
+    }
+
+    /**
+     * Returns an extractor which will process all result rows and produce a list of instances,
+     * reusing instances from the given identity map for joins to single instances without joins of their own.
+     *
+     * @param identities An identity map, or null to map every joined instance afresh
+     * @return A result list extractor
+     */
+    public ResultSetExtractor<List<T>> listExtractor(final IdentityMap identities) {
+        return rs -> {
+            final List<T> results = new ArrayList<>();
+            T one;
+            if (rs.next()) {
+                final Columns columns = bind(rs, identities);
+                do {
+                    one = extractDataInternal(rs, columns);
+                    if (!Objects.isNull(one)) {
+                        results.add(one);
+                    }
+                } while (columns.onRow);
+            }
+            return results;
+        };
+    }
+
+    /**
+     * Returns an extractor which will process all result rows and produce a list of instances,
+     * whatever order the rows arrive in.
+     * Rows are grouped by primary id in a single pass, and joined instances are attached to
+     * their own parents rather than to the most recently read ones,
+     * so no ORDER BY is needed. Instances are listed in the order their first rows arrive.
+     *
+     * @return A result list extractor
+     */
+    public ResultSetExtractor<List<T>> unorderedListExtractor() {
+        return unorderedListExtractor(null);
+    }
+
+    /**
+     * As {@link #unorderedListExtractor()}, reusing instances from the given identity map
+     * for joins to single instances without joins of their own.
+     *
+     * @param identities An identity map, or null to map every joined instance afresh
+     * @return A result list extractor
+     */
+    public ResultSetExtractor<List<T>> unorderedListExtractor(final IdentityMap identities) {
+        return rs -> {
+            final List<T> results = new ArrayList<>();
+            if (!rs.next()) {
+                return results;
+            }
+            final Columns columns = bind(rs, identities);
+            final Mapper<T, ?, ?> idMapper = readPrimary.idMapper();
+            final IdTable<Unordered> roots = new IdTable<>();
+            final Object[] rowObjects = new Object[joinedMappers.size() + 1];
+            do {
+                final Object id = idMapper.from(rs, columns.primaryId);
+                if (Objects.isNull(id)) {
+                    continue;
+                }
+                Unordered root = roots.get(id);
+                if (root == null) {
+                    final T top = readPrimary.mapRow(rs, rs.getRow(), columns.primary);
+                    if (Objects.isNull(top)) {
+                        continue;
+                    }
+                    root = new Unordered(top, joinedMappers.size());
+                    roots.putNew(id, root);
+                    results.add(top);
+                }
+                readJoinedUnordered(rs, root, rowObjects, columns);
+            } while (rs.next());
+            return results;
+        };
+    }
+
+    /**
+     * A root instance and the instances joined to it so far, by parent instance and id.
+     */
+    private static final class Unordered {
+        private final Object top;
+        private final Map<Object, Map<Object, Object>>[] joined;
+
+        @SuppressWarnings("unchecked") // generic array creation
+        private Unordered(final Object top, final int joins) {
+            this.top = top;
+            this.joined = new Map[joins];
+        }
+    }
+
+    @SuppressWarnings("unchecked") // Uses raw types to adapt acceptor methods
+    private void readJoinedUnordered(final ResultSet rs, final Unordered root, final Object[] rowObjects, final Columns columns) throws SQLException {
+        rowObjects[0] = root.top;
+        for (int i = 0; i < joinParents.length; i++) {
+            rowObjects[i + 1] = null;
+            final Object parent = rowObjects[joinParents[i]];
+            if (Objects.isNull(parent) || !fetched[i]) {
+                continue;
+            }
+            final InvertibleRowMapper<?> subMapper = readJoined[i];
+            final Object subId = subMapper.idMapper().from(rs, columns.joinedIds[i]);
+            if (Objects.isNull(subId)) {
+                continue;
+            }
+            if (root.joined[i] == null) {
+                root.joined[i] = new IdentityHashMap<>();
+            }
+            final Map<Object, Object> byId = root.joined[i].computeIfAbsent(parent, (p) -> new HashMap<>());
+            Object sub = byId.get(subId);
+            if (sub == null && !byId.containsKey(subId)) {
+                sub = mapJoined(rs, i, subMapper, subId, columns);
+                byId.put(subId, sub);
+                if (sub != null) {
+                    bareAcceptors[i].accept(parent, sub);
+                }
+            }
+            rowObjects[i + 1] = sub;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each instance is returned with its joined instances as soon as its primary id changes,
+     * so only one instance is held at a time.
+     */
+    @Override
+    public Iterator<T> iterator(final ResultSet rs) {
+        return iterator(rs, null);
+    }
+
+    /**
+     * As {@link #iterator(ResultSet)}, reusing instances from the given identity map
+     * for joins to single instances without joins of their own.
+     *
+     * @param rs         An open result set from this mapper's SELECT
+     * @param identities An identity map, or null to map every joined instance afresh
+     * @return An iterator over the instances read
+     */
+    public Iterator<T> iterator(final ResultSet rs, final IdentityMap identities) {
+        return new ResultSetIterator<T>(rs) {
+            private Columns columns;
+
+            @Override
+            protected T fetch() throws SQLException {
+                if (columns == null) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    columns = bind(rs, identities);
+                }
+                while (columns.onRow) {
+                    final T one = extractDataInternal(rs, columns);
+                    if (!Objects.isNull(one)) {
+                        return one;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Returns an extractor which will process result rows for a single instance.
+     *
+     * @return A single result extractor.
+     */
+    public ResultSetExtractor<T> extractor() {
+        return extractor(null);
+    }
+
+    /**
+     * Returns an extractor which will process result rows for a single instance,
+     * reusing instances from the given identity map for joins to single instances without joins of their own.
+     *
+     * @param identities An identity map, or null to map every joined instance afresh
+     * @return A single result extractor.
+     */
+    public ResultSetExtractor<T> extractor(final IdentityMap identities) {
+        return rs -> {
+            if (!rs.next()) {
+                return null;
+            }
+            return extractDataInternal(rs, bind(rs, identities));
+        };
+    }
+
+    /**
+     * The decoding plan for a single query: column indexes resolved once, so rows can be read without label lookups,
+     * the per-join sets of ids already read, which are reused from root to root,
+     * and any identity map to share single joined instances through.
+     * Whether the result set is still on a row is tracked from {@link ResultSet#next()},
+     * as not every driver supports {@link ResultSet#isAfterLast()} on forward-only result sets.
+     */
+    private static final class Columns {
+        private final int[] primary;
+        private final int primaryId;
+        private final int[][] joined;
+        private final int[] joinedIds;
+        private final IdSet[] seen;
+        private final IdentityMap identities;
+        private boolean onRow = true;
+
+        private Columns(final int[] primary, final int primaryId, final int[][] joined, final int[] joinedIds, final IdSet[] seen,
+                        final IdentityMap identities) {
+            this.primary = primary;
+            this.primaryId = primaryId;
+            this.joined = joined;
+            this.joinedIds = joinedIds;
+            this.seen = seen;
+            this.identities = identities;
+        }
+    }
+
+    /**
+     * Resolves the column indexes for the primary and all joined mappers.
+     *
+     * @param rs         A result set from this mapper's SELECT
+     * @param identities An identity map, or null
+     * @return The resolved column indexes
+     * @throws SQLException if any mapped column is not present
+     */
+    private Columns bind(final ResultSet rs, final IdentityMap identities) throws SQLException {
+        val count = joinedMappers.size();
+        final int[][] joined = new int[count][];
+        final int[] joinedIds = new int[count];
+        final IdSet[] seen = new IdSet[count];
+        for (int i = 0; i < count; i++) {
+            if (!fetched[i]) {
+                continue;
+            }
+            final InvertibleRowMapper<?> subMapper = readJoined[i];
+            joined[i] = subMapper.columnsIn(rs);
+            joinedIds[i] = rs.findColumn(subMapper.idMapper().fieldAlias());
+            seen[i] = IdSet.forId(subMapper.idMapper());
+        }
+        return new Columns(
+                readPrimary.columnsIn(rs),
+                rs.findColumn(readPrimary.idMapper().fieldAlias()),
+                joined,
+                joinedIds,
+                seen,
+                identities
+        );
+    }
+
+    private T extractDataInternal(final ResultSet rs, final Columns columns) throws SQLException, DataAccessException {
+        if (!columns.onRow) {
+            return null;
+        }
+        val row = rs.getRow();
+        LOG.trace("row is {}", row);
+        final T top = readPrimary.mapRow(rs, row, columns.primary);
+        LOG.trace("top is {}", top);
+        // Wait, might there not be any number of subordinates on the first row?
+        for (final IdSet seen : columns.seen) {
+            if (seen != null) {
+                seen.clear();
+            }
+        }
+        if (Objects.isNull(top)) {
+            columns.onRow = rs.next();
+            return null;
+        }
+        readJoined(rs, top, columns);
+        final Mapper<T, ?, ?> idMapper = readPrimary.idMapper();
+        final Object id = idMapper.from(rs, columns.primaryId);
+        while (columns.onRow = rs.next()) {
+            if (!id.equals(idMapper.from(rs, columns.primaryId))) {
+                break;
+            }
+            readJoined(rs, top, columns);
+        }
+        return top;
+    }
+
+    @SuppressWarnings("unchecked") // Uses raw types to adapt acceptor methods
+    private void readJoined(final ResultSet rs, final T top, final Columns columns) throws SQLException {
+        val basis = joinedMappers; // using topMappers works for up to one one-to-many traversal, but not more.
+        final IdSet[] seen = columns.seen;
+        for (int i = 0; i < seen.length; i++) {
+            if (fetched[i] && seen[i].addFrom(rs, columns.joinedIds[i]) == IdSet.ADDED) {
+                for (final int clear : mapperClears[i]) {
+                    if (seen[clear] != null) {
+                        seen[clear].clear();
+                    }
+                }
+                val join = basis.get(i);
+                final InvertibleRowMapper<?> subMapper = readJoined[i];
+                final Object sub = mapJoined(rs, i, subMapper, null, columns);
+                if (sub != null) {
+                    // This is indeed a really unsafe call - it depends on having rewired the getters and acceptors properly
+                    join.acceptor().accept(top, subMapper.rowClass().cast(sub));
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps a joined instance, or finds it in the identity map if the join is shareable.
+     *
+     * @param rs        The result set, on the row to map
+     * @param i         The join position
+     * @param subMapper The joined mapper
+     * @param subId     The joined id, if already read
+     * @param columns   The decoding plan
+     * @return The joined instance
+     * @throws SQLException on read errors
+     */
+    private Object mapJoined(final ResultSet rs, final int i, final InvertibleRowMapper<?> subMapper, final Object subId, final Columns columns) throws SQLException {
+        final IdentityMap identities = columns.identities;
+        if (identities == null || !shareable[i]) {
+            return subMapper.mapRow(rs, rs.getRow(), columns.joined[i]);
+        }
+        final Object id = subId != null ? subId : subMapper.idMapper().from(rs, columns.joinedIds[i]);
+        final Object found = identities.get(subMapper.table(), id, subMapper.rowClass());
+        if (found != null) {
+            return found;
+        }
+        final Object sub = subMapper.mapRow(rs, rs.getRow(), columns.joined[i]);
+        if (sub != null) {
+            identities.put(subMapper.table(), id, sub);
+        }
+        return sub;
+    }
+
+    @Override
+    public T mapRow(ResultSet rs, int i) {
+        return primary.mapRow(rs, i);
+    }
+
+    @Override
+    public T mapRow(final ResultSet rs, final int i, final int[] columns) {
+        return primary.mapRow(rs, i, columns);
+    }
+
+    @Override
+    public Object[] getInsertValues(T insert) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setInsertValues(T insert, PreparedStatement ps) {
+        throw new UnsupportedOperationException();
+    }
+
+
+    @Override
+    public Mapper<T, ?, ?> idMapper() {
+        return primary.idMapper();
+    }
+}
@@ -26,13 +26,8 @@ public class ListBatchPreparedStatementSetter<T> implements BatchPreparedStateme
     }
 
     @Override
-    @SuppressWarnings("unchecked") // methods of same mapper are known to match in type
     public void setValues(@Nullable PreparedStatement ps, int i) {
-        final T value = valueObjects.get(i);
-        rowMapper.fields().stream()
-                .filter(Mapper.NOT_INDEX)
-                .map(Mapper.class::cast)
-                .forEach((m)->m.apply(ps, m.serFrom(value)));
+        rowMapper.setInsertValues(valueObjects.get(i), ps);
     }
 
     @Override
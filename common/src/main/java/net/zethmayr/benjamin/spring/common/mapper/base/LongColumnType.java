@@ -0,0 +1,38 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A column type for 64-bit integer columns
+ * which can also be read and written without boxing.
+ *
+ * @see LongMapper
+ */
+public interface LongColumnType extends ColumnType<Long> {
+
+    /**
+     * Reads the column as a primitive; callers must check {@link ResultSet#wasNull()}.
+     *
+     * @param rs     The result set
+     * @param column The 1-based column index
+     * @return The column value, or 0 if null
+     * @throws SQLException on SQL errors
+     */
+    default long getLong(final ResultSet rs, final int column) throws SQLException {
+        return rs.getLong(column);
+    }
+
+    /**
+     * Sets a primitive value as a statement parameter.
+     *
+     * @param ps      The prepared statement
+     * @param ordinal The 1-based parameter index
+     * @param value   The value
+     * @throws SQLException on SQL errors
+     */
+    default void setLong(final PreparedStatement ps, final int ordinal, final long value) throws SQLException {
+        ps.setLong(ordinal, value);
+    }
+}
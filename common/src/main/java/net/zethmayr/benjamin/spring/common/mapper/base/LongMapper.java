@@ -0,0 +1,107 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * A field mapper for primitive long fields.
+ * Rows read by column and whole-row inserts do not box the value.
+ * <p>
+ * A null column value leaves the field as it was.
+ * See {@link ComposedMapper#longField(String, ToLongFunction, LongColumnType, ObjLongConsumer)}.
+ *
+ * @param <C> The instance type
+ */
+public class LongMapper<C> extends ComposedMapper<C, Long, Long> {
+    private final ToLongFunction<C> longGetter;
+    private final LongColumnType longColumnType;
+    private final ObjLongConsumer<C> longSetter;
+
+    /**
+     * Internal (and copy) constructor.
+     *
+     * @param fieldName  The SQL name of the field
+     * @param fieldAlias The SQL alias of the field
+     * @param longGetter  The accessor to retrieve the field value from an instance of the class
+     * @param columnType The SQL column type information
+     * @param longSetter  The accessor to set the field value into an instance of the class
+     */
+    LongMapper(final String fieldName, final String fieldAlias, final ToLongFunction<C> longGetter, final LongColumnType columnType, final ObjLongConsumer<C> longSetter) {
+        super(fieldName, fieldAlias,
+                longGetter::applyAsLong,
+                (in) -> in,
+                columnType,
+                columnType.getterFactory().field(fieldAlias),
+                (out) -> out,
+                (container, value) -> {
+                    if (value != null) {
+                        longSetter.accept(container, value);
+                    }
+                });
+        this.longGetter = longGetter;
+        this.longColumnType = columnType;
+        this.longSetter = longSetter;
+    }
+
+    @Override
+    public LongMapper<C> copyTransforming(final FieldMapperTransform fieldTransform) {
+        return new LongMapper<>(fieldName, fieldTransform.fieldName(fieldName), longGetter, longColumnType, longSetter);
+    }
+
+    ToLongFunction<C> longGetter() {
+        return longGetter;
+    }
+
+    @Override
+    Object accessor() {
+        return longGetter;
+    }
+
+    LongColumnType longColumnType() {
+        return longColumnType;
+    }
+
+    ObjLongConsumer<C> longSetter() {
+        return longSetter;
+    }
+
+    /**
+     * Retrieves the field value without boxing.
+     *
+     * @param container The containing instance
+     * @return The field value
+     */
+    public long getLongFrom(final C container) {
+        return longGetter.applyAsLong(container);
+    }
+
+    @Override
+    public boolean desColumnTo(final C container, final ResultSet rs, final int column) {
+        try {
+            final long value = longColumnType.getLong(rs, column);
+            if (rs.wasNull()) {
+                return true;
+            }
+            longSetter.accept(container, value);
+            return false;
+        } catch (SQLException sqle) {
+            throw MappingException.because(sqle);
+        }
+    }
+
+    @Override
+    public void serInto(final PreparedStatement ps, final C container) {
+        final int ordinal = getInsertOrdinal();
+        if (ordinal < 0) {
+            throw MappingException.badSetup("Ordinal not set");
+        }
+        try {
+            longColumnType.setLong(ps, ordinal, longGetter.applyAsLong(container));
+        } catch (SQLException sqle) {
+            throw MappingException.because(sqle);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package net.zethmayr.benjamin.spring.common.mapper.base;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Objects;
@@ -95,6 +96,17 @@ public abstract class Mapper<C, I, O> extends ClassFieldMapper<C> implements Ser
         return ser(getFrom(container));
     }
 
+    /**
+     * Applies the serialized field value from the containing object to the INSERT statement.
+     *
+     * @param ps        The INSERT statement
+     * @param container The containing instance
+     */
+    @Override
+    public void serInto(final PreparedStatement ps, final C container) {
+        apply(ps, serFrom(container));
+    }
+
     /**
      * Deserializes the field from a {@link ResultSet} into the containing object.
      *
@@ -108,6 +120,31 @@ public abstract class Mapper<C, I, O> extends ClassFieldMapper<C> implements Ser
         return setTo(container, des(from(rs)));
     }
 
+    /**
+     * Deserializes the field from a resolved column of a {@link ResultSet} into the containing object.
+     *
+     * @param container The containing instance
+     * @param rs        The resultset providing the value
+     * @param column    The 1-based index of the field's column
+     * @return true if the value set was null, else false
+     */
+    @Override
+    public boolean desColumnTo(final C container, final ResultSet rs, final int column) {
+        return setTo(container, des(from(rs, column))) == null;
+    }
+
+    /**
+     * Retrieves the serialized field value from a resolved column of a {@link ResultSet}.
+     * By default, this reads the field by name, as {@link #from(ResultSet)} does.
+     *
+     * @param rs     The resultset providing the value
+     * @param column The 1-based index of the field's column
+     * @return The field value in the external type
+     */
+    public O from(final ResultSet rs, final int column) {
+        return from(rs);
+    }
+
     /**
      * Deserializes a serialized value into the containing object's specific field
      *
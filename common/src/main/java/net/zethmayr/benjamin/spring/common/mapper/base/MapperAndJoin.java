@@ -16,6 +16,7 @@ import java.util.function.Supplier;
 
 import static lombok.AccessLevel.PUBLIC;
 import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.DeleteStyle.DONT_DELETE;
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.FetchStyle.EAGER;
 import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.GetterState.State.COLLECTION;
 import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.GetterState.State.INIT_COLLECTION;
 import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.GetterState.State.INIT_INSTANCE;
@@ -82,6 +83,12 @@ public class MapperAndJoin<P, F, O> {
     @Getter(PUBLIC)
     @NonNull
     private final DeleteStyle deletions;
+    /**
+     * Whether joined instances are read along with the parent - defaults to {@link FetchStyle#EAGER}
+     */
+    @Getter(PUBLIC)
+    @NonNull
+    private final FetchStyle fetch;
     /**
      * The table index left of this table in a join - you probably do not want to set this manually.
      */
@@ -100,6 +107,7 @@ public class MapperAndJoin<P, F, O> {
         private InsertStyle insertions = DONT_INSERT;
         private DeleteStyle deletions = DONT_DELETE;
         private SqlOp relation = EQ;
+        private FetchStyle fetch = EAGER;
     }
 
     /**
@@ -121,6 +129,20 @@ public class MapperAndJoin<P, F, O> {
         MATERIALIZE_PARENT
     }
 
+    /**
+     * Ways to read joined instances
+     */
+    public enum FetchStyle {
+        /**
+         * Read in the same query as the parent
+         */
+        EAGER,
+        /**
+         * Left out of the parent's query, along with everything joined to it, and read only on request
+         */
+        LAZY
+    }
+
     public static <P, F> BiConsumer<P, F> adder(final Function<P, Collection<F>> getCollection) {
         return (p, f) -> getCollection.apply(p).add(f);
     }
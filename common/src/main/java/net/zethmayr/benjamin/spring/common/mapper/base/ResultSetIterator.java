@@ -0,0 +1,83 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An iterator over instances read lazily from an open {@link ResultSet}.
+ *
+ * @param <T> The instance type
+ * @see InvertibleRowMapper#iterator(ResultSet)
+ */
+abstract class ResultSetIterator<T> implements Iterator<T> {
+    protected final ResultSet rs;
+    private T next;
+    private boolean fetched;
+
+    ResultSetIterator(final ResultSet rs) {
+        this.rs = rs;
+    }
+
+    /**
+     * Reads the next instance, skipping any rows which map to nothing.
+     *
+     * @return The next instance, or null if there are no more
+     * @throws SQLException on read errors
+     */
+    protected abstract T fetch() throws SQLException;
+
+    @Override
+    public final boolean hasNext() {
+        if (!fetched) {
+            try {
+                next = fetch();
+            } catch (SQLException sqle) {
+                throw MappingException.because(sqle);
+            }
+            fetched = true;
+        }
+        return next != null;
+    }
+
+    @Override
+    public final T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final T found = next;
+        next = null;
+        fetched = false;
+        return found;
+    }
+
+    /**
+     * Iterates over single rows.
+     *
+     * @param <T> The row type
+     */
+    static final class Rows<T> extends ResultSetIterator<T> {
+        private final InvertibleRowMapper<T> mapper;
+        private int[] columns;
+
+        Rows(final InvertibleRowMapper<T> mapper, final ResultSet rs) {
+            super(rs);
+            this.mapper = mapper;
+        }
+
+        @Override
+        protected T fetch() throws SQLException {
+            while (rs.next()) {
+                if (columns == null) {
+                    columns = mapper.columnsIn(rs);
+                }
+                final T row = mapper.mapRow(rs, rs.getRow(), columns);
+                if (row != null) {
+                    return row;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Decodes whole rows into instances and encodes instances into whole-row INSERT parameters.
+ * Instances are obtained from {@link InvertibleRowMapperBase}, which may generate them at runtime;
+ * see {@link InvertibleRowMapperBase#generateCodec()}.
+ *
+ * @param <T> The row type
+ */
+public interface RowCodec<T> {
+
+    /**
+     * Deserializes every field of the current row into the container.
+     *
+     * @param container The instance being mapped into
+     * @param rs        The result set
+     * @param columns   The resolved column index of each field
+     * @return true if every value set was null, else false
+     */
+    boolean decode(T container, ResultSet rs, int[] columns);
+
+    /**
+     * Sets every non-index field of the container as an INSERT parameter.
+     *
+     * @param container The instance being mapped
+     * @param ps        The INSERT statement
+     */
+    void encode(T container, PreparedStatement ps);
+}
@@ -0,0 +1,466 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import static net.zethmayr.benjamin.spring.common.mapper.base.ClassFieldMapper.isIndex;
+
+/**
+ * Creates {@link RowCodec row codecs}, either interpreting a field list
+ * or generating one straight-line class per field list.
+ * <p>
+ * Generated codecs call each field's own getter, setter, serializer and column type directly,
+ * so every call site in a generated class sees a single implementation.
+ * Field mappers copied for joins share those components, so generated codecs are cached by them,
+ * and copies of a mapper share its codec.
+ */
+@Slf4j
+final class RowCodecs {
+    private RowCodecs() {
+    }
+
+    private static final int MAX_CACHED = 256;
+    private static final AtomicInteger GENERATED = new AtomicInteger();
+    private static final Map<List<Object>, RowCodec<?>> CACHED = new LinkedHashMap<List<Object>, RowCodec<?>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<List<Object>, RowCodec<?>> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String RESULT_SET = Type.getInternalName(ResultSet.class);
+    private static final String FIELD_MAPPER = Type.getInternalName(ClassFieldMapper.class);
+    private static final String DECODE = "(" + Type.getDescriptor(Object.class) + Type.getDescriptor(ResultSet.class) + "[I)Z";
+    private static final String ENCODE = "(" + Type.getDescriptor(Object.class) + Type.getDescriptor(PreparedStatement.class) + ")V";
+
+    private enum Kind {
+        COMPOSED, INT, LONG, OTHER
+    }
+
+    /**
+     * Returns a codec which loops over the given fields.
+     *
+     * @param fields The field mappers
+     * @param <T>    The row type
+     * @return A row codec
+     */
+    static <T> RowCodec<T> interpreted(final List<ClassFieldMapper<T>> fields) {
+        return new Interpreted<>(fields);
+    }
+
+    /**
+     * Returns a codec generated for the given fields, or for fields sharing their components,
+     * or an interpreting codec if generation is not possible.
+     *
+     * @param fields The field mappers
+     * @param <T>    The row type
+     * @return A row codec
+     */
+    @SuppressWarnings("unchecked") // codecs are cached by components of the row type's fields
+    static <T> RowCodec<T> generated(final List<ClassFieldMapper<T>> fields) {
+        final List<Object> shape = shapeOf(fields);
+        synchronized (CACHED) {
+            final RowCodec<?> cached = CACHED.get(shape);
+            if (cached != null) {
+                return (RowCodec<T>) cached;
+            }
+            try {
+                final RowCodec<T> generated = generate(fields);
+                CACHED.put(shape, generated);
+                return generated;
+            } catch (Exception | LinkageError e) {
+                LOG.warn("Could not generate row codec, falling back to interpreting", e);
+                return interpreted(fields);
+            }
+        }
+    }
+
+    /**
+     * Indicates whether a codec was generated.
+     *
+     * @param codec A row codec
+     * @return true if the codec was generated, else false
+     */
+    static boolean isGenerated(final RowCodec<?> codec) {
+        return !(codec instanceof Interpreted);
+    }
+
+    private static final class Interpreted<T> implements RowCodec<T> {
+        private final ClassFieldMapper<T>[] fields;
+        private final ClassFieldMapper<T>[] insertFields;
+
+        @SuppressWarnings("unchecked") // generic array creation
+        private Interpreted(final List<ClassFieldMapper<T>> fields) {
+            this.fields = fields.toArray(new ClassFieldMapper[0]);
+            this.insertFields = fields.stream()
+                    .filter(ClassFieldMapper.NOT_INDEX)
+                    .toArray(ClassFieldMapper[]::new);
+        }
+
+        @Override
+        public boolean decode(final T container, final ResultSet rs, final int[] columns) {
+            boolean allNull = true;
+            for (int f = 0; f < fields.length; f++) {
+                allNull &= fields[f].desColumnTo(container, rs, columns[f]);
+            }
+            return allNull;
+        }
+
+        @Override
+        public void encode(final T container, final PreparedStatement ps) {
+            for (final ClassFieldMapper<T> field : insertFields) {
+                field.serInto(ps, container);
+            }
+        }
+    }
+
+    /**
+     * Loads each generated class in its own loader, so it can be collected with its codec.
+     */
+    private static final class CodecLoader extends ClassLoader {
+        private CodecLoader(final ClassLoader parent) {
+            super(parent);
+        }
+
+        private Class<?> define(final String name, final byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    private static Kind kindOf(final ClassFieldMapper<?> field) {
+        final Class<?> fieldClass = field.getClass();
+        if (fieldClass == ComposedMapper.class && ((ComposedMapper<?, ?, ?>) field).columnGetter() != null
+                && (isIndex(field) || ((ComposedMapper<?, ?, ?>) field).psSetter() != null)) {
+            return Kind.COMPOSED;
+        } else if (fieldClass == IntMapper.class && (isIndex(field) || field.getInsertOrdinal() > 0)) {
+            return Kind.INT;
+        } else if (fieldClass == LongMapper.class && (isIndex(field) || field.getInsertOrdinal() > 0)) {
+            return Kind.LONG;
+        }
+        return Kind.OTHER;
+    }
+
+    /**
+     * Lists the components a generated codec would call for each field.
+     * Column getters and parameter setters follow from the column type and insert ordinal.
+     */
+    private static List<Object> shapeOf(final List<? extends ClassFieldMapper<?>> fields) {
+        final List<Object> shape = new ArrayList<>();
+        for (final ClassFieldMapper<?> field : fields) {
+            final Kind kind = kindOf(field);
+            shape.add(kind);
+            switch (kind) {
+                case COMPOSED:
+                    final ComposedMapper<?, ?, ?> composed = (ComposedMapper<?, ?, ?>) field;
+                    shape.addAll(Arrays.asList(composed.getColumnType(), composed.desMapper(), composed.cSetter(),
+                            composed.cGetter(), composed.serMapper(), composed.getInsertOrdinal()));
+                    break;
+                case INT:
+                    final IntMapper<?> intMapper = (IntMapper<?>) field;
+                    shape.addAll(Arrays.asList(intMapper.intColumnType(), intMapper.intGetter(), intMapper.intSetter(),
+                            intMapper.getInsertOrdinal()));
+                    break;
+                case LONG:
+                    final LongMapper<?> longMapper = (LongMapper<?>) field;
+                    shape.addAll(Arrays.asList(longMapper.longColumnType(), longMapper.longGetter(), longMapper.longSetter(),
+                            longMapper.getInsertOrdinal()));
+                    break;
+                default:
+                    shape.add(field);
+                    break;
+            }
+        }
+        return Collections.unmodifiableList(shape);
+    }
+
+    /**
+     * Declares a final field of the generated class for each component, in order of first use.
+     */
+    private static final class Components {
+        private final ClassWriter cw;
+        private final String owner;
+        private final List<Object> values = new ArrayList<>();
+        private final List<String> descriptors = new ArrayList<>();
+
+        private Components(final ClassWriter cw, final String owner) {
+            this.cw = cw;
+            this.owner = owner;
+        }
+
+        private int add(final Object value, final Class<?> type) {
+            final int index = values.size();
+            final String descriptor = Type.getDescriptor(type);
+            values.add(value);
+            descriptors.add(descriptor);
+            cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "c" + index, descriptor, null, null).visitEnd();
+            return index;
+        }
+
+        private void load(final MethodVisitor mv, final int index) {
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, owner, "c" + index, descriptors.get(index));
+        }
+    }
+
+    @SuppressWarnings("unchecked") // the generated class implements RowCodec
+    private static <T> RowCodec<T> generate(final List<ClassFieldMapper<T>> fields) throws ReflectiveOperationException {
+        final ClassLoader parent = ClassFieldMapper.class.getClassLoader();
+        final String name = RowCodec.class.getName() + "$Generated" + GENERATED.incrementAndGet();
+        final String internalName = name.replace('.', '/');
+        final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(final String type1, final String type2) {
+                // locals are only ever typed as Object or primitives
+                return OBJECT;
+            }
+        };
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, internalName, null,
+                OBJECT, new String[]{Type.getInternalName(RowCodec.class)});
+        final Components components = new Components(cw, internalName);
+
+        final MethodVisitor decode = cw.visitMethod(Opcodes.ACC_PUBLIC, "decode", DECODE, null, null);
+        decode.visitCode();
+        final Label decodeStart = new Label();
+        final Label decodeEnd = new Label();
+        final Label decodeFailed = new Label();
+        decode.visitTryCatchBlock(decodeStart, decodeEnd, decodeFailed, Type.getInternalName(SQLException.class));
+        decode.visitLabel(decodeStart);
+        // 1 container, 2 rs, 3 columns, 4 all null, 5 column value, 6 field value, 7 primitive value
+        decode.visitInsn(Opcodes.ICONST_1);
+        decode.visitVarInsn(Opcodes.ISTORE, 4);
+        for (int f = 0; f < fields.size(); f++) {
+            final Label next = new Label();
+            final ClassFieldMapper<T> field = fields.get(f);
+            switch (kindOf(field)) {
+                case COMPOSED: {
+                    final ComposedMapper<T, ?, ?> composed = (ComposedMapper<T, ?, ?>) field;
+                    final Label set = new Label();
+                    components.load(decode, components.add(composed.columnGetter(), RsColumnGetter.class));
+                    decode.visitVarInsn(Opcodes.ALOAD, 2);
+                    loadColumn(decode, f);
+                    invoke(decode, RsColumnGetter.class, "from", "(L" + RESULT_SET + ";I)L" + OBJECT + ";");
+                    decode.visitVarInsn(Opcodes.ASTORE, 5);
+                    decode.visitInsn(Opcodes.ACONST_NULL);
+                    decode.visitVarInsn(Opcodes.ASTORE, 6);
+                    decode.visitVarInsn(Opcodes.ALOAD, 5);
+                    decode.visitJumpInsn(Opcodes.IFNULL, set);
+                    components.load(decode, components.add(composed.desMapper(), DesMapper.class));
+                    decode.visitVarInsn(Opcodes.ALOAD, 5);
+                    invoke(decode, DesMapper.class, "des", "(L" + OBJECT + ";)L" + OBJECT + ";");
+                    decode.visitVarInsn(Opcodes.ASTORE, 6);
+                    decode.visitLabel(set);
+                    components.load(decode, components.add(composed.cSetter(), BiConsumer.class));
+                    decode.visitVarInsn(Opcodes.ALOAD, 1);
+                    decode.visitVarInsn(Opcodes.ALOAD, 6);
+                    invoke(decode, BiConsumer.class, "accept", "(L" + OBJECT + ";L" + OBJECT + ";)V");
+                    decode.visitVarInsn(Opcodes.ALOAD, 6);
+                    decode.visitJumpInsn(Opcodes.IFNULL, next);
+                    break;
+                }
+                case INT: {
+                    final IntMapper<T> intMapper = (IntMapper<T>) field;
+                    components.load(decode, components.add(intMapper.intColumnType(), IntColumnType.class));
+                    decode.visitVarInsn(Opcodes.ALOAD, 2);
+                    loadColumn(decode, f);
+                    invoke(decode, IntColumnType.class, "getInt", "(L" + RESULT_SET + ";I)I");
+                    decode.visitVarInsn(Opcodes.ISTORE, 7);
+                    decode.visitVarInsn(Opcodes.ALOAD, 2);
+                    invoke(decode, ResultSet.class, "wasNull", "()Z");
+                    decode.visitJumpInsn(Opcodes.IFNE, next);
+                    components.load(decode, components.add(intMapper.intSetter(), ObjIntConsumer.class));
+                    decode.visitVarInsn(Opcodes.ALOAD, 1);
+                    decode.visitVarInsn(Opcodes.ILOAD, 7);
+                    invoke(decode, ObjIntConsumer.class, "accept", "(L" + OBJECT + ";I)V");
+                    break;
+                }
+                case LONG: {
+                    final LongMapper<T> longMapper = (LongMapper<T>) field;
+                    components.load(decode, components.add(longMapper.longColumnType(), LongColumnType.class));
+                    decode.visitVarInsn(Opcodes.ALOAD, 2);
+                    loadColumn(decode, f);
+                    invoke(decode, LongColumnType.class, "getLong", "(L" + RESULT_SET + ";I)J");
+                    decode.visitVarInsn(Opcodes.LSTORE, 7);
+                    decode.visitVarInsn(Opcodes.ALOAD, 2);
+                    invoke(decode, ResultSet.class, "wasNull", "()Z");
+                    decode.visitJumpInsn(Opcodes.IFNE, next);
+                    components.load(decode, components.add(longMapper.longSetter(), ObjLongConsumer.class));
+                    decode.visitVarInsn(Opcodes.ALOAD, 1);
+                    decode.visitVarInsn(Opcodes.LLOAD, 7);
+                    invoke(decode, ObjLongConsumer.class, "accept", "(L" + OBJECT + ";J)V");
+                    break;
+                }
+                default: {
+                    components.load(decode, components.add(field, ClassFieldMapper.class));
+                    decode.visitVarInsn(Opcodes.ALOAD, 1);
+                    decode.visitVarInsn(Opcodes.ALOAD, 2);
+                    loadColumn(decode, f);
+                    decode.visitMethodInsn(Opcodes.INVOKEVIRTUAL, FIELD_MAPPER, "desColumnTo",
+                            "(L" + OBJECT + ";L" + RESULT_SET + ";I)Z", false);
+                    decode.visitJumpInsn(Opcodes.IFNE, next);
+                    break;
+                }
+            }
+            decode.visitInsn(Opcodes.ICONST_0);
+            decode.visitVarInsn(Opcodes.ISTORE, 4);
+            decode.visitLabel(next);
+        }
+        decode.visitVarInsn(Opcodes.ILOAD, 4);
+        decode.visitLabel(decodeEnd);
+        decode.visitInsn(Opcodes.IRETURN);
+        rethrow(decode, decodeFailed);
+        decode.visitMaxs(0, 0);
+        decode.visitEnd();
+
+        final MethodVisitor encode = cw.visitMethod(Opcodes.ACC_PUBLIC, "encode", ENCODE, null, null);
+        encode.visitCode();
+        final Label encodeStart = new Label();
+        final Label encodeEnd = new Label();
+        final Label encodeFailed = new Label();
+        encode.visitTryCatchBlock(encodeStart, encodeEnd, encodeFailed, Type.getInternalName(SQLException.class));
+        encode.visitLabel(encodeStart);
+        // 1 container, 2 ps, 3 field value, 4 parameter value
+        for (final ClassFieldMapper<T> field : fields) {
+            if (isIndex(field)) {
+                continue;
+            }
+            switch (kindOf(field)) {
+                case COMPOSED: {
+                    final ComposedMapper<T, ?, ?> composed = (ComposedMapper<T, ?, ?>) field;
+                    final Label set = new Label();
+                    components.load(encode, components.add(composed.cGetter(), Function.class));
+                    encode.visitVarInsn(Opcodes.ALOAD, 1);
+                    invoke(encode, Function.class, "apply", "(L" + OBJECT + ";)L" + OBJECT + ";");
+                    encode.visitVarInsn(Opcodes.ASTORE, 3);
+                    encode.visitInsn(Opcodes.ACONST_NULL);
+                    encode.visitVarInsn(Opcodes.ASTORE, 4);
+                    encode.visitVarInsn(Opcodes.ALOAD, 3);
+                    encode.visitJumpInsn(Opcodes.IFNULL, set);
+                    components.load(encode, components.add(composed.getColumnType(), ColumnType.class));
+                    components.load(encode, components.add(composed.serMapper(), SerMapper.class));
+                    encode.visitVarInsn(Opcodes.ALOAD, 3);
+                    invoke(encode, SerMapper.class, "ser", "(L" + OBJECT + ";)L" + OBJECT + ";");
+                    invoke(encode, ColumnType.class, "limited", "(L" + OBJECT + ";)L" + OBJECT + ";");
+                    encode.visitVarInsn(Opcodes.ASTORE, 4);
+                    encode.visitLabel(set);
+                    components.load(encode, components.add(composed.psSetter(), PsSetter.class));
+                    encode.visitVarInsn(Opcodes.ALOAD, 2);
+                    encode.visitVarInsn(Opcodes.ALOAD, 4);
+                    invoke(encode, PsSetter.class, "apply", "(" + Type.getDescriptor(PreparedStatement.class) + "L" + OBJECT + ";)V");
+                    break;
+                }
+                case INT: {
+                    final IntMapper<T> intMapper = (IntMapper<T>) field;
+                    components.load(encode, components.add(intMapper.intColumnType(), IntColumnType.class));
+                    encode.visitVarInsn(Opcodes.ALOAD, 2);
+                    pushInt(encode, intMapper.getInsertOrdinal());
+                    components.load(encode, components.add(intMapper.intGetter(), ToIntFunction.class));
+                    encode.visitVarInsn(Opcodes.ALOAD, 1);
+                    invoke(encode, ToIntFunction.class, "applyAsInt", "(L" + OBJECT + ";)I");
+                    invoke(encode, IntColumnType.class, "setInt", "(" + Type.getDescriptor(PreparedStatement.class) + "II)V");
+                    break;
+                }
+                case LONG: {
+                    final LongMapper<T> longMapper = (LongMapper<T>) field;
+                    components.load(encode, components.add(longMapper.longColumnType(), LongColumnType.class));
+                    encode.visitVarInsn(Opcodes.ALOAD, 2);
+                    pushInt(encode, longMapper.getInsertOrdinal());
+                    components.load(encode, components.add(longMapper.longGetter(), ToLongFunction.class));
+                    encode.visitVarInsn(Opcodes.ALOAD, 1);
+                    invoke(encode, ToLongFunction.class, "applyAsLong", "(L" + OBJECT + ";)J");
+                    invoke(encode, LongColumnType.class, "setLong", "(" + Type.getDescriptor(PreparedStatement.class) + "IJ)V");
+                    break;
+                }
+                default: {
+                    components.load(encode, components.add(field, ClassFieldMapper.class));
+                    encode.visitVarInsn(Opcodes.ALOAD, 2);
+                    encode.visitVarInsn(Opcodes.ALOAD, 1);
+                    encode.visitMethodInsn(Opcodes.INVOKEVIRTUAL, FIELD_MAPPER, "serInto",
+                            "(" + Type.getDescriptor(PreparedStatement.class) + "L" + OBJECT + ";)V", false);
+                    break;
+                }
+            }
+        }
+        encode.visitLabel(encodeEnd);
+        encode.visitInsn(Opcodes.RETURN);
+        rethrow(encode, encodeFailed);
+        encode.visitMaxs(0, 0);
+        encode.visitEnd();
+
+        final MethodVisitor init = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "([L" + OBJECT + ";)V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        for (int c = 0; c < components.values.size(); c++) {
+            final String descriptor = components.descriptors.get(c);
+            init.visitVarInsn(Opcodes.ALOAD, 0);
+            init.visitVarInsn(Opcodes.ALOAD, 1);
+            pushInt(init, c);
+            init.visitInsn(Opcodes.AALOAD);
+            init.visitTypeInsn(Opcodes.CHECKCAST, Type.getType(descriptor).getInternalName());
+            init.visitFieldInsn(Opcodes.PUTFIELD, internalName, "c" + c, descriptor);
+        }
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+        cw.visitEnd();
+
+        final Class<?> generated = new CodecLoader(parent).define(name, cw.toByteArray());
+        LOG.debug("Generated row codec {} for {} fields", name, fields.size());
+        return (RowCodec<T>) generated.getConstructor(Object[].class)
+                .newInstance((Object) components.values.toArray());
+    }
+
+    private static void loadColumn(final MethodVisitor mv, final int field) {
+        mv.visitVarInsn(Opcodes.ALOAD, 3);
+        pushInt(mv, field);
+        mv.visitInsn(Opcodes.IALOAD);
+    }
+
+    private static void invoke(final MethodVisitor mv, final Class<?> owner, final String method, final String descriptor) {
+        mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(owner), method, descriptor, true);
+    }
+
+    /**
+     * Wraps SQL errors as the field mappers do.
+     */
+    private static void rethrow(final MethodVisitor mv, final Label handler) {
+        mv.visitLabel(handler);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(MappingException.class), "because",
+                "(" + Type.getDescriptor(Throwable.class) + ")" + Type.getDescriptor(MappingException.class), false);
+        mv.visitInsn(Opcodes.ATHROW);
+    }
+
+    private static void pushInt(final MethodVisitor mv, final int value) {
+        if (value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import lombok.val;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+
+/**
+ * Getters for {@link ResultSet} columns by index,
+ * for use once column labels have been resolved for a query.
+ *
+ * @param <O> The JDBC field type
+ * @see RsGetterFactory
+ */
+@FunctionalInterface
+public interface RsColumnGetter<O> {
+
+    /**
+     * Returns the value of the given column of the current row.
+     *
+     * @param rs     The result set
+     * @param column The 1-based column index
+     * @return The value, or null
+     * @throws MappingException on SQL errors
+     */
+    O from(final ResultSet rs, final int column) throws MappingException;
+
+    /**
+     * Functional interface extrapolated from {@link ResultSet} getX methods.
+     *
+     * @param <O> The JDBC field type
+     */
+    @FunctionalInterface
+    interface GetterRsColumnIndex<O> {
+        O rsGet(ResultSet rs, int column) throws SQLException;
+    }
+
+    /**
+     * Generic factory method - creates column getters for a given type
+     *
+     * @param rsMethod The {@link ResultSet} method to use
+     * @param <O>      The JDBC field type
+     * @return A column getter
+     */
+    static <O> RsColumnGetter<O> factory(final GetterRsColumnIndex<O> rsMethod) {
+        return (rs, column) -> {
+            try {
+                val maybeNull = rsMethod.rsGet(rs, column);
+                return rs.wasNull() ? null : maybeNull;
+            } catch (SQLException sqle) {
+                throw MappingException.because(sqle);
+            }
+        };
+    }
+
+    /**
+     * Specific factory method for
+     * String columns.
+     *
+     * @return A string column getter
+     */
+    static RsColumnGetter<String> string() {
+        return factory(ResultSet::getString);
+    }
+
+    /**
+     * Specific factory method for
+     * Integer columns.
+     *
+     * @return An integer column getter
+     */
+    static RsColumnGetter<Integer> integer() {
+        return factory(ResultSet::getInt);
+    }
+
+    /**
+     * Specific factory method for
+     * Long columns.
+     *
+     * @return A long column getter
+     */
+    static RsColumnGetter<Long> longInteger() {
+        return factory(ResultSet::getLong);
+    }
+
+    /**
+     * Specific factory method for
+     * Instant columns.
+     *
+     * @return An instant column getter
+     */
+    static RsColumnGetter<Instant> instant() {
+        return object(Instant.class);
+    }
+
+    /**
+     * Fallback factory method for
+     * columns of any type the driver can convert.
+     *
+     * @param externalClass The JDBC field type
+     * @param <O>           The JDBC field type
+     * @return A column getter
+     */
+    static <O> RsColumnGetter<O> object(final Class<O> externalClass) {
+        return factory((rs, column) -> rs.getObject(column, externalClass));
+    }
+}
@@ -0,0 +1,85 @@
+package net.zethmayr.benjamin.spring.common.model.base;
+
+import java.util.Set;
+
+/**
+ * A subclass can set the marshaling flag on {@link Trusting} instances.
+ * @param <C> The subclass type
+ */
+public abstract class ModelTrusted<C extends ModelTrusted> {
+    public boolean marshaling(final Object trusting) {
+        if (Trusting.class.isAssignableFrom(trusting.getClass())) {
+            return ((Trusting) trusting).marshaling();
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Conditionally passes the marshaling flag to the passed object
+     * @param trusting The potentially trusting object
+     * @param marshaling The marshaling flag
+     * @return The subclass instance
+     */
+    @SuppressWarnings("unchecked") // casts into the subclass type, which it is of
+    public C marshaling(final Object trusting, final boolean marshaling) {
+        if (Trusting.class.isAssignableFrom(trusting.getClass())) {
+            ((Trusting) trusting).marshaling(marshaling);
+        }
+        return (C)this;
+    }
+
+    /**
+     * Returns the SQL field names changed on the passed object since it was read or last written.
+     * @param trusting The potentially trusting object
+     * @return The changed field names, empty if the object records changes and none were made,
+     * or null if the object does not track changes or recorded none
+     */
+    public Set<String> changes(final Object trusting) {
+        if (Trusting.class.isAssignableFrom(trusting.getClass())) {
+            return ((Trusting<?>) trusting).changes();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Conditionally records that only the named fields, and the id, were read into the passed object.
+     * @param trusting The potentially trusting object
+     * @param fieldNames The SQL field names read
+     * @return The subclass instance
+     */
+    @SuppressWarnings("unchecked") // casts into the subclass type, which it is of
+    public C projected(final Object trusting, final Set<String> fieldNames) {
+        if (Trusting.class.isAssignableFrom(trusting.getClass())) {
+            ((Trusting<?>) trusting).projected(fieldNames);
+        }
+        return (C)this;
+    }
+
+    /**
+     * Returns the SQL field names read into the passed object, if it was read partially.
+     * @param trusting The potentially trusting object
+     * @return The field names read, or null if the object does not track this or was read whole
+     */
+    public Set<String> projection(final Object trusting) {
+        if (Trusting.class.isAssignableFrom(trusting.getClass())) {
+            return ((Trusting<?>) trusting).projection();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Conditionally makes the passed object forget its changes, as after writing them.
+     * @param trusting The potentially trusting object
+     * @return The subclass instance
+     */
+    @SuppressWarnings("unchecked") // casts into the subclass type, which it is of
+    public C unchanged(final Object trusting) {
+        if (Trusting.class.isAssignableFrom(trusting.getClass())) {
+            ((Trusting<?>) trusting).unchanged();
+        }
+        return (C)this;
+    }
+}
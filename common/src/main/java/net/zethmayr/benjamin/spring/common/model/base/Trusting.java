@@ -0,0 +1,122 @@
+package net.zethmayr.benjamin.spring.common.model.base;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A concrete extending class can have its marshaling flag set by a {@link ModelTrusted trusted} class.
+ * Setters which call {@link #changed(String)} let repositories write only the fields changed since reading.
+ * Classes whose setters all record changes say so by overriding {@link #recordsChanges()},
+ * and their instances with no changes since being read or written are not written at all;
+ * other instances with no recorded changes are written whole.
+ * @param <C> The concrete extending class
+ */
+public abstract class Trusting<C extends Trusting> {
+    /**
+     * Indicates whether the object is currently being marshaled by a {@link ModelTrusted} instance.
+     */
+    protected boolean marshaling;
+
+    private transient Set<String> changed;
+
+    private transient Set<String> projection;
+
+    /**
+     * Whether the instance has been read or written, so any changes since are known.
+     */
+    private transient boolean tracked;
+
+    /**
+     * Sets the marshaling flag to the indicated value and returns the subclass instance.
+     * @param marshaling The marshaling flag
+     * @return The subclass instance
+     */
+    protected C marshaling(final boolean marshaling) {
+        this.marshaling = marshaling;
+        if (!marshaling) {
+            tracked = true;
+        }
+        return identity();
+    }
+
+    /**
+     * Returns the current value of the marshaling flag
+     * @return the marshaling flag
+     */
+    protected boolean marshaling() {
+        return marshaling;
+    }
+
+    /**
+     * Records that a mapped field was set other than while marshaling, and returns the subclass instance.
+     * @param fieldName The SQL field name
+     * @return The subclass instance
+     */
+    protected C changed(final String fieldName) {
+        if (!marshaling) {
+            if (changed == null) {
+                changed = new HashSet<>();
+            }
+            changed.add(fieldName);
+        }
+        return identity();
+    }
+
+    /**
+     * Returns whether every setter of a mapped field, other than the id's, calls {@link #changed(String)}.
+     * @return true if no recorded changes means nothing changed; by default, false
+     */
+    protected boolean recordsChanges() {
+        return false;
+    }
+
+    /**
+     * Returns the SQL field names changed since the instance was read or last written.
+     * @return The changed field names, empty if the instance {@link #recordsChanges() records changes}
+     * and was read or written with none since, or null if none were recorded otherwise
+     */
+    protected Set<String> changes() {
+        if (changed != null) {
+            return Collections.unmodifiableSet(changed);
+        }
+        return tracked && recordsChanges() ? Collections.emptySet() : null;
+    }
+
+    /**
+     * Forgets all changes, as after writing them.
+     * @return The subclass instance
+     */
+    protected C unchanged() {
+        changed = null;
+        tracked = true;
+        return identity();
+    }
+
+    /**
+     * Records that only the named fields, and the id, were read into the instance, so the rest are unknown.
+     * @param fieldNames The SQL field names read
+     * @return The subclass instance
+     */
+    protected C projected(final Set<String> fieldNames) {
+        projection = fieldNames;
+        return identity();
+    }
+
+    /**
+     * Returns the SQL field names read into the instance, if it was read partially.
+     * @return The field names read, or null if the instance was read whole or built otherwise
+     */
+    protected Set<String> projection() {
+        return projection;
+    }
+
+    /**
+     * Returns this instance in the subclass type
+     * @return the subclass instance
+     */
+    @SuppressWarnings("unchecked") // If C is in fact the concrete class, this will succeed
+    protected C identity() {
+        return (C)this;
+    }
+}
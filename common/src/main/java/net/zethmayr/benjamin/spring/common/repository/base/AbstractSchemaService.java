@@ -97,6 +97,7 @@ public abstract class AbstractSchemaService {
             final String schema = createSchemaFor(repository);
             LOG.debug("applying \n{}", schema);
             db.execute(schema);
+            invalidate(repository);
         }
     }
 
@@ -108,6 +109,7 @@ public abstract class AbstractSchemaService {
     public void burn(final Repository... toBurn) {
         for (final Repository repo : toBurn) {
             db.execute("DELETE FROM " + repo.mapper().table());
+            invalidate(repo);
         }
     }
 
@@ -120,6 +122,18 @@ public abstract class AbstractSchemaService {
         for (final Repository repo : toNuke) {
             LOG.debug("nuking \n{}", repo);
             db.execute("DROP TABLE IF EXISTS " + repo.mapper().table());
+            invalidate(repo);
+        }
+    }
+
+    /**
+     * Enum repositories read from memory, so must be told when their tables are written.
+     *
+     * @param written A repository whose table was written
+     */
+    private static void invalidate(final Repository written) {
+        if (written instanceof EnumMapperRepository) {
+            ((EnumMapperRepository) written).invalidate();
         }
     }
 
@@ -147,6 +161,8 @@ public abstract class AbstractSchemaService {
             throw re;
         } catch (Exception e) {
             throw RepositoryException.writeFailed(e);
+        } finally {
+            invalidate(enumRepository);
         }
     }
 
@@ -0,0 +1,668 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import net.zethmayr.benjamin.spring.common.mapper.base.InvertibleRowMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.Mapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.SqlOp;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A repository which caches objects read by id from another repository, for tables read far more than written.
+ * The cache is bounded, evicts the least recently used objects first, and expires objects after a time to live.
+ * Reads do not lock; when the cache outgrows its bound, one reader at a time evicts an eighth of it,
+ * so it may briefly hold a few more objects than its bound.
+ * <p>
+ * Writes through this repository, or through repositories it is rebound to for joins, invalidate the objects written,
+ * and within a transaction invalidate them again when the transaction completes,
+ * so values read before commit or rollback are not kept.
+ * A transaction which has written through this repository reads from the delegate until it completes,
+ * and caches nothing it reads, so its uncommitted writes are never shared.
+ * Writes made any other way are not seen until objects expire or {@link #invalidateAll()} is called.
+ * Cached objects are shared between callers, so should be treated as read-only.
+ *
+ * @param <T> The type of object persisted
+ * @param <X> The index type
+ */
+public class CachingRepository<T, X> implements Repository<T, X> {
+    public final Repository<T, X> delegate;
+    private final Mapper<T, ?, X> idMapper;
+    private final int maxSize;
+    private final int evictTo;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final ConcurrentMap<X, Cached<T>> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong uses = new AtomicLong();
+    private final Lock evicting = new ReentrantLock();
+
+    /**
+     * Marks a transaction which has written through this repository.
+     */
+    private final Object transactionKey = new Object();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param delegate The repository to read from and write to
+     * @param maxSize  The most objects to cache
+     * @param ttl      How long objects are cached for
+     */
+    public CachingRepository(final MapperRepository<T, X> delegate, final int maxSize, final Duration ttl) {
+        this(delegate, delegate.idMapper, maxSize, ttl);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param delegate The repository to read from and write to
+     * @param idMapper The field mapper for the id / index field
+     * @param maxSize  The most objects to cache
+     * @param ttl      How long objects are cached for
+     */
+    public CachingRepository(final Repository<T, X> delegate, final Mapper<T, ?, X> idMapper, final int maxSize, final Duration ttl) {
+        this(delegate, idMapper, maxSize, ttl, System::nanoTime);
+    }
+
+    CachingRepository(final Repository<T, X> delegate, final Mapper<T, ?, X> idMapper, final int maxSize, final Duration ttl, final LongSupplier nanoTime) {
+        if (maxSize < 1) {
+            throw RepositoryException.badSetup("Cache size must be positive");
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw RepositoryException.badSetup("Time to live must be positive");
+        }
+        this.delegate = delegate;
+        this.idMapper = idMapper;
+        this.maxSize = maxSize;
+        this.evictTo = maxSize - maxSize / 8;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    private static final class Cached<T> {
+        private final T value;
+        private final long expires;
+        private volatile long used;
+
+        private Cached(final T value, final long expires, final long used) {
+            this.value = value;
+            this.expires = expires;
+            this.used = used;
+        }
+    }
+
+    /**
+     * Returns the number of reads served from the cache.
+     *
+     * @return The hit count
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of reads passed to the delegate.
+     *
+     * @return The miss count
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of objects evicted to stay within the size bound. Expiry is not counted.
+     *
+     * @return The eviction count
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the number of objects cached, including any expired but not yet removed.
+     *
+     * @return The cache size
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Removes an object from the cache.
+     * Within a transaction, also removes it when the transaction completes, in case it rolls back.
+     *
+     * @param id The object's id
+     */
+    public void invalidate(final X id) {
+        invalidate(Collections.singleton(id));
+    }
+
+    /**
+     * Removes all objects from the cache.
+     * Within a transaction, also removes them when the transaction completes, in case it rolls back.
+     */
+    public void invalidateAll() {
+        forgetAll();
+        afterCompletion(this::forgetAll);
+    }
+
+    private void invalidate(final Collection<X> ids) {
+        forget(ids);
+        afterCompletion(() -> forget(ids));
+    }
+
+    private void afterCompletion(final Runnable forget) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (!writtenInTransaction()) {
+                TransactionSynchronizationManager.bindResource(transactionKey, Boolean.TRUE);
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(transactionKey);
+                    forget.run();
+                }
+            });
+        }
+    }
+
+    private boolean writtenInTransaction() {
+        return TransactionSynchronizationManager.hasResource(transactionKey);
+    }
+
+    private void forget(final Collection<X> ids) {
+        generation.incrementAndGet();
+        for (final X id : ids) {
+            if (id != null) {
+                cache.remove(id);
+            }
+        }
+    }
+
+    private void forgetAll() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * Returns the cached value, if it has not expired.
+     */
+    private Cached<T> cached(final X id, final long readAt) {
+        final Cached<T> cached = cache.get(id);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expires - readAt > 0) {
+            cached.used = uses.incrementAndGet();
+            return cached;
+        }
+        cache.remove(id, cached);
+        return null;
+    }
+
+    /**
+     * Caches a value read from the delegate, unless a write began since the read did.
+     */
+    private void cache(final X id, final T value, final long readAt, final long readGeneration) {
+        if (generation.get() != readGeneration) {
+            return;
+        }
+        final Cached<T> cached = new Cached<>(value, readAt + ttlNanos, uses.incrementAndGet());
+        cache.put(id, cached);
+        // a write may have begun since checking
+        if (generation.get() != readGeneration) {
+            cache.remove(id, cached);
+        }
+    }
+
+    /**
+     * Removes expired objects, then the least recently used, until an eighth of the bound is free.
+     */
+    private void evictIfFull(final long readAt) {
+        if (cache.size() <= maxSize || !evicting.tryLock()) {
+            return;
+        }
+        try {
+            cache.entrySet().removeIf((entry) -> entry.getValue().expires - readAt <= 0);
+            final int excess = cache.size() - evictTo;
+            if (excess <= 0) {
+                return;
+            }
+            final List<Map.Entry<X, Cached<T>>> entries = new ArrayList<>(cache.entrySet());
+            entries.sort(Comparator.comparingLong((entry) -> entry.getValue().used));
+            for (int e = 0; e < excess && e < entries.size(); e++) {
+                final Map.Entry<X, Cached<T>> entry = entries.get(e);
+                if (cache.remove(entry.getKey(), entry.getValue())) {
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    @Override
+    public Optional<T> get(final X id) {
+        if (writtenInTransaction()) {
+            misses.incrementAndGet();
+            return delegate.get(id);
+        }
+        final long readAt = nanoTime.getAsLong();
+        final Cached<T> cached = cached(id, readAt);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached.value);
+        }
+        misses.incrementAndGet();
+        final long readGeneration = generation.get();
+        final Optional<T> found = delegate.get(id);
+        found.ifPresent(value -> {
+            cache(id, value, readAt, readGeneration);
+            evictIfFull(readAt);
+        });
+        return found;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Objects not cached are read from the delegate together.
+     */
+    @Override
+    public Map<X, T> getAllById(final Collection<X> ids) {
+        if (writtenInTransaction()) {
+            misses.addAndGet(ids.size());
+            return delegate.getAllById(ids);
+        }
+        final long readAt = nanoTime.getAsLong();
+        final Map<X, T> cached = new LinkedHashMap<>();
+        final List<X> missed = new ArrayList<>();
+        for (final X id : new LinkedHashSet<>(ids)) {
+            if (id == null) {
+                continue;
+            }
+            final Cached<T> each = cached(id, readAt);
+            if (each != null) {
+                cached.put(id, each.value);
+            } else {
+                missed.add(id);
+            }
+        }
+        hits.addAndGet(cached.size());
+        if (missed.isEmpty()) {
+            return cached;
+        }
+        misses.addAndGet(missed.size());
+        final long readGeneration = generation.get();
+        final Map<X, T> read = delegate.getAllById(missed);
+        read.forEach((id, value) -> cache(id, value, readAt, readGeneration));
+        evictIfFull(readAt);
+        final Map<X, T> found = new LinkedHashMap<>();
+        for (final X id : new LinkedHashSet<>(ids)) {
+            final T value = id == null ? null : cached.containsKey(id) ? cached.get(id) : read.get(id);
+            if (value != null) {
+                found.put(id, value);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Optional<T> getMonadic(final T withId) {
+        return get(idMapper.serFrom(withId));
+    }
+
+    @Override
+    public X insert(final T toInsert) {
+        try {
+            return delegate.insert(toInsert);
+        } finally {
+            invalidate(idMapper.serFrom(toInsert));
+        }
+    }
+
+    @Override
+    public List<X> insertAll(final Collection<T> toInsert) {
+        try {
+            return delegate.insertAll(toInsert);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public List<X> upsertAll(final Collection<T> toUpsert) {
+        try {
+            return delegate.upsertAll(toUpsert);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public void update(final T toUpdate) {
+        try {
+            delegate.update(toUpdate);
+        } finally {
+            invalidate(idMapper.serFrom(toUpdate));
+        }
+    }
+
+    @Override
+    public void updateAll(final Collection<T> toUpdate) {
+        try {
+            delegate.updateAll(toUpdate);
+        } finally {
+            invalidate(toUpdate.stream().map(idMapper::serFrom).collect(Collectors.toList()));
+        }
+    }
+
+    @Override
+    public void delete(final X toDelete) {
+        try {
+            delegate.delete(toDelete);
+        } finally {
+            invalidate(toDelete);
+        }
+    }
+
+    @Override
+    public void deleteMonadic(final T toDelete) {
+        try {
+            delegate.deleteMonadic(toDelete);
+        } finally {
+            invalidate(idMapper.serFrom(toDelete));
+        }
+    }
+
+    @Override
+    public void deleteAll(final Collection<X> toDelete) {
+        try {
+            delegate.deleteAll(toDelete);
+        } finally {
+            invalidate(new ArrayList<>(toDelete));
+        }
+    }
+
+    @Override
+    public void deleteUnsafe(final String whereClause, final X toDelete) {
+        try {
+            delegate.deleteUnsafe(whereClause, toDelete);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Objects are read from the rebound delegate, and writes through it invalidate every cached object,
+     * since the rebound index is not the cached one.
+     */
+    @Override
+    public Repository<T, X> rebindWithRelatedIndex(final SqlOp relation, final Mapper<T, ?, X> idMapper) {
+        return new Rebound(delegate.rebindWithRelatedIndex(relation, idMapper));
+    }
+
+    @Override
+    public SqlDialect getDialect() {
+        return delegate.getDialect();
+    }
+
+    @Override
+    public String insert() {
+        return delegate.insert();
+    }
+
+    @Override
+    public InvertibleRowMapper<T> mapper() {
+        return delegate.mapper();
+    }
+
+    @Override
+    public <C, I, O> Mapper<C, I, O> findMapper(final String table, final String fieldName) {
+        return delegate.findMapper(table, fieldName);
+    }
+
+    @Override
+    public <C, I, O> Mapper<C, I, O> findMapper(final String fieldName) {
+        return delegate.findMapper(fieldName);
+    }
+
+    @Override
+    public String select() {
+        return delegate.select();
+    }
+
+    @Override
+    public List<T> getFor(final X id) {
+        return delegate.getFor(id);
+    }
+
+    @Override
+    public List<T> getForAll(final Collection<X> ids) {
+        return delegate.getForAll(ids);
+    }
+
+    @Override
+    public List<T> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public List<T> page(final X after, final int limit) {
+        return delegate.page(after, limit);
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return delegate.stream();
+    }
+
+    @Override
+    public List<T> getUnsafe(final String sql, final Object... values) {
+        return delegate.getUnsafe(sql, values);
+    }
+
+    @Override
+    public <R> List<R> readUnsafe(final String sql, final RowMapper<R> rowMapper, final Object... values) {
+        return delegate.readUnsafe(sql, rowMapper, values);
+    }
+
+    /**
+     * A rebound delegate, whose writes invalidate this cache.
+     */
+    private final class Rebound implements Repository<T, X> {
+        private final Repository<T, X> rebound;
+
+        private Rebound(final Repository<T, X> rebound) {
+            this.rebound = rebound;
+        }
+
+        @Override
+        public Repository<T, X> rebindWithRelatedIndex(final SqlOp relation, final Mapper<T, ?, X> idMapper) {
+            return new Rebound(rebound.rebindWithRelatedIndex(relation, idMapper));
+        }
+
+        @Override
+        public X insert(final T toInsert) {
+            try {
+                return rebound.insert(toInsert);
+            } finally {
+                invalidateAll();
+            }
+        }
+
+        @Override
+        public List<X> insertAll(final Collection<T> toInsert) {
+            try {
+                return rebound.insertAll(toInsert);
+            } finally {
+                invalidateAll();
+            }
+        }
+
+        @Override
+        public void delete(final X toDelete) {
+            try {
+                rebound.delete(toDelete);
+            } finally {
+                invalidateAll();
+            }
+        }
+
+        @Override
+        public void deleteMonadic(final T toDelete) {
+            try {
+                rebound.deleteMonadic(toDelete);
+            } finally {
+                invalidateAll();
+            }
+        }
+
+        @Override
+        public void update(final T toUpdate) {
+            try {
+                rebound.update(toUpdate);
+            } finally {
+                invalidateAll();
+            }
+        }
+
+        @Override
+        public void updateAll(final Collection<T> toUpdate) {
+            try {
+                rebound.updateAll(toUpdate);
+            } finally {
+                invalidateAll();
+            }
+        }
+
+        @Override
+        public List<X> upsertAll(final Collection<T> toUpsert) {
+            try {
+                return rebound.upsertAll(toUpsert);
+            } finally {
+                invalidateAll();
+            }
+        }
+
+        @Override
+        public void deleteAll(final Collection<X> toDelete) {
+            try {
+                rebound.deleteAll(toDelete);
+            } finally {
+                invalidateAll();
+            }
+        }
+
+        @Override
+        public void deleteUnsafe(final String whereClause, final X toDelete) {
+            try {
+                rebound.deleteUnsafe(whereClause, toDelete);
+            } finally {
+                invalidateAll();
+            }
+        }
+
+        @Override
+        public SqlDialect getDialect() {
+            return rebound.getDialect();
+        }
+
+        @Override
+        public String insert() {
+            return rebound.insert();
+        }
+
+        @Override
+        public InvertibleRowMapper<T> mapper() {
+            return rebound.mapper();
+        }
+
+        @Override
+        public <C, I, O> Mapper<C, I, O> findMapper(final String table, final String fieldName) {
+            return rebound.findMapper(table, fieldName);
+        }
+
+        @Override
+        public <C, I, O> Mapper<C, I, O> findMapper(final String fieldName) {
+            return rebound.findMapper(fieldName);
+        }
+
+        @Override
+        public String select() {
+            return rebound.select();
+        }
+
+        @Override
+        public Optional<T> getMonadic(final T withId) {
+            return rebound.getMonadic(withId);
+        }
+
+        @Override
+        public Optional<T> get(final X id) {
+            return rebound.get(id);
+        }
+
+        @Override
+        public List<T> getFor(final X id) {
+            return rebound.getFor(id);
+        }
+
+        @Override
+        public List<T> getForAll(final Collection<X> ids) {
+            return rebound.getForAll(ids);
+        }
+
+        @Override
+        public Map<X, T> getAllById(final Collection<X> ids) {
+            return rebound.getAllById(ids);
+        }
+
+        @Override
+        public List<T> getAll() {
+            return rebound.getAll();
+        }
+
+        @Override
+        public List<T> page(final X after, final int limit) {
+            return rebound.page(after, limit);
+        }
+
+        @Override
+        public Stream<T> stream() {
+            return rebound.stream();
+        }
+
+        @Override
+        public List<T> getUnsafe(final String sql, final Object... values) {
+            return rebound.getUnsafe(sql, values);
+        }
+
+        @Override
+        public <R> List<R> readUnsafe(final String sql, final RowMapper<R> rowMapper, final Object... values) {
+            return rebound.readUnsafe(sql, rowMapper, values);
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import lombok.extern.slf4j.Slf4j;
+import net.zethmayr.benjamin.spring.common.mapper.base.EnumRowMapper;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.transaction.annotation.Isolation.REPEATABLE_READ;
+import static org.springframework.transaction.annotation.Propagation.REQUIRED;
+
+/**
+ * This is the default base {@link EnumRepository} implementation, for enums.
+ * <p>
+ * Reads by id are served from memory, from an array of the constants in the table indexed by id,
+ * or from a map by id where ids are negative or too sparse for an array.
+ * Which constants the table holds is found with one query, on the first read;
+ * reads then issue no SQL until the table is written, whether through this repository
+ * or through {@link AbstractSchemaService}, or until {@link #invalidate()} is called.
+ * A transaction which writes the table reads its own writes, which are shared once it completes.
+ *
+ * @param <T> The enum type
+ */
+@Slf4j
+public abstract class EnumMapperRepository<T extends Enum<T>> extends MapperRepository<T, Integer> implements EnumRepository<T> {
+    /**
+     * Constants are held in an array by id only while it is at most this many times as long as there are constants...
+     */
+    private static final int MAX_SPARSENESS = 4;
+
+    /**
+     * ...or at most this long anyway.
+     */
+    private static final int MIN_ARRAY_LENGTH = 64;
+
+    /**
+     * The length of array to hold the constants by id, -1 to hold them in a map, or 0 if some id is null.
+     */
+    private final int arrayLength;
+
+    /**
+     * The constants in the table, or null if not yet read.
+     */
+    private volatile Written<T> written;
+
+    private final Object writtenLock = new Object();
+    private long generation;
+
+    /**
+     * Binds what a transaction which wrote the table has read of it since.
+     */
+    private final Object transactionKey = new Object();
+
+    /**
+     * Creates a new instance with the specified mapper, using the mapper's id field as the id field.
+     *
+     * @param jdbcTemplate The jdbc template
+     * @param mapper       An enum mapper
+     */
+    public EnumMapperRepository(final JdbcTemplate jdbcTemplate, final EnumRowMapper<T> mapper) {
+        super(jdbcTemplate, mapper, mapper.idMapper());
+        arrayLength = arrayLength(mapper);
+    }
+
+    private static <T extends Enum<T>> int arrayLength(final EnumRowMapper<T> mapper) {
+        final Integer[] ids = Arrays.stream(mapper.enumValues()).map(mapper.idMapper()::serFrom).toArray(Integer[]::new);
+        if (Arrays.stream(ids).anyMatch(Objects::isNull)) {
+            LOG.debug("Reading {} from the database, as some ids are null", mapper.table());
+            return 0;
+        }
+        if (Arrays.stream(ids).anyMatch((id) -> id < 0)) {
+            return -1;
+        }
+        final long length = Arrays.stream(ids).mapToLong(Integer::longValue).max().orElse(-1) + 1;
+        return length <= Math.max(MIN_ARRAY_LENGTH, (long) MAX_SPARSENESS * ids.length) ? (int) length : -1;
+    }
+
+    /**
+     * The constants read from the table, by id.
+     *
+     * @param <T> The enum type
+     */
+    private static final class Written<T> {
+        private final T[] byId;
+        private final NavigableMap<Integer, T> sparse;
+
+        private Written(final T[] byId, final NavigableMap<Integer, T> sparse) {
+            this.byId = byId;
+            this.sparse = sparse;
+        }
+
+        private T get(final Integer id) {
+            if (id == null) {
+                return null;
+            }
+            if (sparse != null) {
+                return sparse.get(id);
+            }
+            return id < 0 || id >= byId.length ? null : byId[id];
+        }
+
+        private Stream<T> stream() {
+            return sparse != null ? sparse.values().stream() : Arrays.stream(byId).filter(Objects::nonNull);
+        }
+    }
+
+    /**
+     * What a transaction which wrote the table has read of it since, or null if nothing.
+     *
+     * @param <T> The enum type
+     */
+    private static final class Pending<T> {
+        private Written<T> written;
+    }
+
+    @SuppressWarnings("unchecked") // the component type is the enum type
+    private static <T extends Enum<T>> T[] newArray(final EnumRowMapper<T> mapper, final int length) {
+        return (T[]) Array.newInstance(mapper.rowClass(), length);
+    }
+
+    /**
+     * For when you're only using one database.
+     * <p>
+     * Extend this instead of {@link EnumMapperRepository} to autowire your sole JdbcTemplate in
+     * {@link InitializingBean#afterPropertiesSet afterPropertiesSet}.
+     * {@inheritDoc}
+     */
+    public abstract static class SingleWired<T extends Enum<T>> extends EnumMapperRepository<T> implements InitializingBean {
+        private static JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private EnumMapperRepository.Injector injector;
+
+        public SingleWired(final EnumRowMapper<T> mapper) {
+            super(jdbcTemplate, mapper);
+        }
+
+        @Override
+        public void afterPropertiesSet() {
+            ((EnumMapperRepository) this).jdbcTemplate = jdbcTemplate;
+        }
+    }
+
+    @Service
+    public static class Injector {
+        public Injector(final @Autowired(required = false) JdbcTemplate jdbcTemplate) {
+            SingleWired.jdbcTemplate = jdbcTemplate;
+            LOG.debug("Injector was called with jdbcTemplate {}", jdbcTemplate);
+        }
+    }
+
+    /**
+     * Forgets which constants the table holds, so the next read finds out again.
+     * Within a transaction, reads find out for that transaction alone until it completes,
+     * when everything is forgotten again, whether it committed or rolled back.
+     * This is called for writes made through this repository or {@link AbstractSchemaService};
+     * call it after writing to the table any other way.
+     */
+    public void invalidate() {
+        forget();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            final Pending<T> pending = pending();
+            if (pending != null) {
+                pending.written = null;
+                return;
+            }
+            TransactionSynchronizationManager.bindResource(transactionKey, new Pending<T>());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(transactionKey);
+                    forget();
+                }
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked") // only ever bound by invalidate
+    private Pending<T> pending() {
+        return (Pending<T>) TransactionSynchronizationManager.getResource(transactionKey);
+    }
+
+    private void forget() {
+        synchronized (writtenLock) {
+            generation++;
+            written = null;
+        }
+    }
+
+    private Written<T> written() {
+        final Pending<T> pending = pending();
+        if (pending != null) {
+            // this transaction wrote the table, so what it reads is its own until it completes
+            if (pending.written == null) {
+                pending.written = read();
+            }
+            return pending.written;
+        }
+        final Written<T> known = written;
+        if (known != null) {
+            return known;
+        }
+        final long readGeneration;
+        synchronized (writtenLock) {
+            readGeneration = generation;
+        }
+        final Written<T> found = read();
+        synchronized (writtenLock) {
+            // a write while reading may have made what was read stale
+            if (generation == readGeneration) {
+                written = found;
+            }
+        }
+        return found;
+    }
+
+    private Written<T> read() {
+        if (arrayLength < 0) {
+            final NavigableMap<Integer, T> sparse = new TreeMap<>();
+            for (final T each : super.getAll()) {
+                sparse.put(idMapper.serFrom(each), each);
+            }
+            return new Written<>(null, sparse);
+        }
+        final T[] byId = newArray(mapper(), arrayLength);
+        for (final T each : super.getAll()) {
+            byId[idMapper.serFrom(each)] = each;
+        }
+        return new Written<>(byId, null);
+    }
+
+    @Override
+    public Integer insert(final T toInsert) {
+        try {
+            return super.insert(toInsert);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public List<Integer> insertAll(final Collection<T> toInsert) {
+        try {
+            return super.insertAll(toInsert);
+        } finally {
+            invalidate();
+        }
+    }
+
+    /**
+     * Inserts constants not yet in the table.
+     *
+     * @param toUpsert The constants to insert
+     * @return Their ids
+     * @throws UnsupportedOperationException if any is already in the table, as enum values cannot be updated
+     */
+    @Override
+    @Transactional(propagation = REQUIRED, isolation = REPEATABLE_READ, rollbackFor = Throwable.class)
+    public List<Integer> upsertAll(final Collection<T> toUpsert) throws UnsupportedOperationException {
+        final List<Integer> ids = toUpsert.stream().map(idMapper::serFrom).collect(Collectors.toList());
+        if (!super.getForAll(ids).isEmpty()) {
+            throw new UnsupportedOperationException(CANT_UPDATE);
+        }
+        return insertAll(toUpsert);
+    }
+
+    @Override
+    public void deleteUnsafe(final String whereClause, final Integer toDelete) {
+        try {
+            super.deleteUnsafe(whereClause, toDelete);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public Optional<T> get(final Integer id) {
+        if (arrayLength == 0) {
+            return super.get(id);
+        }
+        return Optional.ofNullable(written().get(id));
+    }
+
+    @Override
+    public List<T> getFor(final Integer id) {
+        if (arrayLength == 0) {
+            return super.getFor(id);
+        }
+        final T found = written().get(id);
+        return found == null ? Collections.emptyList() : Collections.singletonList(found);
+    }
+
+    @Override
+    public List<T> getForAll(final Collection<Integer> ids) {
+        if (arrayLength == 0) {
+            return super.getForAll(ids);
+        }
+        final Written<T> known = written();
+        final Set<T> taken = EnumSet.noneOf(mapper().rowClass());
+        final List<T> found = new ArrayList<>();
+        for (final Integer id : ids) {
+            final T each = known.get(id);
+            if (each != null && taken.add(each)) {
+                found.add(each);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Map<Integer, T> getAllById(final Collection<Integer> ids) {
+        if (arrayLength == 0) {
+            return super.getAllById(ids);
+        }
+        final Written<T> known = written();
+        final Map<Integer, T> found = new LinkedHashMap<>();
+        for (final Integer id : ids) {
+            final T each = known.get(id);
+            if (each != null) {
+                found.putIfAbsent(id, each);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<T> getAll() {
+        if (arrayLength == 0) {
+            return super.getAll();
+        }
+        return streamWritten().collect(Collectors.toList());
+    }
+
+    @Override
+    public List<T> page(final Integer after, final int limit) {
+        if (arrayLength == 0) {
+            return super.page(after, limit);
+        }
+        if (limit < 1) {
+            throw RepositoryException.badSetup("Page size must be positive");
+        }
+        return streamWritten()
+                .filter((each) -> after == null || idMapper.serFrom(each) > after)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<T> stream() {
+        if (arrayLength == 0) {
+            return super.stream();
+        }
+        return streamWritten();
+    }
+
+    private Stream<T> streamWritten() {
+        return written().stream();
+    }
+
+    private static final String CANT_DELETE = "You cannot delete enum values.";
+
+    private static final String CANT_UPDATE = "You cannot update enum values.";
+
+    /**
+     * Not supported.
+     *
+     * @param toDelete The index of the object to delete
+     */
+    @Override
+    public void delete(final Integer toDelete) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException(CANT_DELETE);
+    }
+
+    /**
+     * Not supported.
+     *
+     * @param toDelete The object (having the same index as the object) to delete
+     */
+    @Override
+    public void deleteMonadic(final T toDelete) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException(CANT_DELETE);
+    }
+
+    /**
+     * Not supported.
+     *
+     * @param toDelete The indexes of the objects to delete
+     */
+    @Override
+    public void deleteAll(final Collection<Integer> toDelete) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException(CANT_DELETE);
+    }
+
+    /**
+     * Not supported.
+     *
+     * @param toUpdate The objects to update
+     */
+    @Override
+    public void updateAll(final Collection<T> toUpdate) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException(CANT_UPDATE);
+    }
+
+    @Override
+    public EnumRowMapper<T> mapper() {
+        return (EnumRowMapper<T>) mapper;
+    }
+}
@@ -0,0 +1,148 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Helpers for queries over many key values using {@code IN} lists.
+ * <p>
+ * Lists are padded to a few bucket sizes - powers of two, up to the dialect's maximum -
+ * by repeating their last key, so each query has only a few distinct SQL strings
+ * and their prepared statements can be reused.
+ */
+final class InClauses {
+    private InClauses() {
+    }
+
+    /**
+     * Returns a parenthesized list of placeholders.
+     *
+     * @param count The number of placeholders
+     * @return A string like {@code (?, ?, ?)}
+     */
+    static String placeholders(final int count) {
+        final StringBuilder sb = new StringBuilder(count * 3 + 1).append('(');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('?');
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Returns the padded size of an {@code IN} list.
+     *
+     * @param size    The number of keys, at most the maximum
+     * @param maxSize The maximum list size
+     * @return The next power of two, or the maximum if smaller
+     */
+    static int bucket(final int size, final int maxSize) {
+        final int power = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        return Math.min(power, maxSize);
+    }
+
+    /**
+     * A query with an {@code IN} list, its SQL cached by bucket size.
+     */
+    static final class Query {
+        private final String prefix;
+        private final String suffix;
+        private final ConcurrentMap<Integer, String> bySize = new ConcurrentHashMap<>();
+
+        /**
+         * Creates a new instance.
+         *
+         * @param prefix The SQL up to and including {@code IN}
+         * @param suffix The SQL after the list
+         */
+        Query(final String prefix, final String suffix) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        /**
+         * Returns the SQL for a list size.
+         *
+         * @param size The list size
+         * @return The SQL
+         */
+        String sql(final int size) {
+            return bySize.computeIfAbsent(size, (s) -> prefix + " " + placeholders(s) + suffix);
+        }
+    }
+
+    /**
+     * Runs a query for each chunk of distinct, non-null keys, collecting the results.
+     *
+     * @param keys    The keys
+     * @param maxSize The most keys per chunk
+     * @param query   The query
+     * @param run     Runs the query's SQL with a chunk of keys, padded to its bucket size
+     * @param <X>     The key type
+     * @param <R>     The result type
+     * @return All results, chunk by chunk
+     */
+    static <X, R> List<R> chunked(final Collection<X> keys, final int maxSize, final Query query,
+                                  final BiFunction<String, Object[], List<R>> run) {
+        final List<X> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        distinct.remove(null);
+        if (distinct.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (distinct.size() <= maxSize) {
+            return runPadded(distinct, maxSize, query, run);
+        }
+        final List<R> results = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += maxSize) {
+            results.addAll(runPadded(distinct.subList(from, Math.min(from + maxSize, distinct.size())), maxSize, query, run));
+        }
+        return results;
+    }
+
+    private static <X, R> List<R> runPadded(final List<X> chunk, final int maxSize, final Query query,
+                                            final BiFunction<String, Object[], List<R>> run) {
+        final int size = bucket(chunk.size(), maxSize);
+        final Object[] args = new Object[size];
+        for (int i = 0; i < size; i++) {
+            args[i] = chunk.get(Math.min(i, chunk.size() - 1));
+        }
+        return run.apply(query.sql(size), args);
+    }
+
+    /**
+     * Arranges objects by key, in the order keys were given.
+     *
+     * @param keys  The keys, as given
+     * @param found The objects found for the keys, in any order
+     * @param key   Reads an object's key
+     * @param <X>   The key type
+     * @param <T>   The object type
+     * @return The objects found, by key, in the order keys were given
+     */
+    static <X, T> Map<X, T> inKeyOrder(final Collection<X> keys, final List<T> found, final Function<T, X> key) {
+        final Map<X, T> byKey = new HashMap<>();
+        for (final T each : found) {
+            byKey.putIfAbsent(key.apply(each), each);
+        }
+        final Map<X, T> ordered = new LinkedHashMap<>();
+        for (final X each : keys) {
+            final T value = byKey.get(each);
+            if (value != null) {
+                ordered.put(each, value);
+            }
+        }
+        return ordered;
+    }
+}
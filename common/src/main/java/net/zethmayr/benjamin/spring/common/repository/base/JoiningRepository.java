@@ -0,0 +1,1164 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import net.zethmayr.benjamin.spring.common.mapper.base.ClassFieldMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.FetchPlan;
+import net.zethmayr.benjamin.spring.common.mapper.base.IdentityMap;
+import net.zethmayr.benjamin.spring.common.mapper.base.InvertibleRowMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.JoiningRowMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.Mapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin;
+import net.zethmayr.benjamin.spring.common.mapper.base.SqlOp;
+import net.zethmayr.benjamin.spring.common.util.MapBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static net.zethmayr.benjamin.spring.common.mapper.base.JoiningRowMapper.prefix;
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.DeleteStyle.MATERIALIZE_PARENT;
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.DeleteStyle.USE_PARENT_ID;
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.GetterState.State.INIT_COLLECTION;
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.GetterState.State.INSTANCE;
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.GetterState.State.TERMINAL;
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.InsertStyle.INDEPENDENT_INSERT;
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.InsertStyle.NEEDS_PARENT_ID;
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.InsertStyle.PARENT_NEEDS_ID;
+import static net.zethmayr.benjamin.spring.common.mapper.base.SqlOp.EQ;
+import static org.springframework.transaction.annotation.Isolation.REPEATABLE_READ;
+import static org.springframework.transaction.annotation.Propagation.REQUIRED;
+
+/**
+ * A repository for objects spanning multiple tables.
+ *
+ * @param <T> The persisted object type
+ * @param <X> The index type
+ */
+@Slf4j
+public abstract class JoiningRepository<T, X> implements Repository<T, X> {
+
+    public final JdbcTemplate jdbcTemplate;
+    public final JoiningRowMapper<T> mapper;
+    public final MapperRepository<T, X> primary;
+    public final List<Repository> supplemental;
+    public final String getById;
+
+    /**
+     * Ways to retrieve joined objects.
+     */
+    public enum QueryStyle {
+        /**
+         * One query, LEFT JOINing every table. Sibling collections multiply the rows returned.
+         */
+        JOINED,
+        /**
+         * As {@link #JOINED}, but tolerating rows for one primary object arriving in any order,
+         * by grouping rows in memory. Streams read every row before emitting anything.
+         */
+        JOINED_UNORDERED,
+        /**
+         * One query for the primary objects, then one per join for the objects joined to all of them,
+         * which are stitched together in memory.
+         */
+        SPLIT
+    }
+
+    /**
+     * How long instances read across joins to single, unjoined objects are shared,
+     * so that rows referenced by many parents are mapped once. Shared instances should be treated as read-only.
+     * Applies to {@link QueryStyle#JOINED JOINED} and {@link QueryStyle#JOINED_UNORDERED JOINED_UNORDERED} queries.
+     */
+    public enum IdentityScope {
+        /**
+         * Every joined instance is mapped afresh.
+         */
+        NONE,
+        /**
+         * Instances are shared within one read.
+         */
+        EXTRACTION,
+        /**
+         * Instances are shared across all reads in the current transaction, or within one read outside of any.
+         *
+         * @see IdentityMap#clearTransaction()
+         */
+        TRANSACTION
+    }
+
+    private final String idField;
+    private final String whereId;
+    private volatile MapperRepository.Paging paging;
+    private final InClauses.Query getForAll;
+    private final SqlOp relation;
+    private volatile QueryStyle queryStyle = QueryStyle.JOINED;
+    private volatile IdentityScope identityScope = IdentityScope.NONE;
+    private final Map<MapperAndJoin, Repository> joinedRepositories;
+    private final List<MapperAndJoin<T, ?, ?>> insertFirst;
+    private final List<MapperAndJoin<T, ?, ?>> insertAfter;
+    private final List<MapperAndJoin<T, ?, ?>> insertWhenever;
+    private final List<MapperAndJoin<T, ?, ?>> deletePerId;
+    private final List<MapperAndJoin<T, ?, ?>> deletePerInstance;
+
+    /**
+     * Subclass constructor.
+     *
+     * @param jdbcTemplate The JDBC template to use
+     * @param mapper       A joining mapper
+     * @param primary      A non-joining repository for the mapped type
+     * @param supplemental Repositories for joined types - construction will fail unless sufficient are provided
+     */
+    public JoiningRepository(final JdbcTemplate jdbcTemplate, final JoiningRowMapper<T> mapper, final MapperRepository<T, X> primary, final Repository... supplemental) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mapper = mapper;
+        this.primary = primary;
+        this.supplemental = Arrays.asList(supplemental);
+        joinedRepositories = correlateRepositories(mapper, primary, supplemental);
+        idField = prefix(0) + "." + primary.idMapper.fieldName;
+        whereId = "\nWHERE " + idField + " = ?";
+        getById = mapper.select() + whereId;
+        getForAll = new InClauses.Query(mapper.select() + "\nWHERE " + idField + " IN", "");
+        relation = EQ;
+        val topMappers = mapper.topMappers();
+        insertFirst = Collections.unmodifiableList(topMappers.stream()
+                .filter(m -> m.insertions() == PARENT_NEEDS_ID)
+                .collect(Collectors.toList()));
+        insertAfter = Collections.unmodifiableList(topMappers.stream()
+                .filter(m -> m.insertions() == NEEDS_PARENT_ID)
+                .collect(Collectors.toList()));
+        insertWhenever = Collections.unmodifiableList(topMappers.stream()
+                .filter(m -> m.insertions() == INDEPENDENT_INSERT)
+                .collect(Collectors.toList()));
+        deletePerId = Collections.unmodifiableList(topMappers.stream()
+                .filter(m -> m.deletions() == USE_PARENT_ID)
+                .collect(Collectors.toList()));
+        deletePerInstance = Collections.unmodifiableList(topMappers.stream()
+                .filter(m -> m.deletions() == MATERIALIZE_PARENT)
+                .collect(Collectors.toList()));
+    }
+
+    private JoiningRepository(
+            final JdbcTemplate jdbcTemplate,
+            final JoiningRowMapper<T> mapper,
+            final Mapper<T, ?, X> idMapper,
+            final SqlOp parentRelation,
+            final MapperRepository<T, X> primary,
+            final List<Repository> supplemental,
+            final Map<MapperAndJoin, Repository> joinedRepositories,
+            final List<MapperAndJoin<T, ?, ?>> insertFirst,
+            final List<MapperAndJoin<T, ?, ?>> insertAfter,
+            final List<MapperAndJoin<T, ?, ?>> insertWhenever,
+            final List<MapperAndJoin<T, ?, ?>> deletePerId,
+            final List<MapperAndJoin<T, ?, ?>> deletePerInstance
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mapper = mapper;
+        idField = prefix(0) + "." + idMapper.fieldName;
+        whereId = "\nWHERE ? " + parentRelation.sql + " " + idField;
+        getById = mapper.select() + whereId;
+        getForAll = new InClauses.Query(mapper.select() + "\nWHERE " + idField + " IN", "");
+        relation = parentRelation;
+        this.primary = primary;
+        this.supplemental = supplemental;
+        this.joinedRepositories = joinedRepositories;
+        this.insertFirst = insertFirst;
+        this.insertAfter = insertAfter;
+        this.insertWhenever = insertWhenever;
+        this.deletePerId = deletePerId;
+        this.deletePerInstance = deletePerInstance;
+    }
+
+    /**
+     * Limits a page to distinct primary ids, in a subquery on the primary table, so joined collections are read whole.
+     * The limited subquery is wrapped in a derived table, as some databases do not allow limits directly within IN.
+     *
+     * @param dialect The SQL dialect
+     * @param after   Whether the page starts after a given id
+     * @return A WHERE clause taking the optional id and the limit
+     */
+    private String wherePage(final SqlDialect dialect, final boolean after) {
+        final String id = primary.idMapper.fieldName;
+        return "\nWHERE " + idField + " IN (SELECT " + id + " FROM ("
+                + dialect.limit("SELECT DISTINCT " + id + " FROM " + primary.mapper().table()
+                + (after ? " WHERE " + id + " > ?" : "")
+                + " ORDER BY " + id) + ") page)"
+                + "\nORDER BY " + idField;
+    }
+
+    /**
+     * {@inheritDoc}
+     * This is the primary repository's dialect.
+     */
+    @Override
+    public SqlDialect getDialect() {
+        return primary.getDialect();
+    }
+
+    private MapperRepository.Paging paging() {
+        final SqlDialect known = primary.getDialect();
+        MapperRepository.Paging current = paging;
+        if (current == null || current.dialect != known) {
+            current = new MapperRepository.Paging(known,
+                    mapper.select() + wherePage(known, false),
+                    mapper.select() + wherePage(known, true));
+            paging = current;
+        }
+        return current;
+    }
+
+    private static class Cloned<T, X> extends JoiningRepository<T, X> {
+        private Cloned(final JoiningRepository<T, X> toClone, final SqlOp relation, final Mapper<T, ?, X> idMapper) {
+            super(toClone.jdbcTemplate, toClone.mapper, idMapper, relation,
+                    toClone.primary.rebindWithRelatedIndex(relation, idMapper),
+                    toClone.supplemental,
+                    MapBuilder.<MapperAndJoin, Repository>identity().put(toClone.joinedRepositories)
+                            .toEachValue((j, r) -> r.rebindWithRelatedIndex(j.relation(), j.relatedField()))
+                            .build(),
+                    toClone.insertFirst, toClone.insertAfter, toClone.insertWhenever,
+                    toClone.deletePerId, toClone.deletePerInstance);
+            setQueryStyle(toClone.getQueryStyle());
+            setIdentityScope(toClone.getIdentityScope());
+        }
+    }
+
+    /**
+     * Returns how joined objects are retrieved.
+     *
+     * @return The query style
+     */
+    public QueryStyle getQueryStyle() {
+        return queryStyle;
+    }
+
+    /**
+     * Sets how joined objects are retrieved. Copies made for joins afterwards will share the style.
+     *
+     * @param queryStyle The query style
+     * @return This repository
+     */
+    public JoiningRepository<T, X> setQueryStyle(final QueryStyle queryStyle) {
+        this.queryStyle = Objects.requireNonNull(queryStyle);
+        return this;
+    }
+
+    /**
+     * Returns how long single joined instances are shared.
+     *
+     * @return The identity scope
+     */
+    public IdentityScope getIdentityScope() {
+        return identityScope;
+    }
+
+    /**
+     * Sets how long single joined instances are shared. Copies made for joins afterwards will share the scope.
+     *
+     * @param identityScope The identity scope
+     * @return This repository
+     */
+    public JoiningRepository<T, X> setIdentityScope(final IdentityScope identityScope) {
+        this.identityScope = Objects.requireNonNull(identityScope);
+        return this;
+    }
+
+    /**
+     * Returns the identity map for a read, per the identity scope.
+     *
+     * @return An identity map, or null if instances are not shared
+     */
+    private IdentityMap identities() {
+        switch (identityScope) {
+            case EXTRACTION:
+                return new IdentityMap();
+            case TRANSACTION:
+                return IdentityMap.forTransaction();
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public JoiningRepository<T, X> rebindWithRelatedIndex(final SqlOp relation, Mapper<T, ?, X> idMapper) {
+        return new Cloned<>(this, relation, idMapper);
+    }
+
+    /**
+     * Returns the JDBC fetch size for {@link #stream()}, which is the primary repository's.
+     *
+     * @return The fetch size
+     */
+    public int getFetchSize() {
+        return primary.getFetchSize();
+    }
+
+    private Map<MapperAndJoin, Repository> correlateRepositories(final JoiningRowMapper<T> mapper, final MapperRepository primary, final Repository... supplemental) {
+        final Map<MapperAndJoin, Repository> joinedRepositories = new IdentityHashMap<>();
+        for (val join : mapper.topMappers()) {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Looking at {} vs {}", join.mapper().rowClass(), primary.mapper().rowClass());
+            }
+            if (join.mapper().rowClass().equals(primary.mapper().rowClass())) {
+                joinedRepositories.put(join, primary.rebindWithRelatedIndex(join.relation(), join.relatedField()));
+            }
+            for (val repo : supplemental) {
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("Looking at {} vs {}", join.mapper().rowClass(), repo.mapper().rowClass());
+                }
+                if (join.mapper().rowClass().equals(repo.mapper().rowClass())) {
+                    joinedRepositories.put(join, repo.rebindWithRelatedIndex(join.relation(), join.relatedField()));
+                }
+            }
+            if (Objects.isNull(joinedRepositories.get(join))) {
+                throw RepositoryException.badSetup("No repository for " + join + "!");
+            }
+        }
+        LOG.trace("joinedRepositories is {}", joinedRepositories);
+        return Collections.unmodifiableMap(joinedRepositories);
+    }
+
+    @SuppressWarnings("unchecked") // We correlate repositories on F, this is fine
+    private <F, O> Repository<F, ?> getJoinedRepository(final MapperAndJoin<T, F, O> join) {
+        return joinedRepositories.get(join);
+    }
+
+    @Override
+    @Transactional(propagation = REQUIRED, isolation = REPEATABLE_READ, rollbackFor = Throwable.class)
+    public X insert(T toInsert) {
+        try {
+            for (final MapperAndJoin<T, ?, ?> parentNeedsId : insertFirst) {
+                internalInsertFirst(parentNeedsId, toInsert);
+            }
+            for (final MapperAndJoin<T, ?, ?> whenever : insertWhenever) {
+                internalInsertWhenever(whenever, toInsert);
+            }
+            val primaryId = primary.insert(toInsert);
+            for (final MapperAndJoin<T, ?, ?> needsParentId : insertAfter) {
+                internalInsertAfter(needsParentId, toInsert);
+            }
+            return primaryId;
+        } finally {
+            written();
+        }
+    }
+
+    private <F, O> void internalInsertFirst(final MapperAndJoin<T, F, O> parentNeedsId, final T parent) {
+        final MapperAndJoin.GetterState<T, F> getter = parentNeedsId.getter().get();
+        switch (getter.state()) {
+            case INIT_INSTANCE:
+                internalInsert(parentNeedsId, parent, getter).ifPresent(inserted ->
+                        parentNeedsId.parentField().desTo(parent, parentNeedsId.relatedField().serFrom(inserted))
+                );
+                break;
+            case INIT_COLLECTION:
+                throw RepositoryException.badSetup("Not sure which ID you were interested in...");
+            default:
+                throw new IllegalStateException("New getters should be in an INIT state");
+        }
+    }
+
+    private <F, O> void internalInsertWhenever(final MapperAndJoin<T, F, O> whenever, final T parent) {
+        final MapperAndJoin.GetterState<T, F> getter = whenever.getter().get();
+        switch (getter.state()) {
+            case INIT_INSTANCE:
+                internalInsert(whenever, parent, getter);
+                break;
+            case INIT_COLLECTION:
+                while (getter.state() != TERMINAL) {
+                    internalInsert(whenever, parent, getter);
+                }
+                break;
+            default:
+                throw new IllegalStateException("New getters should be in an INIT state");
+        }
+    }
+
+    private <F, O> void internalInsertAfter(final MapperAndJoin<T, F, O> needsParentId, final T parent) {
+        final MapperAndJoin.GetterState<T, F> getter = needsParentId.getter().get();
+        final Consumer<F> setter = (f) ->
+                needsParentId.relatedField().desTo(f, needsParentId.parentField().serFrom(parent));
+        switch (getter.state()) {
+            case INIT_INSTANCE:
+                internalInsert(needsParentId, parent, getter, setter);
+                break;
+            case INIT_COLLECTION:
+                while (getter.state() != TERMINAL) {
+                    internalInsert(needsParentId, parent, getter, setter);
+                }
+        }
+    }
+
+    private <F, O> Optional<F> internalInsert(final MapperAndJoin<T, F, O> join, final T parent, final MapperAndJoin.GetterState<T, F> getter) {
+        return internalInsert(join, parent, getter, (f) -> {
+        });
+    }
+
+    private <F, O> Optional<F> internalInsert(final MapperAndJoin<T, F, O> join, final T parent,
+                                              final MapperAndJoin.GetterState<T, F> getter, final Consumer<F> mutator) {
+        final Repository<F, ?> repo = getJoinedRepository(join);
+        final F toInsert = getter.getter().apply(parent, getter);
+        if (!Objects.isNull(toInsert)) {
+            mutator.accept(toInsert);
+            repo.insert(toInsert);
+        }
+        return Optional.ofNullable(toInsert);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Objects are inserted level by level, so that each joined repository
+     * receives all of its rows across every parent in a single {@link Repository#insertAll insertAll}.
+     * Joined instances shared between parents are inserted once.
+     */
+    @Override
+    @Transactional(propagation = REQUIRED, isolation = REPEATABLE_READ, rollbackFor = Throwable.class)
+    public List<X> insertAll(final Collection<T> toInsert) {
+        try {
+            for (final MapperAndJoin<T, ?, ?> parentNeedsId : insertFirst) {
+                internalInsertAllFirst(parentNeedsId, toInsert);
+            }
+            for (final MapperAndJoin<T, ?, ?> whenever : insertWhenever) {
+                internalInsertAllWhenever(whenever, toInsert);
+            }
+            val primaryIds = primary.insertAll(toInsert);
+            for (final MapperAndJoin<T, ?, ?> needsParentId : insertAfter) {
+                internalInsertAllAfter(needsParentId, toInsert);
+            }
+            return primaryIds;
+        } finally {
+            written();
+        }
+    }
+
+    private <F, O> void internalInsertAllFirst(final MapperAndJoin<T, F, O> parentNeedsId, final Collection<T> parents) {
+        final Map<T, F> joinedByParent = new IdentityHashMap<>();
+        final List<F> joined = new ArrayList<>();
+        final Consumer<F> collector = collectingOnce(joined);
+        for (final T parent : parents) {
+            final MapperAndJoin.GetterState<T, F> getter = parentNeedsId.getter().get();
+            if (getter.state() == INIT_COLLECTION) {
+                throw RepositoryException.badSetup("Not sure which ID you were interested in...");
+            }
+            final F toInsert = getter.getter().apply(parent, getter);
+            if (!Objects.isNull(toInsert)) {
+                joinedByParent.put(parent, toInsert);
+                collector.accept(toInsert);
+            }
+        }
+        internalInsertAll(parentNeedsId, joined);
+        joinedByParent.forEach((parent, inserted) ->
+                parentNeedsId.parentField().desTo(parent, parentNeedsId.relatedField().serFrom(inserted))
+        );
+    }
+
+    private <F, O> void internalInsertAllWhenever(final MapperAndJoin<T, F, O> whenever, final Collection<T> parents) {
+        final List<F> joined = new ArrayList<>();
+        final Consumer<F> collector = collectingOnce(joined);
+        for (final T parent : parents) {
+            forEachJoined(whenever, parent, collector);
+        }
+        internalInsertAll(whenever, joined);
+    }
+
+    private <F, O> void internalInsertAllAfter(final MapperAndJoin<T, F, O> needsParentId, final Collection<T> parents) {
+        final List<F> joined = new ArrayList<>();
+        final Consumer<F> collector = collectingOnce(joined);
+        for (final T parent : parents) {
+            final O parentId = needsParentId.parentField().serFrom(parent);
+            forEachJoined(needsParentId, parent, (f) -> {
+                needsParentId.relatedField().desTo(f, parentId);
+                collector.accept(f);
+            });
+        }
+        internalInsertAll(needsParentId, joined);
+    }
+
+    private static <F> Consumer<F> collectingOnce(final List<F> into) {
+        final Set<F> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        return (f) -> {
+            if (seen.add(f)) {
+                into.add(f);
+            }
+        };
+    }
+
+    private static <T, F> void forEachJoined(final MapperAndJoin<T, F, ?> join, final T parent, final Consumer<F> action) {
+        final MapperAndJoin.GetterState<T, F> getter = join.getter().get();
+        do {
+            final F joined = getter.getter().apply(parent, getter);
+            if (!Objects.isNull(joined)) {
+                action.accept(joined);
+            }
+        } while (getter.state() != TERMINAL && getter.state() != INSTANCE);
+    }
+
+    private <F, O> void internalInsertAll(final MapperAndJoin<T, F, O> join, final List<F> joined) {
+        if (!joined.isEmpty()) {
+            final Repository<F, ?> repo = getJoinedRepository(join);
+            repo.insertAll(joined);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only the primary table is written; joined objects are updated through their own repositories.
+     */
+    @Override
+    @Transactional(propagation = REQUIRED, isolation = REPEATABLE_READ, rollbackFor = Throwable.class)
+    public void update(final T toUpdate) {
+        try {
+            primary.update(toUpdate);
+        } finally {
+            written();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only the primary table is written; joined objects are updated through their own repositories.
+     */
+    @Override
+    @Transactional(propagation = REQUIRED, isolation = REPEATABLE_READ, rollbackFor = Throwable.class)
+    public void updateAll(final Collection<T> toUpdate) {
+        try {
+            primary.updateAll(toUpdate);
+        } finally {
+            written();
+        }
+    }
+
+    @Override
+    @Transactional(propagation = REQUIRED, isolation = REPEATABLE_READ, rollbackFor = Throwable.class)
+    public void delete(X toDelete) {
+        try {
+            final boolean materialize = deletePerInstance.size() > 0
+                    || deletePerId.stream().anyMatch(j -> !onThisIndex(j));
+            internalDeleteMaterialized(
+                    toDelete,
+                    materialize ? stitch(getFor(toDelete), lazy(deletePerInstance)) : Collections.emptyList()
+            );
+            primary.delete(toDelete);
+        } finally {
+            written();
+        }
+    }
+
+    @Override
+    @Transactional(propagation = REQUIRED, isolation = REPEATABLE_READ, rollbackFor = Throwable.class)
+    public void deleteMonadic(T toDelete) {
+        try {
+            final List<MapperAndJoin<T, ?, ?>> lazyDeletes = lazy(deletePerInstance);
+            // the object given may lack lazily joined objects, so as for delete, those are read
+            internalDeleteMaterialized(
+                    null,
+                    lazyDeletes.isEmpty()
+                            ? Collections.singletonList(toDelete)
+                            : stitch(getFor(primary.idMapper.serFrom(toDelete)), lazyDeletes)
+            );
+            primary.deleteMonadic(toDelete);
+        } finally {
+            written();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Joined objects are deleted in bulk by the parents' join column values, cascading through their own repositories.
+     * Where a join is not on this repository's index, only the join column values are read, never whole objects.
+     */
+    @Override
+    @Transactional(propagation = REQUIRED, isolation = REPEATABLE_READ, rollbackFor = Throwable.class)
+    @SuppressWarnings("unchecked") // joined repositories are re-bound to the related field
+    public void deleteAll(final Collection<X> toDelete) {
+        if (relation != EQ) {
+            Repository.super.deleteAll(toDelete);
+            return;
+        }
+        try {
+            final List<MapperAndJoin<T, ?, ?>> joins = new ArrayList<>(deletePerId);
+            joins.addAll(deletePerInstance);
+            // read every key before anything is deleted
+            final List<Collection<?>> keys = new ArrayList<>(joins.size());
+            for (final MapperAndJoin<T, ?, ?> join : joins) {
+                keys.add(join.parentField().fieldName.equals(primary.idMapper.fieldName) ? toDelete : joinKeys(join, toDelete));
+            }
+            for (int i = 0; i < joins.size(); i++) {
+                ((Repository) getJoinedRepository(joins.get(i))).deleteAll(keys.get(i));
+            }
+            primary.deleteAll(toDelete);
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.writeFailed(e);
+        } finally {
+            written();
+        }
+    }
+
+    /**
+     * Reads the values of a join's parent column for the given indexes, without reading anything else.
+     *
+     * @param join The join
+     * @param ids  The indexes
+     * @param <O>  The join column type
+     * @return The distinct join column values
+     */
+    private <O> Set<O> joinKeys(final MapperAndJoin<T, ?, O> join, final Collection<X> ids) {
+        final Mapper<T, ?, O> parentField = join.parentField();
+        final InClauses.Query keys = new InClauses.Query(
+                "SELECT " + parentField.fieldName + " FROM " + primary.mapper().table()
+                        + " WHERE " + primary.idMapper.fieldName + " IN", "");
+        return new LinkedHashSet<>(InClauses.chunked(ids, primary.getDialect().maxInSize(), keys,
+                (sql, chunk) -> jdbcTemplate.query(sql, (rs, n) -> parentField.from(rs, 1), chunk)));
+    }
+
+    /**
+     * Whether a join is on the values this repository deletes by, so needs no parents read to delete its objects.
+     *
+     * @param join A join
+     * @return Whether the join's parent column is this repository's index, related by equality
+     */
+    private boolean onThisIndex(final MapperAndJoin<T, ?, ?> join) {
+        return relation == EQ && join.parentField().fieldName.equals(primary.idMapper.fieldName);
+    }
+
+    /**
+     * Deletes the objects joined to parents about to be deleted.
+     *
+     * @param idToDelete The index value being deleted, or null to use only the parents given
+     * @param toDelete   The parents, with their joined objects
+     */
+    private void internalDeleteMaterialized(final X idToDelete, final List<T> toDelete) {
+        for (val deletePerParentId : deletePerId) {
+            // deletion was re-bound to look at the join's parent column
+            val joinedRepo = (Repository) getJoinedRepository(deletePerParentId);
+            if (idToDelete != null && onThisIndex(deletePerParentId)) {
+                joinedRepo.delete(idToDelete);
+                continue;
+            }
+            final Set<Object> parentIds = new LinkedHashSet<>();
+            for (val existingParent : toDelete) {
+                parentIds.add(deletePerParentId.parentField().serFrom(existingParent));
+            }
+            parentIds.remove(null);
+            for (val parentId : parentIds) {
+                joinedRepo.delete(parentId);
+            }
+        }
+        for (val existingParent : toDelete) {
+            for (val deletePerFieldValue : deletePerInstance) {
+                internalDeleteJoined(deletePerFieldValue, existingParent);
+            }
+        }
+    }
+
+    private <F, O> void internalDeleteJoined(final MapperAndJoin<T, F, O> join, final T parent) {
+        final Repository<F, ?> joinedRepo = getJoinedRepository(join);
+        // joined objects may be missing, as when shared with a parent deleted earlier
+        forEachJoined(join, parent, joinedRepo::deleteMonadic);
+    }
+
+    @Override
+    public void deleteUnsafe(final String whereClause, final X id) {
+        try {
+            primary.deleteUnsafe(whereClause, id);
+        } finally {
+            written();
+        }
+    }
+
+    /**
+     * Empties the identity map held for the current transaction, so later reads see a write;
+     * a write here may cascade through repositories over any of the joined tables.
+     */
+    private static void written() {
+        IdentityMap.clearTransaction();
+    }
+
+    @Override
+    public String insert() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public InvertibleRowMapper<T> mapper() {
+        return mapper;
+    }
+
+    @Override
+    public <C, I, O> Mapper<C, I, O> findMapper(final String fieldName) {
+        return (Mapper<C, I, O>) mapper.fields().stream()
+                .filter(m -> m.fieldName().equals(fieldName))
+                .findFirst().orElse(null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <C, I, O> Mapper<C, I, O> findMapper(final String tableName, final String fieldName) {
+        if (tableName.equals(primary.mapper().table())) {
+            return findMapper(fieldName);
+        } else {
+            for (val join : joinedRepositories.keySet()) {
+                if (join.relatedField().fieldName.equals(fieldName)) {
+                    final Predicate<ClassFieldMapper> nameMatcher = (m) -> m.fieldName().equals(fieldName);
+                    val searchResult = join.mapper().fields().stream().filter(nameMatcher).findFirst().orElse(null);
+                    if (searchResult != null) {
+                        return (Mapper<C, I, O>) searchResult;
+                    }
+                }
+            }
+            for (val join : joinedRepositories.keySet()) {
+                final Predicate<ClassFieldMapper> nameMatcher = (m) -> m.fieldName().equals(fieldName);
+                val searchResult = join.mapper().fields().stream().filter(nameMatcher).findFirst().orElse(null);
+                if (searchResult != null) {
+                    return (Mapper<C, I, O>) searchResult;
+                }
+            }
+            for (val repository : joinedRepositories.values()) {
+                final Mapper<C, I, O> searchResult = repository.findMapper(tableName, fieldName);
+                if (searchResult != null) {
+                    return searchResult;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String select() {
+        return mapper.select();
+    }
+
+    @Override
+    public Optional<T> getMonadic(T withId) {
+        return get(primary.idMapper.serFrom(withId));
+    }
+
+    @Override
+    public Optional<T> get(final X id) {
+        try {
+            if (queryStyle != QueryStyle.JOINED) {
+                final List<T> found = getFor(id, queryStyle);
+                switch (found.size()) {
+                    case 1:
+                        return Optional.of(found.get(0));
+                    case 0:
+                        return Optional.empty();
+                    default:
+                        throw RepositoryException.tooManyThings();
+                }
+            }
+            return Optional.ofNullable(jdbcTemplate.query(getById, mapper.extractor(identities()), id));
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    @Override
+    public List<T> getFor(X id) {
+        return getFor(id, queryStyle);
+    }
+
+    private List<T> getFor(final X id, final QueryStyle style) {
+        try {
+            if (style == QueryStyle.SPLIT) {
+                return stitch(primary.getFor(id));
+            }
+            return jdbcTemplate.query(getById, listExtractor(style), id);
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Values are bound into {@code IN} lists of a few sizes, bounded per the primary repository's dialect.
+     */
+    @Override
+    public List<T> getForAll(final Collection<X> ids) {
+        return getForAll(ids, queryStyle);
+    }
+
+    private List<T> getForAll(final Collection<X> ids, final QueryStyle style) {
+        try {
+            if (style == QueryStyle.SPLIT) {
+                return stitch(primary.getForAll(ids));
+            }
+            if (relation != EQ) {
+                // IN lists only express equality
+                final List<T> found = new ArrayList<>();
+                for (final X id : new LinkedHashSet<>(ids)) {
+                    if (id != null) {
+                        found.addAll(getFor(id, style));
+                    }
+                }
+                return found;
+            }
+            final ResultSetExtractor<List<T>> extractor = listExtractor(style);
+            return InClauses.chunked(ids, primary.getDialect().maxInSize(), getForAll,
+                    (sql, chunk) -> jdbcTemplate.query(sql, extractor, chunk));
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Objects are read as by {@link #getForAll(Collection)}.
+     */
+    @Override
+    public Map<X, T> getAllById(final Collection<X> ids) {
+        return InClauses.inKeyOrder(ids, getForAll(ids), primary.idMapper::serFrom);
+    }
+
+    /**
+     * Retrieves an object reading only the joins and columns in the plan.
+     * Joins are read in a single query, whatever the query style.
+     *
+     * @param id   The id
+     * @param plan A fetch plan
+     * @return The object, if found
+     */
+    public Optional<T> get(final X id, final FetchPlan plan) {
+        final List<T> found = getFor(id, plan);
+        switch (found.size()) {
+            case 1:
+                return Optional.of(found.get(0));
+            case 0:
+                return Optional.empty();
+            default:
+                throw RepositoryException.tooManyThings();
+        }
+    }
+
+    /**
+     * Retrieves the objects for a value, reading only the joins and columns in the plan.
+     *
+     * @param id   The value
+     * @param plan A fetch plan
+     * @return The objects found
+     * @see #get(Object, FetchPlan)
+     */
+    public List<T> getFor(final X id, final FetchPlan plan) {
+        try {
+            final JoiningRowMapper<T> planned = mapper.planned(plan);
+            return jdbcTemplate.query(planned.select() + whereId, listExtractor(planned), id);
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    /**
+     * Retrieves all objects, reading only the joins and columns in the plan.
+     *
+     * @param plan A fetch plan
+     * @return All objects
+     * @see #get(Object, FetchPlan)
+     */
+    public List<T> getAll(final FetchPlan plan) {
+        try {
+            final JoiningRowMapper<T> planned = mapper.planned(plan);
+            return jdbcTemplate.query(planned.select(), listExtractor(planned));
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    @Override
+    public List<T> getAll() {
+        try {
+            if (queryStyle == QueryStyle.SPLIT) {
+                return stitch(primary.getAll());
+            }
+            return jdbcTemplate.query(mapper.select(), listExtractor(queryStyle));
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The limit applies to primary objects, so their joined collections are never cut short.
+     */
+    @Override
+    public List<T> page(final X after, final int limit) {
+        if (limit < 1) {
+            throw RepositoryException.badSetup("Page size must be positive");
+        }
+        try {
+            if (queryStyle == QueryStyle.SPLIT) {
+                return stitch(primary.page(after, limit));
+            }
+            final MapperRepository.Paging paging = paging();
+            return after == null
+                    ? jdbcTemplate.query(paging.first, listExtractor(queryStyle), limit)
+                    : jdbcTemplate.query(paging.after, listExtractor(queryStyle), after, limit);
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * With {@link QueryStyle#JOINED JOINED} queries each object is emitted once all its rows are read.
+     * With {@link QueryStyle#SPLIT SPLIT} queries primary objects are read a page at a time, by index,
+     * and the joined objects for each page are retrieved before it is emitted.
+     * With {@link QueryStyle#JOINED_UNORDERED JOINED_UNORDERED} queries, whose rows for one object need not be adjacent,
+     * objects are read a {@link #page page} at a time.
+     * Either way no cursor is held open between pages, so the stream holds no connection.
+     */
+    @Override
+    public Stream<T> stream() {
+        try {
+            final int maxChunk = primary.getDialect().maxInSize();
+            if (queryStyle == QueryStyle.SPLIT) {
+                return pages(maxChunk, (after) -> primary.page(after, maxChunk), this::stitch);
+            }
+            if (queryStyle == QueryStyle.JOINED_UNORDERED) {
+                return pages(maxChunk, (after) -> page(after, maxChunk), Function.identity());
+            }
+            final IdentityMap identities = identities();
+            return ResultStreams.stream(jdbcTemplate, mapper.select(), getFetchSize(), (rs) -> mapper.iterator(rs, identities));
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    /**
+     * Streams pages read after the index of each page's last object, completing each page as it is emitted.
+     *
+     * @param size     The most distinct indexes per page
+     * @param page     Reads the page after an index, or the first page after null
+     * @param complete Completes a page read
+     * @return The objects of every page
+     */
+    private Stream<T> pages(final int size, final Function<X, List<T>> page, final Function<List<T>, List<T>> complete) {
+        final Iterator<List<T>> chunks = new Iterator<List<T>>() {
+            private List<T> read;
+            private X after;
+            private boolean last;
+
+            @Override
+            public boolean hasNext() {
+                if (read == null && !last) {
+                    final List<T> next = page.apply(after);
+                    last = next.stream().map(primary.idMapper::serFrom).distinct().count() < size;
+                    if (!next.isEmpty()) {
+                        after = primary.idMapper.serFrom(next.get(next.size() - 1));
+                        read = next;
+                    }
+                }
+                return read != null;
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final List<T> chunk = read;
+                read = null;
+                try {
+                    return complete.apply(chunk);
+                } catch (RepositoryException rethrow) {
+                    throw rethrow;
+                } catch (Exception e) {
+                    throw RepositoryException.because(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+                .flatMap(List::stream);
+    }
+
+    private ResultSetExtractor<List<T>> listExtractor(final QueryStyle style) {
+        final IdentityMap identities = identities();
+        return style == QueryStyle.JOINED_UNORDERED ? mapper.unorderedListExtractor(identities) : mapper.listExtractor(identities);
+    }
+
+    private ResultSetExtractor<List<T>> listExtractor(final JoiningRowMapper<T> planned) {
+        final IdentityMap identities = identities();
+        return queryStyle == QueryStyle.JOINED_UNORDERED ? planned.unorderedListExtractor(identities) : planned.listExtractor(identities);
+    }
+
+    /**
+     * Retrieves the objects joined lazily to the given objects, one query per join, and attaches them.
+     * Lazy joins are followed at every depth: objects joined through joining repositories,
+     * eagerly or lazily, have their own lazily joined objects retrieved in turn.
+     * Each object should be given only once, or its lazily joined objects will be attached again.
+     *
+     * @param roots Objects as read by this repository
+     * @return The same objects, with lazily joined objects
+     */
+    public List<T> fetchLazy(final List<T> roots) {
+        try {
+            stitch(roots, lazy(mapper.topMappers()));
+            for (final MapperAndJoin<T, ?, ?> join : mapper.topMappers()) {
+                fetchNestedLazy(join, roots);
+            }
+            return roots;
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    private <F, O> void fetchNestedLazy(final MapperAndJoin<T, F, O> join, final List<T> roots) {
+        final Repository<F, ?> repo = getJoinedRepository(join);
+        if (!(repo instanceof JoiningRepository)) {
+            return;
+        }
+        final List<F> joined = new ArrayList<>();
+        final Consumer<F> collector = collectingOnce(joined);
+        for (final T root : roots) {
+            forEachJoined(join, root, collector);
+        }
+        if (!joined.isEmpty()) {
+            ((JoiningRepository<F, ?>) repo).fetchLazy(joined);
+        }
+    }
+
+    /**
+     * Retrieves the objects joined lazily to the given object and attaches them.
+     *
+     * @param root An object as read by this repository
+     * @return The same object, with lazily joined objects
+     * @see #fetchLazy(List)
+     */
+    public T fetchLazy(final T root) {
+        fetchLazy(Collections.singletonList(root));
+        return root;
+    }
+
+    private static <T> List<MapperAndJoin<T, ?, ?>> lazy(final List<MapperAndJoin<T, ?, ?>> joins) {
+        return joins.stream()
+                .filter(j -> j.fetch() == MapperAndJoin.FetchStyle.LAZY)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieves the objects eagerly joined to the given primary objects, one query per join, and attaches them.
+     *
+     * @param roots Primary objects, without joined objects
+     * @return The same objects, with joined objects
+     */
+    private List<T> stitch(final List<T> roots) {
+        return stitch(roots, mapper.topMappers().stream()
+                .filter(j -> j.fetch() == MapperAndJoin.FetchStyle.EAGER)
+                .collect(Collectors.toList()));
+    }
+
+    private List<T> stitch(final List<T> roots, final List<MapperAndJoin<T, ?, ?>> joins) {
+        if (!roots.isEmpty()) {
+            for (final MapperAndJoin<T, ?, ?> join : joins) {
+                stitchJoin(join, roots);
+            }
+        }
+        return roots;
+    }
+
+    @SuppressWarnings("unchecked") // joined repositories are re-bound to the related field, so are indexed by O
+    private <F, O> void stitchJoin(final MapperAndJoin<T, F, O> join, final List<T> roots) {
+        final Repository<F, O> repo = (Repository<F, O>) getJoinedRepository(join);
+        final Mapper<T, ?, O> parentField = join.parentField();
+        final BiConsumer<T, F> acceptor = join.acceptor();
+        if (join.relation() != EQ) {
+            for (final T root : roots) {
+                for (final F joined : splitGetFor(repo, parentField.serFrom(root))) {
+                    acceptor.accept(root, joined);
+                }
+            }
+            return;
+        }
+        final Set<O> keys = new LinkedHashSet<>();
+        for (final T root : roots) {
+            keys.add(parentField.serFrom(root));
+        }
+        final Map<O, List<F>> joinedByKey = new HashMap<>();
+        for (final F joined : splitGetForAll(repo, keys)) {
+            joinedByKey.computeIfAbsent(join.relatedField().serFrom(joined), (k) -> new ArrayList<>()).add(joined);
+        }
+        for (final T root : roots) {
+            final List<F> joined = joinedByKey.get(parentField.serFrom(root));
+            if (joined != null) {
+                for (final F each : joined) {
+                    acceptor.accept(root, each);
+                }
+            }
+        }
+    }
+
+    private static <F, O> List<F> splitGetFor(final Repository<F, O> repo, final O key) {
+        return repo instanceof JoiningRepository
+                ? ((JoiningRepository<F, O>) repo).getFor(key, QueryStyle.SPLIT)
+                : repo.getFor(key);
+    }
+
+    private static <F, O> List<F> splitGetForAll(final Repository<F, O> repo, final Collection<O> keys) {
+        return repo instanceof JoiningRepository
+                ? ((JoiningRepository<F, O>) repo).getForAll(keys, QueryStyle.SPLIT)
+                : repo.getForAll(keys);
+    }
+
+    @Override
+    public List<T> getUnsafe(final String sql, Object... values) {
+        try {
+            return jdbcTemplate.query(sql, listExtractor(queryStyle), values);
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    @Override
+    public <R> List<R> readUnsafe(final String sql, final RowMapper<R> rowMapper, final Object... values) {
+        try {
+            return jdbcTemplate.query(sql, rowMapper, values);
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+}
@@ -0,0 +1,913 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import lombok.val;
+import net.zethmayr.benjamin.spring.common.mapper.base.ClassFieldMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.ColumnType;
+import net.zethmayr.benjamin.spring.common.mapper.base.IdentityMap;
+import net.zethmayr.benjamin.spring.common.mapper.base.InvertibleRowMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.InvertibleRowMapperBase;
+import net.zethmayr.benjamin.spring.common.mapper.base.Mapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.PsSetter;
+import net.zethmayr.benjamin.spring.common.mapper.base.SqlOp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static net.zethmayr.benjamin.spring.common.mapper.base.ClassFieldMapper.isIndex;
+import static org.springframework.transaction.annotation.Isolation.REPEATABLE_READ;
+import static org.springframework.transaction.annotation.Propagation.REQUIRED;
+
+/**
+ * This is the default base {@link Repository} implementation, for pojos.
+ *
+ * @param <T> The persisted object type
+ * @param <X> The index type
+ */
+public abstract class MapperRepository<T, X> implements Repository<T, X> {
+    private static final Logger LOG = LoggerFactory.getLogger(MapperRepository.class);
+
+    protected JdbcTemplate jdbcTemplate;
+
+    /**
+     * The mapping set at construction.
+     */
+    public final InvertibleRowMapper<T> mapper;
+
+    /**
+     * The INSERT query set at construction.
+     */
+    public final String insert;
+
+    /**
+     * The SELECT query prefix set at construction to retrieve persisted object fields.
+     */
+    public final String select;
+
+    private final String deleteUnsafe;
+
+    /**
+     * The DELETE query set at construction.
+     */
+    public final String delete;
+
+    /**
+     * The mapper used for the id / index field.
+     * This can be used to convert index fields of persisted objects.
+     */
+    public final Mapper<T, ?, X> idMapper;
+
+    /**
+     * The SELECT query set at construction for retrieving instances by id / index
+     */
+    public final String getById;
+
+    /**
+     * Whether the index is a related one, which need not be unique.
+     */
+    private final boolean rebound;
+    private final InClauses.Query getForAll;
+    private final InClauses.Query deleteAll;
+    private volatile SqlDialect dialect;
+    private final Map<List<ClassFieldMapper<T>>, Bound<T>> updates = new ConcurrentHashMap<>();
+    private volatile Bound<T> upsert;
+    private volatile SqlDialect upsertDialect;
+    private volatile Bound<T> insertWithIndex;
+    private volatile Paging paging;
+
+    /**
+     * The default number of rows sent per JDBC batch by {@link #insertAll}, {@link #updateAll} and {@link #upsertAll}.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final int batchSize;
+
+    /**
+     * The default JDBC fetch size for {@link #stream()}.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private final int fetchSize;
+
+    /**
+     * Constructor accepting the mapper and ID mapper for the repository.
+     * Note that the ID mapper need not be the object mapper's ID mapper;
+     * this allows multiple repositories over a single SQL database table and mapper.
+     *
+     * @param jdbcTemplate The jdbc template
+     * @param mapper   The object mapper
+     * @param idMapper The field mapper for the id / index field
+     */
+    public MapperRepository(final JdbcTemplate jdbcTemplate, final InvertibleRowMapper<T> mapper, final Mapper<T, ?, X> idMapper) {
+        this(jdbcTemplate, mapper, idMapper, DEFAULT_BATCH_SIZE, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Constructor accepting the mapper and ID mapper for the repository, and the JDBC batch and fetch sizes.
+     *
+     * @param jdbcTemplate The jdbc template
+     * @param mapper       The object mapper
+     * @param idMapper     The field mapper for the id / index field
+     * @param batchSize    The number of rows sent per JDBC batch, which must be positive
+     * @param fetchSize    The JDBC fetch size for {@link #stream()}, which must be positive
+     */
+    public MapperRepository(final JdbcTemplate jdbcTemplate, final InvertibleRowMapper<T> mapper, final Mapper<T, ?, X> idMapper,
+                            final int batchSize, final int fetchSize) {
+        this(jdbcTemplate, mapper, idMapper, " WHERE " + idMapper.fieldName + " = ?", SqlOp.EQ, false, batchSize, fetchSize);
+    }
+
+    private MapperRepository(final JdbcTemplate jdbcTemplate, final InvertibleRowMapper<T> mapper, final Mapper<T, ?, X> idMapper, final String whereId,
+                             final SqlOp relation, final boolean rebound, final int batchSize, final int fetchSize) {
+        if (batchSize < 1) {
+            throw RepositoryException.badSetup("Batch size must be positive");
+        }
+        if (fetchSize < 1) {
+            throw RepositoryException.badSetup("Fetch size must be positive");
+        }
+        this.batchSize = batchSize;
+        this.fetchSize = fetchSize;
+        this.jdbcTemplate = jdbcTemplate;
+        this.mapper = mapper;
+        insert = mapper.insert();
+        select = mapper.select();
+        this.idMapper = idMapper;
+        deleteUnsafe = "DELETE FROM " + mapper.table();
+        delete = deleteUnsafe + whereId;
+        getById = select + whereId;
+        this.rebound = rebound;
+        // IN lists only express equality
+        getForAll = relation == SqlOp.EQ ? new InClauses.Query(select + " WHERE " + idMapper.fieldName + " IN", "") : null;
+        deleteAll = relation == SqlOp.EQ ? new InClauses.Query(deleteUnsafe + " WHERE " + idMapper.fieldName + " IN", "") : null;
+    }
+
+    private static class Cloned<T, X> extends MapperRepository<T, X> {
+        Cloned(JdbcTemplate jdbcTemplate, InvertibleRowMapper<T> mapper, Mapper<T, ?, X> idMapper, final SqlOp relation,
+               final int batchSize, final int fetchSize) {
+            super(jdbcTemplate, mapper, idMapper, " WHERE ? " + relation.sql + " " + idMapper.fieldName, relation, true, batchSize, fetchSize);
+        }
+    }
+
+    @Override
+    public MapperRepository<T, X> rebindWithRelatedIndex(final SqlOp relation, Mapper<T, ?, X> idMapper) {
+        LOG.trace("Rebinding for {} {}", relation, idMapper);
+        return new Cloned<T, X>(jdbcTemplate, mapper, idMapper, relation, batchSize, fetchSize);
+    }
+
+    @Override
+    public InvertibleRowMapper<T> mapper() {
+        return mapper;
+    }
+
+    @Override
+    public <C, I, O> Mapper<C, I, O> findMapper(final String fieldName) {
+        return (Mapper<C, I, O>)mapper.fields().stream()
+                .filter(m -> m.fieldName().equals(fieldName))
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public <C, I, O> Mapper<C, I, O> findMapper(final String tableName, final String fieldName) {
+        return tableName.equals(mapper.table()) ? findMapper(fieldName) : null;
+    }
+
+    @Override
+    public String insert() {
+        return insert;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked") // from m.apply - which may STILL cce if the mapper setup is wrong
+    public X insert(final T toInsert) throws ClassCastException {
+        try {
+            // we ALWAYS use the first mapper as the idMapper here.
+            val idMapper = (Mapper<T, ?, X>)mapper.fields().get(0);
+            LOG.trace("{} {}", insert, toInsert);
+            final int insertedCount;
+            final X generatedIndex;
+            if (isIndex(idMapper)) {
+                // we expect the id mapper to contribute no value and not be present in sql
+                final PreparedStatementCreator psc = (con) -> {
+                    final PreparedStatement ps = con.prepareStatement(
+                            insert, new int[]{1} // we assume the idMapper to be the first mapper.
+                    );
+                    mapper.setInsertValues(toInsert, ps);
+                    return ps;
+                };
+                final KeyHolder keys = new GeneratedKeyHolder();
+                insertedCount = jdbcTemplate.update(psc, keys);
+                Object key = keys.getKey();
+                if (Objects.isNull(key)) {
+                    key = jdbcTemplate.queryForObject("SELECT MAX(" + idMapper.fieldName + ") FROM " + mapper.table(), idMapper.getExternalClass());
+                    LOG.warn("key not returned - retrieved new maximum from db");
+                } else {
+                    LOG.trace("we got an ID from the database: {}", key);
+                }
+                generatedIndex = idMapper.getExternalClass().cast(key);
+            } else {
+                insertedCount = jdbcTemplate.update((con) -> {
+                    final PreparedStatement ps = con.prepareStatement(insert);
+                    mapper.setInsertValues(toInsert, ps);
+                    return ps;
+                });
+                generatedIndex = idMapper.serFrom(toInsert);
+            }
+            if (insertedCount != 1) {
+                throw RepositoryException.writeFailed();
+            }
+            if (isIndex(idMapper)) {
+                idMapper.desTo(toInsert, generatedIndex);
+            }
+            mapper.markUnchanged(toInsert);
+            return generatedIndex;
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.writeFailed(e);
+        } finally {
+            written();
+        }
+    }
+
+    /**
+     * Returns the number of rows sent per JDBC batch by {@link #insertAll}, {@link #updateAll} and {@link #upsertAll}.
+     *
+     * @return The batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the JDBC fetch size for {@link #stream()}.
+     *
+     * @return The fetch size
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns the SQL dialect queries are adapted to, detected from the database on first use unless set.
+     *
+     * @return The SQL dialect
+     */
+    @Override
+    public SqlDialect getDialect() {
+        SqlDialect known = dialect;
+        if (known == null) {
+            known = SqlDialect.of(jdbcTemplate);
+            dialect = known;
+        }
+        return known;
+    }
+
+    /**
+     * Sets the SQL dialect queries are adapted to, rather than detecting it.
+     *
+     * @param dialect The SQL dialect
+     */
+    public void setDialect(final SqlDialect dialect) {
+        this.dialect = Objects.requireNonNull(dialect);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Objects are written in JDBC batches of {@link #getBatchSize()} rows, all in one transaction.
+     * Generated indexes are read back from each batch's generated keys.
+     */
+    @Override
+    @Transactional(propagation = REQUIRED, isolation = REPEATABLE_READ, rollbackFor = Throwable.class)
+    @SuppressWarnings("unchecked") // as for insert
+    public List<X> insertAll(final Collection<T> toInsert) {
+        if (toInsert.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<T> rows = toInsert instanceof List ? (List<T>) toInsert : new ArrayList<>(toInsert);
+        try {
+            // we ALWAYS use the first mapper as the idMapper here.
+            val idMapper = (Mapper<T, ?, X>) mapper.fields().get(0);
+            val generated = isIndex(idMapper);
+            LOG.trace("{} x {}", insert, rows.size());
+            return jdbcTemplate.execute((ConnectionCallback<List<X>>) (con) -> {
+                final List<X> indexes = new ArrayList<>(rows.size());
+                try (final PreparedStatement ps = generated
+                        ? con.prepareStatement(insert, new int[]{1}) // we assume the idMapper to be the first mapper.
+                        : con.prepareStatement(insert)) {
+                    for (int from = 0; from < rows.size(); from += batchSize) {
+                        final List<T> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                        for (final T row : batch) {
+                            mapper.setInsertValues(row, ps);
+                            ps.addBatch();
+                        }
+                        checkWritten(ps.executeBatch(), batch.size());
+                        if (generated) {
+                            readGeneratedKeys(ps, idMapper, batch, indexes);
+                        } else {
+                            for (final T row : batch) {
+                                indexes.add(idMapper.serFrom(row));
+                            }
+                        }
+                        for (final T row : batch) {
+                            mapper.markUnchanged(row);
+                        }
+                    }
+                }
+                return indexes;
+            });
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.writeFailed(e);
+        } finally {
+            written();
+        }
+    }
+
+    private static void checkWritten(final int[] counts, final int expected) {
+        if (counts.length != expected) {
+            throw RepositoryException.writeFailed();
+        }
+        for (final int count : counts) {
+            if (count != 1 && count != Statement.SUCCESS_NO_INFO) {
+                throw RepositoryException.writeFailed();
+            }
+        }
+    }
+
+    private static <T, X> void readGeneratedKeys(final PreparedStatement ps, final Mapper<T, ?, X> idMapper, final List<T> batch, final List<X> indexes) throws SQLException {
+        int read = 0;
+        try (final ResultSet keys = ps.getGeneratedKeys()) {
+            while (read < batch.size() && keys.next()) {
+                final X key = keys.getObject(1, idMapper.getExternalClass());
+                idMapper.desTo(batch.get(read), key);
+                indexes.add(key);
+                read++;
+            }
+        }
+        if (read != batch.size()) {
+            LOG.warn("driver returned {} keys for a batch of {}", read, batch.size());
+            throw RepositoryException.writeFailed();
+        }
+    }
+
+    /**
+     * A writing query and the parameter setters for its fields, in order.
+     */
+    private static final class Bound<T> {
+        private final String sql;
+        private final List<ClassFieldMapper<T>> params;
+        private final PsSetter[] setters;
+
+        private Bound(final String sql, final List<ClassFieldMapper<T>> params) {
+            this.sql = sql;
+            this.params = params;
+            setters = new PsSetter[params.size()];
+            for (int p = 0; p < setters.length; p++) {
+                final ClassFieldMapper<T> param = params.get(p);
+                // index column types need not set values
+                if (!isIndex(param)) {
+                    final ColumnType<?> type = param.getColumnType();
+                    setters[p] = type.setterFactory().getForInsert(p + 1);
+                }
+            }
+        }
+
+        /**
+         * Binds an UPDATE of some columns, with the index of the object updated as the last parameter.
+         */
+        private static <T> Bound<T> update(final String table, final List<ClassFieldMapper<T>> columns, final ClassFieldMapper<T> idMapper) {
+            final StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+            for (int c = 0; c < columns.size(); c++) {
+                sql.append(c == 0 ? "" : ", ").append(columns.get(c).fieldName()).append(" = ?");
+            }
+            sql.append(" WHERE ").append(idMapper.fieldName()).append(" = ?");
+            final List<ClassFieldMapper<T>> params = new ArrayList<>(columns);
+            params.add(idMapper);
+            return new Bound<>(sql.toString(), params);
+        }
+
+        /**
+         * Binds an INSERT of every column, including the index, so that given indexes are kept.
+         */
+        private static <T> Bound<T> insert(final String table, final List<ClassFieldMapper<T>> columns) {
+            return new Bound<>("INSERT INTO " + table + " (" + columns.stream()
+                    .map(ClassFieldMapper::fieldName)
+                    .collect(Collectors.joining(", ")) + ") VALUES (" + columns.stream()
+                    .map((c) -> "?")
+                    .collect(Collectors.joining(", ")) + ")", columns);
+        }
+
+        @SuppressWarnings("unchecked") // column types make setters for their own JDBC types
+        private void setValues(final T row, final PreparedStatement ps) throws SQLException {
+            for (int p = 0; p < setters.length; p++) {
+                if (setters[p] == null) {
+                    ps.setObject(p + 1, params.get(p).serFrom(row));
+                } else {
+                    setters[p].apply(ps, params.get(p).serFrom(row));
+                }
+            }
+        }
+
+        /**
+         * Writes the objects in JDBC batches, returning the row count of each.
+         */
+        private int[] writeBatches(final Connection con, final List<T> rows, final int batchSize) throws SQLException {
+            LOG.trace("{} x {}", sql, rows.size());
+            final int[] counts = new int[rows.size()];
+            try (final PreparedStatement ps = con.prepareStatement(sql)) {
+                for (int from = 0; from < rows.size(); from += batchSize) {
+                    final List<T> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                    for (final T row : batch) {
+                        setValues(row, ps);
+                        ps.addBatch();
+                    }
+                    final int[] batchCounts = ps.executeBatch();
+                    if (batchCounts.length != batch.size()) {
+                        throw RepositoryException.writeFailed();
+                    }
+                    System.arraycopy(batchCounts, 0, counts, from, batchCounts.length);
+                }
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Returns the fields to write for an object:
+     * those changed, if it tracks its changes, else all but the index.
+     */
+    private List<ClassFieldMapper<T>> columnsToUpdate(final T row, final ClassFieldMapper<T> idMapper) {
+        final Set<String> changed = mapper.changedFields(row);
+        // fields a projection did not read are unknown, so are not written unless changed
+        final Set<String> written = changed != null ? changed : mapper.projectedFields(row);
+        final List<ClassFieldMapper<T>> columns = new ArrayList<>();
+        for (final ClassFieldMapper<T> field : mapper.fields()) {
+            if (field != idMapper && (written == null || written.contains(field.fieldName()))) {
+                columns.add(field);
+            }
+        }
+        return columns;
+    }
+
+    @Override
+    public void update(final T toUpdate) {
+        updateAll(Collections.singletonList(toUpdate));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Objects are grouped by the fields to write, and each group is written in JDBC batches of {@link #getBatchSize()} rows.
+     * Objects which track their changes write only the fields changed, so are skipped if nothing changed;
+     * others write every field but the index.
+     * All batches are written in one transaction.
+     *
+     * @throws RepositoryException if any object was not found
+     */
+    @Override
+    @Transactional(propagation = REQUIRED, isolation = REPEATABLE_READ, rollbackFor = Throwable.class)
+    public void updateAll(final Collection<T> toUpdate) {
+        // as for insert, the first mapper is the idMapper.
+        final ClassFieldMapper<T> idMapper = mapper.fields().get(0);
+        final Map<List<ClassFieldMapper<T>>, List<T>> groups = new LinkedHashMap<>();
+        for (final T row : toUpdate) {
+            final List<ClassFieldMapper<T>> columns = columnsToUpdate(row, idMapper);
+            if (!columns.isEmpty()) {
+                groups.computeIfAbsent(columns, (c) -> new ArrayList<>()).add(row);
+            }
+        }
+        if (groups.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) (con) -> {
+                for (final Map.Entry<List<ClassFieldMapper<T>>, List<T>> group : groups.entrySet()) {
+                    final Bound<T> update = updates.computeIfAbsent(group.getKey(), (c) -> Bound.update(mapper.table(), c, idMapper));
+                    final List<T> rows = group.getValue();
+                    checkWritten(update.writeBatches(con, rows, batchSize), rows.size());
+                }
+                return null;
+            });
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.writeFailed(e);
+        } finally {
+            written();
+        }
+        for (final List<T> rows : groups.values()) {
+            for (final T row : rows) {
+                mapper.markUnchanged(row);
+            }
+        }
+    }
+
+    private Bound<T> upsert() {
+        final SqlDialect known = getDialect();
+        if (upsertDialect != known) {
+            final List<ClassFieldMapper<T>> fields = mapper.fields();
+            final String sql = known.upsert(mapper.table(), fields.stream()
+                    .map(ClassFieldMapper::fieldName)
+                    .collect(Collectors.toList()), fields.get(0).fieldName());
+            upsert = sql == null ? null : new Bound<>(sql, fields);
+            upsertDialect = known;
+        }
+        return upsert;
+    }
+
+    private Bound<T> insertWithIndex() {
+        Bound<T> known = insertWithIndex;
+        if (known == null) {
+            known = Bound.insert(mapper.table(), mapper.fields());
+            insertWithIndex = known;
+        }
+        return known;
+    }
+
+    /**
+     * Updates every field but the index of objects with indexes, then inserts, with their indexes, those not found.
+     * Returns the objects inserted.
+     */
+    private List<T> updateOrInsert(final Connection con, final List<T> withIds, final ClassFieldMapper<T> idMapper) throws SQLException {
+        final List<ClassFieldMapper<T>> columns = new ArrayList<>(mapper.fields().subList(1, mapper.fields().size()));
+        final Bound<T> update = updates.computeIfAbsent(columns, (c) -> Bound.update(mapper.table(), c, idMapper));
+        final int[] counts = update.writeBatches(con, withIds, batchSize);
+        final List<T> notFound = new ArrayList<>();
+        try (final PreparedStatement exists = con.prepareStatement(
+                "SELECT 1 FROM " + mapper.table() + " WHERE " + idMapper.fieldName() + " = ?")) {
+            for (int r = 0; r < counts.length; r++) {
+                final T row = withIds.get(r);
+                // the driver may not say whether a row was updated, so we look
+                if (counts[r] == 0 || counts[r] == Statement.SUCCESS_NO_INFO && !exists(exists, idMapper.serFrom(row))) {
+                    notFound.add(row);
+                }
+            }
+        }
+        if (!notFound.isEmpty()) {
+            checkWritten(insertWithIndex().writeBatches(con, notFound, batchSize), notFound.size());
+        }
+        return notFound;
+    }
+
+    private static boolean exists(final PreparedStatement exists, final Object id) throws SQLException {
+        exists.setObject(1, id);
+        try (final ResultSet rs = exists.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Objects with indexes are written in JDBC batches of {@link #getBatchSize()} rows,
+     * as a single dialect-specific statement per object where the dialect has one;
+     * otherwise every field but the index is updated, and objects not found are then inserted.
+     * Either way, objects with indexes keep them,
+     * and where the dialect needs it, the index sequence is then moved past the largest index.
+     * Objects without indexes are inserted. All of this happens in one transaction.
+     */
+    @Override
+    @Transactional(propagation = REQUIRED, isolation = REPEATABLE_READ, rollbackFor = Throwable.class)
+    public List<X> upsertAll(final Collection<T> toUpsert) {
+        if (toUpsert.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // as for insert, the first mapper is the idMapper.
+        final ClassFieldMapper<T> idField = mapper.fields().get(0);
+        @SuppressWarnings("unchecked") final Mapper<T, ?, X> idMapper = (Mapper<T, ?, X>) idField;
+        final List<T> withIds = new ArrayList<>();
+        final List<T> toInsert = new ArrayList<>();
+        for (final T row : toUpsert) {
+            (idMapper.serFrom(row) == null ? toInsert : withIds).add(row);
+        }
+        if (!withIds.isEmpty()) {
+            try {
+                final Bound<T> upsert = upsert();
+                jdbcTemplate.execute((ConnectionCallback<Void>) (con) -> {
+                    if (upsert != null) {
+                        upsert.writeBatches(con, withIds, batchSize);
+                    } else {
+                        updateOrInsert(con, withIds, idField);
+                    }
+                    final String resync = isIndex(idField) ? getDialect().resyncSequence(mapper.table(), idField.fieldName()) : null;
+                    if (resync != null) {
+                        LOG.trace("{}", resync);
+                        try (final Statement statement = con.createStatement()) {
+                            statement.execute(resync);
+                        }
+                    }
+                    return null;
+                });
+            } catch (RepositoryException rethrow) {
+                throw rethrow;
+            } catch (Exception e) {
+                throw RepositoryException.writeFailed(e);
+            } finally {
+                written();
+            }
+            for (final T row : withIds) {
+                mapper.markUnchanged(row);
+            }
+        }
+        insertAll(toInsert);
+        final List<X> indexes = new ArrayList<>(toUpsert.size());
+        for (final T row : toUpsert) {
+            indexes.add(idMapper.serFrom(row));
+        }
+        return indexes;
+    }
+
+    @Override
+    public void delete(final X toDelete) {
+        LOG.trace("Deleting {} with {}", delete, toDelete);
+        try {
+            jdbcTemplate.update(delete, toDelete);
+        } finally {
+            written();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Values are bound into {@code IN} lists of a few sizes, bounded per the dialect.
+     */
+    @Override
+    public void deleteAll(final Collection<X> toDelete) {
+        if (deleteAll == null) {
+            Repository.super.deleteAll(toDelete);
+            return;
+        }
+        try {
+            InClauses.chunked(toDelete, getDialect().maxInSize(), deleteAll, (sql, chunk) -> {
+                LOG.trace("Deleting {} with {}", sql, chunk);
+                jdbcTemplate.update(sql, chunk);
+                return Collections.emptyList();
+            });
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.writeFailed(e);
+        } finally {
+            written();
+        }
+    }
+
+    @Override
+    public void deleteUnsafe(final String whereClause, final X toDelete) {
+        LOG.trace("Deleting {}{} with {}", deleteUnsafe, whereClause, toDelete);
+        try {
+            jdbcTemplate.update(deleteUnsafe + whereClause, toDelete);
+        } finally {
+            written();
+        }
+    }
+
+    /**
+     * Forgets the instances of this repository's table held for the current transaction, so later reads see a write.
+     */
+    private void written() {
+        IdentityMap.evictTransaction(mapper.table());
+    }
+
+    @Override
+    public void deleteMonadic(final T toDelete) {
+        delete(idMapper.serFrom(toDelete));
+    }
+
+    @Override
+    public String select() {
+        return select;
+    }
+
+    @Override
+    public Optional<T> getMonadic(final T withId) {
+        return get(idMapper.serFrom(withId));
+    }
+
+    @Override
+    public Optional<T> get(final X id) {
+        try {
+            final List<T> found = jdbcTemplate.query(getById, mapper.forQuery(), id);
+            switch (found.size()) {
+                case 1:
+                    return Optional.of(found.get(0));
+                case 0:
+                    return Optional.empty();
+                default:
+                    throw RepositoryException.tooManyThings();
+            }
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    @Override
+    public List<T> getFor(final X id) {
+        try {
+            return jdbcTemplate.query(getById, mapper.forQuery(), id);
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Values are bound into {@code IN} lists of a few sizes, bounded per the dialect.
+     */
+    @Override
+    public List<T> getForAll(final Collection<X> ids) {
+        if (getForAll == null) {
+            return Repository.super.getForAll(ids);
+        }
+        try {
+            return InClauses.chunked(ids, getDialect().maxInSize(), getForAll,
+                    (sql, chunk) -> jdbcTemplate.query(sql, mapper.forQuery(), chunk));
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Objects are read as by {@link #getForAll(Collection)}.
+     */
+    @Override
+    public Map<X, T> getAllById(final Collection<X> ids) {
+        return InClauses.inKeyOrder(ids, getForAll(ids), idMapper::serFrom);
+    }
+
+    @Override
+    public List<T> getAll() {
+        try {
+            return jdbcTemplate.query(select, mapper.forQuery());
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    /**
+     * The page queries, limited in a dialect.
+     */
+    static final class Paging {
+        final SqlDialect dialect;
+        final String first;
+        final String after;
+
+        Paging(final SqlDialect dialect, final String first, final String after) {
+            this.dialect = dialect;
+            this.first = first;
+            this.after = after;
+        }
+    }
+
+    private Paging paging() {
+        final SqlDialect known = getDialect();
+        Paging current = paging;
+        if (current == null || current.dialect != known) {
+            current = new Paging(known, pageQuery(known, false), pageQuery(known, true));
+            paging = current;
+        }
+        return current;
+    }
+
+    private String pageQuery(final SqlDialect dialect, final boolean after) {
+        final String id = idMapper.fieldName;
+        if (!rebound) {
+            return dialect.limit(select + (after ? " WHERE " + id + " > ?" : "") + " ORDER BY " + id);
+        }
+        // as for insert, the first mapper is the index, which orders objects sharing a related index
+        final String index = mapper.fields().get(0).fieldName();
+        return select + " WHERE " + id + " IN (SELECT " + id + " FROM ("
+                + dialect.limit("SELECT DISTINCT " + id + " FROM " + mapper.table()
+                + (after ? " WHERE " + id + " > ?" : "")
+                + " ORDER BY " + id) + ") page)"
+                + " ORDER BY " + id + ", " + index;
+    }
+
+    /**
+     * {@inheritDoc}
+     * For repositories rebound to a related index, which need not be unique,
+     * the limit applies to distinct related indexes, so objects sharing one are never split across pages.
+     */
+    @Override
+    public List<T> page(final X after, final int limit) {
+        if (limit < 1) {
+            throw RepositoryException.badSetup("Page size must be positive");
+        }
+        try {
+            final Paging paging = paging();
+            return after == null
+                    ? jdbcTemplate.query(paging.first, mapper.forQuery(), limit)
+                    : jdbcTemplate.query(paging.after, mapper.forQuery(), after, limit);
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Rows are read with the configured {@link #getFetchSize() fetch size} as the stream is consumed.
+     */
+    @Override
+    public Stream<T> stream() {
+        try {
+            return ResultStreams.stream(jdbcTemplate, select, fetchSize, mapper::iterator);
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    @Override
+    public List<T> getUnsafe(final String sql, final Object... values) {
+        try {
+            return jdbcTemplate.query(sql, mapper.forQuery(), values);
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    @Override
+    public <R> List<R> readUnsafe(final String sql, final RowMapper<R> rowMapper, final Object... values) {
+        try {
+            return jdbcTemplate.query(sql, rowMapper, values);
+        } catch (RepositoryException rethrow) {
+            throw rethrow;
+        } catch (Exception e) {
+            throw RepositoryException.because(e);
+        }
+    }
+
+    /**
+     * For when you're only using one database.
+     *
+     * Extend this instead of {@link MapperRepository} to autowire your sole JdbcTemplate in
+     * {@link InitializingBean#afterPropertiesSet afterPropertiesSet}.
+     * {@inheritDoc}
+     */
+    public abstract static class SingleWired<T, X> extends MapperRepository<T, X> implements InitializingBean {
+        private static JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private Injector injector;
+
+        public SingleWired(final InvertibleRowMapperBase<T> mapper, final Mapper<T, ?, X> idMapper) {
+            super(jdbcTemplate, mapper, idMapper);
+        }
+
+        public SingleWired(final InvertibleRowMapperBase<T> mapper, final Mapper<T, ?, X> idMapper, final int batchSize, final int fetchSize) {
+            super(jdbcTemplate, mapper, idMapper, batchSize, fetchSize);
+        }
+
+        @Override
+        public void afterPropertiesSet() {
+            ((MapperRepository)this).jdbcTemplate = jdbcTemplate;
+        }
+    }
+
+    @Service
+    public static class Injector {
+        public Injector(final @Autowired(required = false) JdbcTemplate jdbcTemplate) {
+            SingleWired.jdbcTemplate = jdbcTemplate;
+            LOG.debug("Injector was called with jdbcTemplate {}", jdbcTemplate);
+        }
+    }
+}
@@ -0,0 +1,606 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import lombok.EqualsAndHashCode;
+import net.zethmayr.benjamin.spring.common.mapper.base.InvertibleRowMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.JoiningRowMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.Mapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.SqlOp;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static net.zethmayr.benjamin.spring.common.mapper.base.JoiningRowMapper.prefix;
+
+/**
+ * A query for objects from a repository, composed from field mappers and {@link SqlOp}s.
+ * Conditions added one after another must all hold; {@link #or()} begins an alternative set of conditions.
+ * <p>
+ * Values are always bound as parameters, and {@code IN} lists are padded to powers of two by repeating their last value,
+ * up to the dialect's maximum list size, beyond which they are split into alternative lists.
+ * Each shape of query has one SQL string, generated once and shared among a bounded number of shapes,
+ * so driver and server statement caches can be reused.
+ * <p>
+ * On joining repositories, conditions select whole objects, any of whose rows match,
+ * and fields of joined tables are as listed by {@link JoiningRowMapper#joinedMappers()};
+ * objects may only be ordered by fields of the primary table.
+ * <p>
+ * Counts, existence and aggregates are computed by the database, so no objects are read.
+ * Aggregated values are decoded as their field mappers decode columns;
+ * on joining repositories, only fields of the primary table may be aggregated, each object counting once,
+ * and queries referring to no joined fields read only the primary table.
+ *
+ * @param <T> The type of object queried
+ */
+public final class Query<T> {
+    /**
+     * The most shapes of query whose SQL is kept; beyond this, all are forgotten and generated again as needed.
+     */
+    private static final int MAX_CACHED = 1024;
+    private static final ConcurrentMap<List<Object>, String> SQL = new ConcurrentHashMap<>();
+
+    private enum Kind {
+        COMPARE, IN, NONE, BETWEEN, IS_NULL, IS_NOT_NULL, OR
+    }
+
+    @EqualsAndHashCode
+    private static final class Term {
+        private final Kind kind;
+        private final Mapper<?, ?, ?> field;
+        private final SqlOp op;
+        private final int size;
+        private final int listSize;
+
+        private Term(final Kind kind, final Mapper<?, ?, ?> field, final SqlOp op, final int size) {
+            this(kind, field, op, size, size);
+        }
+
+        /**
+         * Creates a term binding the given number of values, in lists of at most the given size.
+         */
+        private Term(final Kind kind, final Mapper<?, ?, ?> field, final SqlOp op, final int size, final int listSize) {
+            this.kind = kind;
+            this.field = field;
+            this.op = op;
+            this.size = size;
+            this.listSize = listSize;
+        }
+    }
+
+    private enum Function {
+        COUNT, SUM, MIN, MAX, AVG
+    }
+
+    @EqualsAndHashCode
+    private static final class Select {
+        private final Function function;
+        private final Mapper<?, ?, ?> field;
+        private final Mapper<?, ?, ?> groupBy;
+
+        private Select(final Function function, final Mapper<?, ?, ?> field, final Mapper<?, ?, ?> groupBy) {
+            this.function = function;
+            this.field = field;
+            this.groupBy = groupBy;
+        }
+    }
+
+    @EqualsAndHashCode
+    private static final class Order {
+        private final Mapper<?, ?, ?> field;
+        private final boolean ascending;
+
+        private Order(final Mapper<?, ?, ?> field, final boolean ascending) {
+            this.field = field;
+            this.ascending = ascending;
+        }
+    }
+
+    private final Repository<T, ?> repository;
+    private final List<Term> terms = new ArrayList<>();
+    private final List<Order> orders = new ArrayList<>();
+    private final List<Object> values = new ArrayList<>();
+
+    /**
+     * Creates a new instance, with no conditions.
+     *
+     * @param repository The repository queried
+     * @see Repository#query()
+     */
+    public Query(final Repository<T, ?> repository) {
+        this.repository = repository;
+    }
+
+    private Query<T> add(final Term term, final Object... termValues) {
+        terms.add(term);
+        values.addAll(Arrays.asList(termValues));
+        return this;
+    }
+
+    /**
+     * Adds a comparison, which must hold.
+     *
+     * @param field The field mapper
+     * @param op    The comparison
+     * @param value The value compared with, which must not be null
+     * @param <I>   The instance field type
+     * @return This query
+     */
+    public <I> Query<T> where(final Mapper<?, I, ?> field, final SqlOp op, final I value) {
+        return and(field, op, value);
+    }
+
+    /**
+     * Adds a comparison, which must hold.
+     *
+     * @param field The field mapper
+     * @param op    The comparison
+     * @param value The value compared with, which must not be null
+     * @param <I>   The instance field type
+     * @return This query
+     */
+    public <I> Query<T> and(final Mapper<?, I, ?> field, final SqlOp op, final I value) {
+        if (value == null) {
+            throw RepositoryException.badSetup("Use isNull to compare with null");
+        }
+        return add(new Term(Kind.COMPARE, field, op, 1), field.ser(value));
+    }
+
+    /**
+     * Begins an alternative set of conditions.
+     *
+     * @return This query
+     */
+    public Query<T> or() {
+        if (terms.isEmpty() || terms.get(terms.size() - 1).kind == Kind.OR) {
+            throw RepositoryException.badSetup("No conditions to OR with");
+        }
+        return add(new Term(Kind.OR, null, null, 0));
+    }
+
+    /**
+     * Adds a condition that the field has one of the given values, which must hold.
+     * No values never match. More values than the dialect allows in one list are split across several.
+     *
+     * @param field    The field mapper
+     * @param inValues The values
+     * @param <I>      The instance field type
+     * @return This query
+     */
+    public <I> Query<T> in(final Mapper<?, I, ?> field, final Collection<I> inValues) {
+        if (inValues.isEmpty()) {
+            return add(new Term(Kind.NONE, null, null, 0));
+        }
+        final List<I> given = new ArrayList<>(inValues);
+        if (given.contains(null)) {
+            throw RepositoryException.badSetup("Use isNull to compare with null");
+        }
+        final int maxSize = repository.getDialect().maxInSize();
+        final int lists = (given.size() + maxSize - 1) / maxSize;
+        final int full = (lists - 1) * maxSize;
+        final int last = InClauses.bucket(given.size() - full, maxSize);
+        final Object[] padded = new Object[full + last];
+        for (int i = 0; i < padded.length; i++) {
+            padded[i] = field.ser(given.get(Math.min(i, given.size() - 1)));
+        }
+        return add(new Term(Kind.IN, field, null, padded.length, maxSize), padded);
+    }
+
+    /**
+     * Adds a condition that the field is between the given values, inclusive, which must hold.
+     *
+     * @param field The field mapper
+     * @param low   The lowest value
+     * @param high  The highest value
+     * @param <I>   The instance field type
+     * @return This query
+     */
+    public <I> Query<T> between(final Mapper<?, I, ?> field, final I low, final I high) {
+        if (low == null || high == null) {
+            throw RepositoryException.badSetup("Use isNull to compare with null");
+        }
+        return add(new Term(Kind.BETWEEN, field, null, 2), field.ser(low), field.ser(high));
+    }
+
+    /**
+     * Adds a condition that the field is null, which must hold.
+     *
+     * @param field The field mapper
+     * @return This query
+     */
+    public Query<T> isNull(final Mapper<?, ?, ?> field) {
+        return add(new Term(Kind.IS_NULL, field, null, 0));
+    }
+
+    /**
+     * Adds a condition that the field is not null, which must hold.
+     *
+     * @param field The field mapper
+     * @return This query
+     */
+    public Query<T> isNotNull(final Mapper<?, ?, ?> field) {
+        return add(new Term(Kind.IS_NOT_NULL, field, null, 0));
+    }
+
+    /**
+     * Orders objects by a field, ascending, after any orderings already added.
+     *
+     * @param field The field mapper
+     * @return This query
+     */
+    public Query<T> orderBy(final Mapper<?, ?, ?> field) {
+        return orderBy(field, true);
+    }
+
+    /**
+     * Orders objects by a field, after any orderings already added.
+     *
+     * @param field     The field mapper
+     * @param ascending Whether to order ascending, else descending
+     * @return This query
+     */
+    public Query<T> orderBy(final Mapper<?, ?, ?> field, final boolean ascending) {
+        orders.add(new Order(field, ascending));
+        return this;
+    }
+
+    /**
+     * Returns the SQL for this query, generated once per shape of query.
+     *
+     * @return The parameterized SQL
+     */
+    public String sql() {
+        return sql(null);
+    }
+
+    private String sql(final Select select) {
+        if (!terms.isEmpty() && terms.get(terms.size() - 1).kind == Kind.OR) {
+            throw RepositoryException.badSetup("No conditions after OR");
+        }
+        final SqlDialect dialect = repository.getDialect();
+        if (values.size() > dialect.maxParameters()) {
+            throw RepositoryException.badSetup("Query binds " + values.size() + " values, more than the database allows");
+        }
+        final InvertibleRowMapper<T> mapper = repository.mapper();
+        final List<Object> shape = new ArrayList<>(terms.size() + orders.size() + 3);
+        shape.add(mapper);
+        shape.add(dialect);
+        shape.addAll(terms);
+        shape.add(Kind.OR);
+        if (select == null) {
+            shape.addAll(orders);
+        } else {
+            shape.add(select);
+        }
+        final List<Object> key = Collections.unmodifiableList(shape);
+        final String known = SQL.get(key);
+        if (known != null) {
+            return known;
+        }
+        final String generated = select == null ? generate(mapper) : generate(mapper, select, dialect);
+        if (SQL.size() >= MAX_CACHED) {
+            SQL.clear();
+        }
+        final String raced = SQL.putIfAbsent(key, generated);
+        return raced == null ? generated : raced;
+    }
+
+    /**
+     * Returns the values bound to the SQL for this query.
+     *
+     * @return The JDBC values
+     */
+    public Object[] values() {
+        return values.toArray();
+    }
+
+    /**
+     * Reads the objects this query selects.
+     *
+     * @return The objects
+     */
+    public List<T> list() {
+        return repository.getUnsafe(sql(), values());
+    }
+
+    /**
+     * Counts the objects this query selects.
+     *
+     * @return The count
+     */
+    public long count() {
+        return read(new Select(Function.COUNT, null, null), (rs, n) -> rs.getLong(1)).get(0);
+    }
+
+    /**
+     * Counts the objects this query selects, per value of a field.
+     *
+     * @param groupBy The field mapper to group by
+     * @param <K>     The instance field type grouped by
+     * @return The counts, by value, in ascending order of value
+     */
+    public <K> Map<K, Long> count(final Mapper<?, K, ?> groupBy) {
+        return grouped(new Select(Function.COUNT, null, groupBy), groupBy, (rs, column) -> rs.getLong(column));
+    }
+
+    /**
+     * Determines whether this query selects any objects.
+     *
+     * @return true if any object is selected
+     */
+    public boolean exists() {
+        return !read(new Select(null, null, null), (rs, n) -> true).isEmpty();
+    }
+
+    /**
+     * Sums a field of the objects this query selects.
+     *
+     * @param field The field mapper
+     * @param <I>   The instance field type
+     * @return The sum, or empty if no values are summed
+     */
+    public <I> Optional<I> sum(final Mapper<?, I, ?> field) {
+        return single(Function.SUM, field);
+    }
+
+    /**
+     * Sums a field of the objects this query selects, per value of another field.
+     *
+     * @param field   The field mapper
+     * @param groupBy The field mapper to group by
+     * @param <K>     The instance field type grouped by
+     * @param <I>     The instance field type
+     * @return The sums, by value, in ascending order of value
+     */
+    public <K, I> Map<K, I> sum(final Mapper<?, I, ?> field, final Mapper<?, K, ?> groupBy) {
+        return grouped(Function.SUM, field, groupBy);
+    }
+
+    /**
+     * Finds the least value of a field of the objects this query selects.
+     *
+     * @param field The field mapper
+     * @param <I>   The instance field type
+     * @return The least value, or empty if there are no values
+     */
+    public <I> Optional<I> min(final Mapper<?, I, ?> field) {
+        return single(Function.MIN, field);
+    }
+
+    /**
+     * Finds the least value of a field of the objects this query selects, per value of another field.
+     *
+     * @param field   The field mapper
+     * @param groupBy The field mapper to group by
+     * @param <K>     The instance field type grouped by
+     * @param <I>     The instance field type
+     * @return The least values, by value, in ascending order of value
+     */
+    public <K, I> Map<K, I> min(final Mapper<?, I, ?> field, final Mapper<?, K, ?> groupBy) {
+        return grouped(Function.MIN, field, groupBy);
+    }
+
+    /**
+     * Finds the greatest value of a field of the objects this query selects.
+     *
+     * @param field The field mapper
+     * @param <I>   The instance field type
+     * @return The greatest value, or empty if there are no values
+     */
+    public <I> Optional<I> max(final Mapper<?, I, ?> field) {
+        return single(Function.MAX, field);
+    }
+
+    /**
+     * Finds the greatest value of a field of the objects this query selects, per value of another field.
+     *
+     * @param field   The field mapper
+     * @param groupBy The field mapper to group by
+     * @param <K>     The instance field type grouped by
+     * @param <I>     The instance field type
+     * @return The greatest values, by value, in ascending order of value
+     */
+    public <K, I> Map<K, I> max(final Mapper<?, I, ?> field, final Mapper<?, K, ?> groupBy) {
+        return grouped(Function.MAX, field, groupBy);
+    }
+
+    /**
+     * Averages a field of the objects this query selects, as stored rather than as decoded.
+     *
+     * @param field The field mapper
+     * @return The average, or empty if no values are averaged
+     */
+    public Optional<Double> avg(final Mapper<?, ?, ?> field) {
+        return Optional.ofNullable(read(new Select(Function.AVG, field, null), (rs, n) -> average(rs, 1)).get(0));
+    }
+
+    /**
+     * Averages a field of the objects this query selects, as stored rather than as decoded, per value of another field.
+     *
+     * @param field   The field mapper
+     * @param groupBy The field mapper to group by
+     * @param <K>     The instance field type grouped by
+     * @return The averages, by value, in ascending order of value
+     */
+    public <K> Map<K, Double> avg(final Mapper<?, ?, ?> field, final Mapper<?, K, ?> groupBy) {
+        return grouped(new Select(Function.AVG, field, groupBy), groupBy, Query::average);
+    }
+
+    @FunctionalInterface
+    private interface ColumnReader<V> {
+        V read(final ResultSet rs, final int column) throws SQLException;
+    }
+
+    private <R> List<R> read(final Select select, final RowMapper<R> rowMapper) {
+        return repository.readUnsafe(sql(select), rowMapper, values());
+    }
+
+    private <I> Optional<I> single(final Function function, final Mapper<?, I, ?> field) {
+        return Optional.ofNullable(read(new Select(function, field, null), (rs, n) -> decode(field, rs, 1)).get(0));
+    }
+
+    private <K, I> Map<K, I> grouped(final Function function, final Mapper<?, I, ?> field, final Mapper<?, K, ?> groupBy) {
+        return grouped(new Select(function, field, groupBy), groupBy, (rs, column) -> decode(field, rs, column));
+    }
+
+    private <K, V> Map<K, V> grouped(final Select select, final Mapper<?, K, ?> groupBy, final ColumnReader<V> reader) {
+        final Map<K, V> found = new LinkedHashMap<>();
+        for (final Map.Entry<K, V> each : read(select, (rs, n) ->
+                new AbstractMap.SimpleImmutableEntry<>(decode(groupBy, rs, 1), reader.read(rs, 2)))) {
+            found.put(each.getKey(), each.getValue());
+        }
+        return found;
+    }
+
+    private static <I, O> I decode(final Mapper<?, I, O> field, final ResultSet rs, final int column) {
+        return field.des(field.from(rs, column));
+    }
+
+    private static Double average(final ResultSet rs, final int column) throws SQLException {
+        final double average = rs.getDouble(column);
+        return rs.wasNull() ? null : average;
+    }
+
+    private String generate(final InvertibleRowMapper<T> mapper) {
+        final boolean joining = mapper instanceof JoiningRowMapper;
+        final StringBuilder sql = new StringBuilder(mapper.select());
+        if (!terms.isEmpty()) {
+            final String conditions = conditions(mapper);
+            if (joining) {
+                final String id = mapper.column(mapper.idMapper());
+                sql.append("\nWHERE ").append(id).append(" IN (SELECT ").append(id).append(mapper.from())
+                        .append("WHERE ").append(conditions).append(")");
+            } else {
+                sql.append(" WHERE ").append(conditions);
+            }
+        }
+        if (!orders.isEmpty()) {
+            sql.append(joining ? "\nORDER BY " : " ORDER BY ");
+            for (int o = 0; o < orders.size(); o++) {
+                final Order order = orders.get(o);
+                final String column = mapper.column(order.field);
+                if (joining && !column.startsWith(prefix(0) + ".")) {
+                    throw RepositoryException.badSetup("Joined objects may only be ordered by primary fields");
+                }
+                sql.append(o == 0 ? "" : ", ").append(column).append(order.ascending ? " ASC" : " DESC");
+            }
+            if (joining) {
+                // keeps each object's rows together
+                sql.append(", ").append(mapper.column(mapper.idMapper())).append(" ASC");
+            }
+        }
+        return sql.toString();
+    }
+
+    private String generate(final InvertibleRowMapper<T> mapper, final Select select, final SqlDialect dialect) {
+        final boolean joining = mapper instanceof JoiningRowMapper;
+        final String id = joining ? mapper.column(mapper.idMapper()) : null;
+        final String group = select.groupBy == null ? null : mapper.column(select.groupBy);
+        // when no joined table is referred to, each object is one row of the primary table
+        final boolean primaryOnly = joining && (group == null || group.startsWith(prefix(0) + "."))
+                && terms.stream().allMatch((t) -> t.field == null || mapper.column(t.field).startsWith(prefix(0) + "."));
+        final StringBuilder sql = new StringBuilder("SELECT ");
+        if (group != null) {
+            sql.append(group).append(", ");
+        }
+        if (select.function == null) {
+            sql.append("1");
+        } else if (select.function == Function.COUNT) {
+            sql.append(joining && !primaryOnly ? "COUNT(DISTINCT " + id + ")" : "COUNT(*)");
+        } else {
+            final String column = mapper.column(select.field);
+            if (joining && !(column.startsWith(prefix(0) + ".") && (group == null || group.startsWith(prefix(0) + ".")))) {
+                throw RepositoryException.badSetup("Joined objects may only be aggregated by primary fields");
+            }
+            sql.append(select.function.name()).append("(").append(column).append(")");
+        }
+        final String gap = joining ? "" : " ";
+        if (primaryOnly) {
+            sql.append("\nFROM ").append(mapper.table()).append(" ").append(prefix(0)).append("\n");
+            if (!terms.isEmpty()) {
+                sql.append("WHERE ").append(conditions(mapper)).append("\n");
+            }
+        } else if (joining && select.function != null && select.function != Function.COUNT) {
+            // each object counts once however many rows it joins to
+            sql.append("\nFROM ").append(mapper.table()).append(" ").append(prefix(0)).append("\n");
+            if (!terms.isEmpty()) {
+                sql.append("WHERE ").append(id).append(" IN (SELECT ").append(id).append(mapper.from())
+                        .append("WHERE ").append(conditions(mapper)).append(")\n");
+            }
+        } else {
+            sql.append(mapper.from());
+            if (!terms.isEmpty()) {
+                sql.append(gap).append("WHERE ").append(conditions(mapper)).append(joining ? "\n" : "");
+            }
+        }
+        if (group != null) {
+            sql.append(gap).append("GROUP BY ").append(group).append(" ORDER BY ").append(group);
+        }
+        return select.function == null && group == null ? dialect.first(sql.toString()) : sql.toString();
+    }
+
+    private String conditions(final InvertibleRowMapper<T> mapper) {
+        final boolean alternatives = terms.stream().anyMatch((t) -> t.kind == Kind.OR);
+        final StringBuilder sql = new StringBuilder(alternatives ? "(" : "");
+        boolean first = true;
+        for (final Term term : terms) {
+            if (term.kind == Kind.OR) {
+                sql.append(") OR (");
+                first = true;
+                continue;
+            }
+            sql.append(first ? "" : " AND ");
+            first = false;
+            if (term.kind == Kind.NONE) {
+                sql.append("1 = 0");
+                continue;
+            }
+            if (term.kind == Kind.IN) {
+                in(sql, mapper.column(term.field), term);
+                continue;
+            }
+            sql.append(mapper.column(term.field));
+            switch (term.kind) {
+                case COMPARE:
+                    sql.append(" ").append(term.op.sql).append(" ?");
+                    break;
+                case BETWEEN:
+                    sql.append(" BETWEEN ? AND ?");
+                    break;
+                case IS_NULL:
+                    sql.append(" IS NULL");
+                    break;
+                default:
+                    sql.append(" IS NOT NULL");
+                    break;
+            }
+        }
+        return sql.append(alternatives ? ")" : "").toString();
+    }
+
+    /**
+     * Appends an {@code IN} term, as alternative lists if it has more than one.
+     */
+    private static void in(final StringBuilder sql, final String column, final Term term) {
+        if (term.size <= term.listSize) {
+            sql.append(column).append(" IN ").append(InClauses.placeholders(term.size));
+            return;
+        }
+        sql.append("(");
+        for (int from = 0; from < term.size; from += term.listSize) {
+            sql.append(from == 0 ? "" : " OR ").append(column).append(" IN ")
+                    .append(InClauses.placeholders(Math.min(term.listSize, term.size - from)));
+        }
+        sql.append(")");
+    }
+}
@@ -0,0 +1,368 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import net.zethmayr.benjamin.spring.common.mapper.base.InvertibleRowMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.Mapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.SqlOp;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A persistent indexed object store over an SQL database table.
+ *
+ * @param <T> The type of object persisted
+ * @param <X> The index type
+ */
+public interface Repository<T, X> {
+    /**
+     * Rebinds this repository to participate in a join - primarily internal usage.
+     * @param relation A relation
+     * @param idMapper The related mapper
+     * @return A re-bound copy of this repository.
+     */
+    Repository<T, X> rebindWithRelatedIndex(final SqlOp relation, final Mapper<T, ?, X> idMapper);
+
+    /**
+     * Persists an object to the repository, returning the index.
+     * Where applicable, the object may be updated with the generated index value.
+     *
+     * @param toInsert The object to insert
+     * @return The index, which may have been newly generated
+     */
+    X insert(final T toInsert);
+
+    /**
+     * Persists objects to the repository, returning their indexes in iteration order.
+     * Where applicable, the objects may be updated with generated index values.
+     *
+     * @param toInsert The objects to insert
+     * @return The indexes, which may have been newly generated
+     */
+    default List<X> insertAll(final Collection<T> toInsert) {
+        final List<X> indexes = new ArrayList<>(toInsert.size());
+        for (final T each : toInsert) {
+            indexes.add(insert(each));
+        }
+        return indexes;
+    }
+
+    /**
+     * Deletes a persisted object.
+     *
+     * @param toDelete The index of the object to delete
+     */
+    void delete(final X toDelete);
+
+    /**
+     * Deletes a persisted object.
+     *
+     * @param toDelete The object (having the same index as the object) to delete
+     */
+    void deleteMonadic(final T toDelete);
+
+    /**
+     * Writes changes to a persisted object, which is found by its own index.
+     * By default, this is not supported.
+     *
+     * @param toUpdate The object to update
+     * @throws RepositoryException unless overridden
+     */
+    default void update(final T toUpdate) {
+        throw RepositoryException.unsupported("update");
+    }
+
+    /**
+     * Writes changes to persisted objects, each of which is found by its own index.
+     * Repositories which can, do this in a few statements rather than one per object,
+     * and write only the fields changed since each object was read.
+     *
+     * @param toUpdate The objects to update
+     */
+    default void updateAll(final Collection<T> toUpdate) {
+        for (final T each : toUpdate) {
+            update(each);
+        }
+    }
+
+    /**
+     * Persists objects to the repository, replacing any persisted objects having the same indexes,
+     * and returns their indexes in iteration order.
+     * Objects without indexes are inserted, and may be updated with generated index values.
+     * By default, each object found by its index is updated, and each other object is inserted,
+     * so objects with indexes not found may also be given generated index values.
+     *
+     * @param toUpsert The objects to insert or replace
+     * @return The indexes, which may have been newly generated
+     */
+    default List<X> upsertAll(final Collection<T> toUpsert) {
+        // as for insert, the first mapper is the idMapper.
+        @SuppressWarnings("unchecked") final Mapper<T, ?, X> idMapper = (Mapper<T, ?, X>) mapper().fields().get(0);
+        final List<X> indexes = new ArrayList<>(toUpsert.size());
+        for (final T each : toUpsert) {
+            final X id = idMapper.serFrom(each);
+            if (id != null && getMonadic(each).isPresent()) {
+                update(each);
+                indexes.add(id);
+            } else {
+                indexes.add(insert(each));
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Deletes the persisted objects having the given indexes.
+     * Repositories which can, do this in a few statements rather than one per index.
+     *
+     * @param toDelete The indexes of the objects to delete
+     */
+    default void deleteAll(final Collection<X> toDelete) {
+        for (final X id : new LinkedHashSet<>(toDelete)) {
+            if (id != null) {
+                delete(id);
+            }
+        }
+    }
+
+    void deleteUnsafe(final String whereClause, final X toDelete);
+
+    /**
+     * Returns the INSERT query used to insert objects.
+     *
+     * @return The INSERT query used to insert objects
+     */
+    String insert();
+
+    /**
+     * Returns the mapper used to persist objects.
+     *
+     * @return The mapper used to persist objects
+     */
+    InvertibleRowMapper<T> mapper();
+
+    /**
+     * Find a mapper for the given table and field name
+     * @param table The table name - if null, may be defaulted
+     * @param fieldName The field name
+     * @param <C> The mapped type
+     * @param <I> The internal type
+     * @param <O> The external type
+     * @return Any such mapper found, or null if none
+     */
+    <C, I, O> Mapper<C, I, O> findMapper(final String table, final String fieldName);
+
+    /**
+     * Finds a mapper for the given field name
+     * @param fieldName The field name
+     * @param <C> The mapped type
+     * @param <I> The internal type
+     * @param <O> The external type
+     * @return Any such mapper found, or null if none
+     */
+    <C, I, O> Mapper<C, I, O> findMapper(final String fieldName);
+
+    /**
+     * Returns the SELECT query used to retrieve objects.
+     *
+     * @return The SELECT query used to retrieve objects
+     */
+    String select();
+
+    /**
+     * Retrieves a persisted object.
+     *
+     * @param withId The object (having the same index as the object) to retrieve
+     * @return The persisted object
+     */
+    Optional<T> getMonadic(final T withId);
+
+    /**
+     * Retrieves a persisted object.
+     *
+     * @param id The index of the object to retrieve
+     * @return The persisted object
+     */
+    Optional<T> get(final X id);
+
+    /**
+     * Retrieves all persisted objects having the given index value.
+     * This applies primarily to repositories which are
+     * not the primary (inserting) repository for a given table.
+     *
+     * @param id The index value to retrieve for
+     * @return A list of persisted objects
+     */
+    List<T> getFor(final X id);
+
+    /**
+     * Retrieves all persisted objects having any of the given index values.
+     * Repositories which can, do this in a few queries rather than one per value.
+     * Null values are skipped, as are repeats.
+     *
+     * @param ids The index values to retrieve for
+     * @return A list of persisted objects
+     */
+    default List<T> getForAll(final Collection<X> ids) {
+        final List<T> found = new ArrayList<>();
+        for (final X id : new LinkedHashSet<>(ids)) {
+            if (id != null) {
+                found.addAll(getFor(id));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Retrieves the persisted objects having the given indexes, in the order the indexes are given.
+     * Indexes not found are skipped, as are repeats.
+     *
+     * @param ids The indexes of the objects to retrieve
+     * @return A list of persisted objects
+     * @see #getAllById(Collection)
+     */
+    default List<T> getAll(final Collection<X> ids) {
+        return new ArrayList<>(getAllById(ids).values());
+    }
+
+    /**
+     * Retrieves the persisted objects having the given indexes.
+     * Repositories which can, do this in a few queries rather than one per index.
+     *
+     * @param ids The indexes of the objects to retrieve
+     * @return The persisted objects found, by index, in the order the indexes are given
+     */
+    default Map<X, T> getAllById(final Collection<X> ids) {
+        final Map<X, T> found = new LinkedHashMap<>();
+        for (final X id : new LinkedHashSet<>(ids)) {
+            if (id != null) {
+                get(id).ifPresent((each) -> found.put(id, each));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Retrieves all persisted objects, in index order.
+     *
+     * @return The list of persisted objects
+     */
+    List<T> getAll();
+
+    /**
+     * Retrieves a page of persisted objects, in index order, having indexes after the given one.
+     * Pass null for the first page, then the index of the last object of each page for the next;
+     * unlike offsets, this reads only the objects returned, and is not disturbed by concurrent inserts.
+     *
+     * By default, this filters {@link #getAll()}, so reads every object; repositories which can, override it.
+     *
+     * @param after The index to read after, or null to read from the start
+     * @param limit The most objects to return
+     * @return A list of persisted objects, empty after the last page
+     */
+    @SuppressWarnings("unchecked") // indexes are ordered, as getAll is
+    default List<T> page(final X after, final int limit) {
+        if (limit < 1) {
+            throw RepositoryException.badSetup("Page size must be positive");
+        }
+        // as for insert, the first mapper is the idMapper.
+        final Mapper<T, ?, X> idMapper = (Mapper<T, ?, X>) mapper().fields().get(0);
+        return getAll().stream()
+                .filter((each) -> after == null || ((Comparable<X>) idMapper.serFrom(each)).compareTo(after) > 0)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Streams all persisted objects, reading them as the stream is consumed where possible.
+     * The stream may hold a database connection, so should be closed, as with try-with-resources.
+     *
+     * @return A stream of persisted objects
+     */
+    default Stream<T> stream() {
+        return getAll().stream();
+    }
+
+    /**
+     * Performs an action for each persisted object, as read from {@link #stream()}.
+     *
+     * @param action The action
+     */
+    default void forEach(final Consumer<? super T> action) {
+        try (final Stream<T> all = stream()) {
+            all.forEach(action);
+        }
+    }
+
+    /**
+     * Executes arbitrary SQL to retrieve objects. Quite possibly a bad idea.
+     *
+     * @param sql    SQL which hopefully includes the fields the mapper is looking for
+     * @param values The parameters for the given SQL which hopefully is parameterized
+     * @return A list of persisted objects
+     */
+    List<T> getUnsafe(final String sql, final Object... values);
+
+    /**
+     * Executes arbitrary SQL to retrieve values other than objects. Also quite possibly a bad idea.
+     * {@link Query#count() Counts}, {@link Query#exists() existence checks} and aggregates read through this;
+     * by default, it is not supported, so neither are they.
+     *
+     * @param sql       Parameterized SQL
+     * @param rowMapper The row mapper for the values retrieved
+     * @param values    The parameters for the given SQL
+     * @param <R>       The type of value retrieved
+     * @return A list of values, one per row
+     * @throws RepositoryException unless overridden
+     */
+    default <R> List<R> readUnsafe(final String sql, final RowMapper<R> rowMapper, final Object... values) {
+        throw RepositoryException.unsupported("readUnsafe");
+    }
+
+    /**
+     * Returns the SQL dialect queries are adapted to.
+     * By default, only portable SQL is used.
+     *
+     * @return The SQL dialect
+     */
+    default SqlDialect getDialect() {
+        return SqlDialect.OTHER;
+    }
+
+    /**
+     * Begins a query for objects matching conditions on their fields.
+     *
+     * @return A new query, with no conditions
+     */
+    default Query<T> query() {
+        return new Query<>(this);
+    }
+
+    /**
+     * Counts all persisted objects, without reading them.
+     *
+     * @return The count
+     * @see Query#count()
+     */
+    default long count() {
+        return query().count();
+    }
+
+    /**
+     * Determines whether any objects are persisted, without reading them.
+     *
+     * @return true if any are
+     * @see Query#exists()
+     */
+    default boolean exists() {
+        return query().exists();
+    }
+}
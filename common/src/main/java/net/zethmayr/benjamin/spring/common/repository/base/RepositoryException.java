@@ -73,4 +73,14 @@ public class RepositoryException extends RuntimeException {
     public static RepositoryException badSetup(final String what) {
         return new RepositoryException("Bad repository setup: "+what);
     }
+
+    /**
+     * Create an exception because a repository does not support an operation
+     *
+     * @param what the operation
+     * @return An exception
+     */
+    public static RepositoryException unsupported(final String what) {
+        return new RepositoryException("Unsupported repository operation: "+what);
+    }
 }
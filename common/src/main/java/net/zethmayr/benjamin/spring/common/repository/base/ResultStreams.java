@@ -0,0 +1,109 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams query results which hold their connection until the stream is closed.
+ */
+final class ResultStreams {
+    private ResultStreams() {
+    }
+
+    /**
+     * Executes a query, returning a stream over the instances read from it.
+     * The connection is obtained as by {@link JdbcTemplate}, so joins any current transaction,
+     * and is released when the stream is closed.
+     * Errors reading the stream are thrown as {@link RepositoryException}s.
+     *
+     * @param jdbcTemplate The JDBC template
+     * @param sql          The query
+     * @param fetchSize    The JDBC fetch size
+     * @param iterate      Produces an iterator reading from the open result set
+     * @param args         The query parameters
+     * @param <T>          The instance type
+     * @return A stream which must be closed
+     */
+    static <T> Stream<T> stream(final JdbcTemplate jdbcTemplate, final String sql, final int fetchSize,
+                                final Function<ResultSet, Iterator<T>> iterate, final Object... args) {
+        final DataSource dataSource = Objects.requireNonNull(jdbcTemplate.getDataSource());
+        final Connection con = DataSourceUtils.getConnection(dataSource);
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            new ArgumentPreparedStatementSetter(args).setValues(ps);
+            rs = ps.executeQuery();
+            final PreparedStatement openPs = ps;
+            final ResultSet openRs = rs;
+            return StreamSupport.stream(
+                    Spliterators.spliteratorUnknownSize(new Wrapping<>(iterate.apply(rs)), Spliterator.ORDERED | Spliterator.NONNULL),
+                    false
+            ).onClose(() -> release(openRs, openPs, con, dataSource));
+        } catch (SQLException sqle) {
+            release(rs, ps, con, dataSource);
+            throw jdbcTemplate.getExceptionTranslator().translate("stream", sql, sqle);
+        } catch (RuntimeException | Error e) {
+            release(rs, ps, con, dataSource);
+            throw e;
+        }
+    }
+
+    /**
+     * Rethrows errors from an iterator as {@link RepositoryException}s.
+     *
+     * @param <T> The instance type
+     */
+    private static final class Wrapping<T> implements Iterator<T> {
+        private final Iterator<T> read;
+
+        private Wrapping(final Iterator<T> read) {
+            this.read = read;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return read.hasNext();
+            } catch (RepositoryException rethrow) {
+                throw rethrow;
+            } catch (RuntimeException e) {
+                throw RepositoryException.because(e);
+            }
+        }
+
+        @Override
+        public T next() {
+            try {
+                return read.next();
+            } catch (RepositoryException | NoSuchElementException rethrow) {
+                throw rethrow;
+            } catch (RuntimeException e) {
+                throw RepositoryException.because(e);
+            }
+        }
+    }
+
+    private static void release(final ResultSet rs, final PreparedStatement ps, final Connection con, final DataSource dataSource) {
+        JdbcUtils.closeResultSet(rs);
+        JdbcUtils.closeStatement(ps);
+        DataSourceUtils.releaseConnection(con, dataSource);
+    }
+}
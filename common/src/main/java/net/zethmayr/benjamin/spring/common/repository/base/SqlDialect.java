@@ -0,0 +1,183 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The SQL dialects repositories adapt their queries to, as detected from database metadata.
+ */
+public enum SqlDialect {
+    H2("H2", 1024, Integer.MAX_VALUE),
+    POSTGRES("PostgreSQL", 1024, 32767),
+    MYSQL("MySQL", 1024, 65535),
+    MARIADB("MariaDB", 1024, 65535),
+    ORACLE("Oracle", 1000, 65535),
+    SQL_SERVER("Microsoft SQL Server", 1024, 2100),
+    /**
+     * Any other database, for which only portable SQL is used.
+     */
+    OTHER("", 500, 999);
+
+    private static final Logger LOG = LoggerFactory.getLogger(SqlDialect.class);
+
+    private final String productName;
+    private final int maxInSize;
+    private final int maxParameters;
+
+    SqlDialect(final String productName, final int maxInSize, final int maxParameters) {
+        this.productName = productName;
+        this.maxInSize = maxInSize;
+        this.maxParameters = maxParameters;
+    }
+
+    /**
+     * Returns the most values to bind into a single {@code IN} list.
+     *
+     * @return The maximum {@code IN} list size
+     */
+    public int maxInSize() {
+        return maxInSize;
+    }
+
+    /**
+     * Returns the most values to bind into a single statement.
+     *
+     * @return The maximum parameter count
+     */
+    public int maxParameters() {
+        return maxParameters;
+    }
+
+    /**
+     * Returns a statement inserting a row, or replacing the row having the same key,
+     * where the dialect has one. Values are bound in the order of the columns.
+     * Keys written this way may not advance the key's sequence; see {@link #resyncSequence}.
+     *
+     * @param table   The table name
+     * @param columns The columns written, including the key
+     * @param key     The key column
+     * @return A parameterized statement, or null if the dialect has none
+     */
+    public String upsert(final String table, final List<String> columns, final String key) {
+        final String names = String.join(", ", columns);
+        final String values = columns.stream().map((c) -> "?").collect(Collectors.joining(", "));
+        switch (this) {
+            case H2:
+                return "MERGE INTO " + table + " (" + names + ") KEY (" + key + ") VALUES (" + values + ")";
+            case POSTGRES:
+                return "INSERT INTO " + table + " (" + names + ") VALUES (" + values + ") ON CONFLICT (" + key + ") " +
+                        (columns.size() > 1
+                                ? "DO UPDATE SET " + assignments(columns, key, "EXCLUDED.", "")
+                                : "DO NOTHING");
+            case MYSQL:
+            case MARIADB:
+                return "INSERT INTO " + table + " (" + names + ") VALUES (" + values + ") ON DUPLICATE KEY UPDATE " +
+                        (columns.size() > 1
+                                ? assignments(columns, key, "VALUES(", ")")
+                                : key + " = " + key);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns an ordered query, limited to a number of rows bound as a parameter after any of its own.
+     *
+     * @param orderedQuery A query ending with an {@code ORDER BY} clause
+     * @return The limited query
+     */
+    public String limit(final String orderedQuery) {
+        switch (this) {
+            case ORACLE:
+                return orderedQuery + " FETCH FIRST ? ROWS ONLY";
+            case SQL_SERVER:
+                return orderedQuery + " OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+            default:
+                return orderedQuery + " LIMIT ?";
+        }
+    }
+
+    /**
+     * Returns a query limited to its first row.
+     *
+     * @param query A query beginning with {@code SELECT}
+     * @return The limited query
+     */
+    public String first(final String query) {
+        switch (this) {
+            case ORACLE:
+                return query + " FETCH FIRST 1 ROWS ONLY";
+            case SQL_SERVER:
+                return "SELECT TOP 1 " + query.substring("SELECT ".length());
+            default:
+                return query + " LIMIT 1";
+        }
+    }
+
+    /**
+     * Returns a statement moving the sequence generating a key column past the largest key in a table,
+     * where the dialect does not do so when keys are written explicitly, as by {@link #upsert}.
+     *
+     * @param table The table name
+     * @param key   The generated key column
+     * @return A statement, or null if none is needed
+     */
+    public String resyncSequence(final String table, final String key) {
+        switch (this) {
+            case POSTGRES:
+                return "SELECT setval(pg_get_serial_sequence('" + table + "', '" + key + "'), " +
+                        "COALESCE(MAX(" + key + "), 0) + 1, false) FROM " + table;
+            default:
+                return null;
+        }
+    }
+
+    private static String assignments(final List<String> columns, final String key, final String before, final String after) {
+        return columns.stream()
+                .filter((c) -> !c.equals(key))
+                .map((c) -> c + " = " + before + c + after)
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Returns the dialect for a database product name, as reported by JDBC metadata.
+     *
+     * @param productName The product name
+     * @return The dialect, or {@link #OTHER} if not recognized
+     */
+    public static SqlDialect forProductName(final String productName) {
+        if (productName != null) {
+            for (final SqlDialect dialect : values()) {
+                if (dialect != OTHER && productName.startsWith(dialect.productName)) {
+                    return dialect;
+                }
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * Detects the dialect of the database a JDBC template connects to.
+     *
+     * @param jdbcTemplate The JDBC template
+     * @return The dialect, or {@link #OTHER} if it cannot be detected
+     */
+    public static SqlDialect of(final JdbcTemplate jdbcTemplate) {
+        final DataSource dataSource = jdbcTemplate == null ? null : jdbcTemplate.getDataSource();
+        if (dataSource == null) {
+            return OTHER;
+        }
+        try {
+            return forProductName((String) JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName"));
+        } catch (Exception e) {
+            LOG.warn("Could not detect the SQL dialect", e);
+            return OTHER;
+        }
+    }
+}
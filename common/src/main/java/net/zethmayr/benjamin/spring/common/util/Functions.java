@@ -0,0 +1,87 @@
+package net.zethmayr.benjamin.spring.common.util;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import static net.zethmayr.benjamin.spring.common.Constants.MONEY_CONTEXT;
+
+/**
+ * Arguably useful functions.
+ */
+public final class Functions {
+    private Functions() {
+    }
+
+    /**
+     * Converts an arbitrary precision number to U.S. money format.
+     *
+     * @param number A number
+     * @return A money number
+     */
+    public static BigDecimal money(final BigDecimal number) {
+        return number.setScale(2, MONEY_CONTEXT.getRoundingMode());
+    }
+
+    /**
+     * Converts an arbitrary precision number to U.S. money format.
+     *
+     * @param number A numeric string
+     * @return A money number
+     */
+    public static BigDecimal money(final String number) {
+        return money(new BigDecimal(number, MONEY_CONTEXT));
+    }
+
+    /**
+     * Returns the bit representing an enum constant in a bitmask.
+     *
+     * @param value An enum constant
+     * @param bit   Returns each constant's stable bit position, from 0 to 63
+     * @param <E>   The enum type
+     * @return The constant's bit
+     */
+    public static <E extends Enum<E>> long bitmask(final E value, final ToIntFunction<E> bit) {
+        final int position = bit.applyAsInt(value);
+        if (position < 0 || position >= Long.SIZE) {
+            throw new IllegalArgumentException(value + " has no bit position: " + position);
+        }
+        return 1L << position;
+    }
+
+    /**
+     * Converts a set of enum constants to a bitmask.
+     *
+     * @param values A set of constants
+     * @param bit    Returns each constant's stable bit position, from 0 to 63
+     * @param <E>    The enum type
+     * @return A bitmask
+     */
+    public static <E extends Enum<E>> long bitmask(final Set<E> values, final ToIntFunction<E> bit) {
+        long bits = 0L;
+        for (final E value : values) {
+            bits |= bitmask(value, bit);
+        }
+        return bits;
+    }
+
+    /**
+     * Converts a bitmask to a set of enum constants. Bits of no constant are ignored.
+     *
+     * @param enumClass The enum class
+     * @param bitmask   A bitmask
+     * @param bit       Returns each constant's stable bit position, from 0 to 63
+     * @param <E>       The enum type
+     * @return A new set
+     */
+    public static <E extends Enum<E>> EnumSet<E> enumSet(final Class<E> enumClass, final long bitmask, final ToIntFunction<E> bit) {
+        final EnumSet<E> values = EnumSet.noneOf(enumClass);
+        for (final E value : enumClass.getEnumConstants()) {
+            if ((bitmask & bitmask(value, bit)) != 0L) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+}
@@ -38,5 +38,6 @@ public class TestItemMapper extends InvertibleRowMapperBase<TestItem> {
     public static final String TABLE = "items";
     public TestItemMapper() {
         super(TestItem.class, FIELDS, TABLE, TestItem::new);
+        generateCodec();
     }
 }
@@ -53,6 +53,10 @@ public class TestOrderMapper extends JoiningRowMapper<TestOrder> {
     }
 
     public TestOrderMapper() {
+        this(MapperAndJoin.FetchStyle.EAGER);
+    }
+
+    public TestOrderMapper(final MapperAndJoin.FetchStyle fetchItems) {
         super(new CoreMapper(),
                 MapperAndJoin.<TestOrder, TestUser, Integer>builder()
                         .mapper(new TestUserMapper())
@@ -73,6 +77,7 @@ public class TestOrderMapper extends JoiningRowMapper<TestOrder> {
                         .relatedField(TestOrderItemMapper.CoreMapper.ORDER_ID)
                         .insertions(MapperAndJoin.InsertStyle.NEEDS_PARENT_ID)
                         .deletions(MapperAndJoin.DeleteStyle.USE_PARENT_ID)
+                        .fetch(fetchItems)
                         .build(),
                 MapperAndJoin.<TestOrder, TestOrderSummary, Integer>builder()
                         .mapper(new TestOrderSummaryMapper())
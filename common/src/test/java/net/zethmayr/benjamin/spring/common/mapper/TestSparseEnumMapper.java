@@ -0,0 +1,33 @@
+package net.zethmayr.benjamin.spring.common.mapper;
+
+import net.zethmayr.benjamin.spring.common.mapper.base.ClassFieldMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.ComposedMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.EnumRowMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.Mapper;
+import net.zethmayr.benjamin.spring.common.model.TestEnum;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Maps {@link TestEnum} with ids too far apart to index an array.
+ */
+public class TestSparseEnumMapper extends EnumRowMapper<TestEnum> {
+    public static final int SPACING = 1_000_000;
+
+    public static final Mapper<TestEnum, TestEnum, Integer> ID =
+            ComposedMapper.enumId(
+                    (e) -> e.ordinal() * SPACING,
+                    (id) -> TestEnum.fromOrdinal(id / SPACING)
+            );
+
+    public static final List<ClassFieldMapper<TestEnum>> FIELDS = Collections.unmodifiableList(Arrays.asList(
+            ID, TestEnumMapper.N, TestEnumMapper.INDICATION
+    ));
+    public static final String TABLE = "sparse_responses";
+
+    public TestSparseEnumMapper() {
+        super(TestEnum.YES, FIELDS, TABLE);
+    }
+}
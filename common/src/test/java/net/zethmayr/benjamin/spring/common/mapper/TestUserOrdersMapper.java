@@ -6,6 +6,7 @@ import net.zethmayr.benjamin.spring.common.model.TestOrder;
 import net.zethmayr.benjamin.spring.common.model.TestUser;
 
 import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.DeleteStyle.USE_PARENT_ID;
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.FetchStyle.EAGER;
 import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.InsertStyle.NEEDS_PARENT_ID;
 import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.collection;
 import static net.zethmayr.benjamin.spring.common.mapper.base.SqlOp.EQ;
@@ -15,9 +16,17 @@ import static net.zethmayr.benjamin.spring.common.mapper.base.SqlOp.EQ;
  */
 public class TestUserOrdersMapper extends JoiningRowMapper<TestUser> {
     public TestUserOrdersMapper() {
+        this(EAGER);
+    }
+
+    public TestUserOrdersMapper(final MapperAndJoin.FetchStyle fetchOrders) {
+        this(fetchOrders, EAGER);
+    }
+
+    public TestUserOrdersMapper(final MapperAndJoin.FetchStyle fetchOrders, final MapperAndJoin.FetchStyle fetchItems) {
         super(new TestUserMapper(),
                 MapperAndJoin.<TestUser, TestOrder, Integer>builder()
-                        .mapper(new TestOrderMapper())
+                        .mapper(new TestOrderMapper(fetchItems))
                         .parentField(TestUserMapper.ID)
                         .acceptor((u, o) -> u.getOrders().add(o))
                         .getter(collection(TestUser::getOrders))
@@ -25,6 +34,7 @@ public class TestUserOrdersMapper extends JoiningRowMapper<TestUser> {
                         .relatedField(TestOrderMapper.CoreMapper.USER_ID)
                         .deletions(USE_PARENT_ID)
                         .insertions(NEEDS_PARENT_ID)
+                        .fetch(fetchOrders)
                         .build());
     }
 }
@@ -1,12 +1,17 @@
 package net.zethmayr.benjamin.spring.common.mapper.base;
 
 import lombok.val;
+import net.zethmayr.benjamin.spring.common.model.History;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.security.SecureRandom;
+import java.sql.ResultSet;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 import static net.zethmayr.benjamin.spring.common.mapper.base.ColumnType.INSTANT;
 import static net.zethmayr.benjamin.spring.common.mapper.base.ColumnType.INTEGER;
@@ -18,6 +23,10 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.isA;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 public class ColumnTypeTest {
 
@@ -38,6 +47,68 @@ public class ColumnTypeTest {
         assertThat(LONG.setterFactory(), isA(PsSetterFactory.class));
     }
 
+    @Test
+    public void enumSetsAreBitmasksByStableBits() {
+        final Mapper<Set<History>, Set<History>, Long> mapper = ComposedMapper.enumSet("events", History.class, History::bit, (s) -> s, (s, v) -> {});
+        assertThat(mapper.getColumnType(), is(LONG));
+        final Set<History> events = EnumSet.of(History.MAGNA_CARTA, History.DECLARATION_OF_INDEPENDENCE);
+        assertThat(mapper.ser(events), is(1L << 12 | 1L << 17));
+        assertThat(mapper.des(1L << 12 | 1L << 17), is(events));
+        assertThat(mapper.ser(EnumSet.noneOf(History.class)), is(0L));
+    }
+
+    @Test
+    public void enumSetBitsMustBeDistinct() {
+        thrown.expect(MappingException.class);
+        ComposedMapper.enumSet("events", History.class, (event) -> 1, (Set<History> s) -> s, (s, v) -> {});
+    }
+
+    @Test
+    public void mappersReadByLabelWithoutColumnGetters() throws Exception {
+        final ColumnType<String> shouting = new ColumnType<String>() {
+            @Override
+            public RsGetterFactory<String> getterFactory() {
+                return (fieldName) -> (rs) -> RsGetterFactory.string(fieldName).from(rs).toUpperCase();
+            }
+
+            @Override
+            public PsSetterFactory<String> setterFactory() {
+                return SHORT_STRING.setterFactory();
+            }
+
+            @Override
+            public String sqlType() {
+                return SHORT_STRING.sqlType();
+            }
+
+            @Override
+            public boolean isIndexColumn() {
+                return false;
+            }
+
+            @Override
+            public Class<String> getExternalClass() {
+                return String.class;
+            }
+
+            @Override
+            public String limited(final String initial) {
+                return initial;
+            }
+        };
+        assertThat(shouting.columnGetter(), is(nullValue()));
+        final Mapper<String[], String, String> greeting = ComposedMapper.field("greeting", (String[] c) -> c[0],
+                (s) -> s, shouting, (s) -> s, (c, s) -> c[0] = s);
+        final ResultSet rs = mock(ResultSet.class);
+        doReturn("hello").when(rs).getString("greeting");
+        assertThat(greeting.from(rs, 2), is("HELLO"));
+        final String[] decoded = new String[1];
+        RowCodecs.generated(Collections.<ClassFieldMapper<String[]>>singletonList(greeting))
+                .decode(decoded, rs, new int[]{2});
+        assertThat(decoded[0], is("HELLO"));
+        verify(rs, never()).getMetaData();
+    }
+
     @Test
     public void weCanGetADate() {
         assertThat(INSTANT.isIndexColumn(), is(false));
@@ -291,4 +291,62 @@ public class ComposedMapperTest {
         when(mockRs.getInt("id")).thenReturn(1);
         underTest.desTo(toNotBeAbleToDesTo, mockRs);
     }
+
+    private static IntMapper<int[]> intFieldMapper() {
+        return ComposedMapper.intField("quantity", (int[] c) -> c[0], ColumnType.INTEGER, (c, v) -> c[0] = v);
+    }
+
+    @Test
+    public void intFieldsReadByColumnWithoutBoxing() throws Exception {
+        final IntMapper<int[]> underTest = intFieldMapper();
+        final int[] container = {0};
+        final ResultSet mockRs = mock(ResultSet.class);
+        when(mockRs.getInt(2)).thenReturn(17);
+        assertThat(underTest.desColumnTo(container, mockRs, 2), is(false));
+        assertThat(container[0], is(17));
+    }
+
+    @Test
+    public void intFieldsKeepTheirValueForNullColumns() throws Exception {
+        final IntMapper<int[]> underTest = intFieldMapper();
+        final int[] container = {5};
+        final ResultSet mockRs = mock(ResultSet.class);
+        when(mockRs.wasNull()).thenReturn(true);
+        assertThat(underTest.desColumnTo(container, mockRs, 2), is(true));
+        assertThat(container[0], is(5));
+    }
+
+    @Test
+    public void intFieldsSetPrimitivesIntoPs() throws Exception {
+        final IntMapper<int[]> underTest = intFieldMapper();
+        underTest.setInsertOrdinal(3);
+        final PreparedStatement mockPs = mock(PreparedStatement.class);
+        underTest.serInto(mockPs, new int[]{42});
+        verify(mockPs).setInt(3, 42);
+        verifyNoMoreInteractions(mockPs);
+    }
+
+    @Test
+    public void longFieldsCopyAsLongFields() throws Exception {
+        final LongMapper<long[]> original = ComposedMapper.longField("total", (long[] c) -> c[0], ColumnType.LONG, (c, v) -> c[0] = v);
+        final ClassFieldMapper<long[]> underTest = original.copyTransforming(new FieldMapperTransform() {
+            @Override
+            public String fieldName(final String fieldName) {
+                return "_1__" + fieldName;
+            }
+
+            @Override
+            public int joinIndex() {
+                return 1;
+            }
+        });
+        assertThat(underTest, instanceOf(LongMapper.class));
+        assertThat(underTest.fieldAlias(), is("_1__total"));
+        final long[] container = {0};
+        final ResultSet mockRs = mock(ResultSet.class);
+        when(mockRs.getLong(1)).thenReturn(1L << 40);
+        underTest.desColumnTo(container, mockRs, 1);
+        assertThat(container[0], is(1L << 40));
+        assertThat(underTest.serFrom(container), is(1L << 40));
+    }
 }
@@ -0,0 +1,65 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import org.junit.Test;
+
+import java.sql.ResultSet;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IdSetTest {
+
+    private static final class Holder {
+    }
+
+    @Test
+    public void intsAddGrowAndClear() throws Exception {
+        final IdSet set = IdSet.forId(ComposedMapper.intField("id", (Holder h) -> 0, ColumnType.INTEGER, (h, v) -> {}));
+        final ResultSet rs = mock(ResultSet.class);
+        for (int id = 0; id < 100; id++) {
+            when(rs.getInt(1)).thenReturn(id * 31);
+            assertThat(set.addFrom(rs, 1), is(IdSet.ADDED));
+        }
+        for (int id = 0; id < 100; id++) {
+            when(rs.getInt(1)).thenReturn(id * 31);
+            assertThat(set.addFrom(rs, 1), is(IdSet.PRESENT));
+        }
+        set.clear();
+        when(rs.getInt(1)).thenReturn(62);
+        assertThat(set.addFrom(rs, 1), is(IdSet.ADDED));
+        assertThat(set.addFrom(rs, 1), is(IdSet.PRESENT));
+    }
+
+    @Test
+    public void longsAddAndClear() throws Exception {
+        final IdSet set = IdSet.forId(ComposedMapper.longField("id", (Holder h) -> 0L, ColumnType.LONG, (h, v) -> {}));
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(2)).thenReturn(Long.MAX_VALUE);
+        assertThat(set.addFrom(rs, 2), is(IdSet.ADDED));
+        assertThat(set.addFrom(rs, 2), is(IdSet.PRESENT));
+        set.clear();
+        assertThat(set.addFrom(rs, 2), is(IdSet.ADDED));
+    }
+
+    @Test
+    public void nullIdsAreNotAdded() throws Exception {
+        final IdSet set = IdSet.forId(ComposedMapper.intField("id", (Holder h) -> 0, ColumnType.INTEGER, (h, v) -> {}));
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.wasNull()).thenReturn(true);
+        assertThat(set.addFrom(rs, 1), is(IdSet.NULL));
+        assertThat(set.addFrom(rs, 1), is(IdSet.NULL));
+    }
+
+    @Test
+    public void otherIdsAreBoxed() throws Exception {
+        final IdSet set = IdSet.forId(ComposedMapper.simpleField("id", (Holder h) -> "", ColumnType.SHORT_STRING, (h, v) -> {}));
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn("a");
+        assertThat(set.addFrom(rs, 1), is(IdSet.ADDED));
+        assertThat(set.addFrom(rs, 1), is(IdSet.PRESENT));
+        set.clear();
+        assertThat(set.addFrom(rs, 1), is(IdSet.ADDED));
+    }
+}
@@ -0,0 +1,188 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import net.zethmayr.benjamin.spring.common.mapper.TestPojoMapper;
+import net.zethmayr.benjamin.spring.common.model.TestPojo;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.Arrays;
+
+import static net.zethmayr.benjamin.spring.common.model.History.MAGNA_CARTA;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isA;
+import static org.hamcrest.Matchers.isEmptyOrNullString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public class InvertibleRowMapperBaseTest {
+    private InvertibleRowMapperBase<TestPojo> underTest;
+
+    private static final String COMMENT = "expected";
+    private static final BigDecimal WEIGHT = new BigDecimal("23.01");
+
+    @Before
+    public void setUp() {
+        underTest = new TestPojoMapper();
+    }
+
+    @Test
+    public void exists() {
+        assertThat(underTest, isA(RowMapper.class));
+        assertThat(underTest.table(), is(TestPojoMapper.TABLE));
+        assertThat(underTest.fields(), is(TestPojoMapper.FIELDS));
+        assertThat(underTest.rowClass(), sameInstance(TestPojo.class));
+        assertThat(underTest.insert(), not(isEmptyOrNullString()));
+        assertThat(underTest.select(), not(isEmptyOrNullString()));
+    }
+
+    @Test
+    public void canGenerateInsertValues() {
+        final TestPojo pojoToInsert = new TestPojo()
+                .setComment(COMMENT)
+                .setEvent(MAGNA_CARTA)
+                .setWeighting(WEIGHT);
+        final Object[] toInsert = underTest.getInsertValues(pojoToInsert);
+        assertThat(toInsert, arrayContaining(0, COMMENT, null, 2301L));
+    }
+
+    @Test
+    public void canSetInsertValues() throws Exception {
+        final TestPojo pojoToInsert = new TestPojo()
+                .setComment(COMMENT)
+                .setEvent(MAGNA_CARTA)
+                .setWeighting(WEIGHT);
+        final PreparedStatement mockPs = mock(PreparedStatement.class);
+        underTest.setInsertValues(pojoToInsert, mockPs);
+        verify(mockPs).setInt(1, 0);
+        verify(mockPs).setString(2, COMMENT);
+        verify(mockPs).setNull(3, Types.INTEGER);
+        verify(mockPs).setLong(4, 2301L);
+        verifyNoMoreInteractions(mockPs);
+    }
+
+    @Test
+    public void canMapFromRs() throws Exception {
+        final ResultSet mockRs = mock(ResultSet.class);
+        when(mockRs.getInt(TestPojoMapper.ID.fieldName)).thenReturn(73);
+        when(mockRs.getLong(TestPojoMapper.WEIGHTING.fieldName)).thenReturn(2301L);
+        when(mockRs.getString(TestPojoMapper.COMMENT.fieldName)).thenReturn(COMMENT);
+        when(mockRs.getInt(TestPojoMapper.EVENT.fieldName)).thenReturn(MAGNA_CARTA.ordinal());
+        final TestPojo read = underTest.mapRow(mockRs, 1);
+        assertThat(read.getComment(), is(COMMENT));
+        assertThat(read.getWeighting(), is(WEIGHT));
+        assertThat(read.getEvent(), is(MAGNA_CARTA));
+        assertThat(read.getId(), is(73));
+    }
+
+    @Test
+    public void canMapFromRsByColumn() throws Exception {
+        final ResultSet mockRs = mock(ResultSet.class);
+        when(mockRs.findColumn(TestPojoMapper.ID.fieldName)).thenReturn(1);
+        when(mockRs.findColumn(TestPojoMapper.EVENT.fieldName)).thenReturn(2);
+        when(mockRs.findColumn(TestPojoMapper.COMMENT.fieldName)).thenReturn(3);
+        when(mockRs.findColumn(TestPojoMapper.STEVE.fieldName)).thenReturn(4);
+        when(mockRs.findColumn(TestPojoMapper.WEIGHTING.fieldName)).thenReturn(5);
+        when(mockRs.getInt(1)).thenReturn(73);
+        when(mockRs.getInt(2)).thenReturn(MAGNA_CARTA.ordinal());
+        when(mockRs.getString(3)).thenReturn(COMMENT);
+        when(mockRs.getLong(5)).thenReturn(2301L);
+        final RowMapper<TestPojo> bound = underTest.forQuery();
+        final TestPojo read = bound.mapRow(mockRs, 1);
+        assertThat(read.getComment(), is(COMMENT));
+        assertThat(read.getWeighting(), is(WEIGHT));
+        assertThat(read.getEvent(), is(MAGNA_CARTA));
+        assertThat(read.getId(), is(73));
+        bound.mapRow(mockRs, 2);
+        verify(mockRs, times(1)).findColumn(TestPojoMapper.ID.fieldName);
+    }
+
+    @Test
+    public void generatedCodecsDecodeLikeInterpretedOnes() throws Exception {
+        underTest.generateCodec();
+        assertThat(RowCodecs.isGenerated(underTest.codec()), is(true));
+        final ResultSet mockRs = mock(ResultSet.class);
+        when(mockRs.getInt(1)).thenReturn(73);
+        when(mockRs.getInt(2)).thenReturn(MAGNA_CARTA.ordinal());
+        when(mockRs.getString(3)).thenReturn(COMMENT);
+        when(mockRs.getLong(5)).thenReturn(2301L);
+        final TestPojo read = underTest.mapRow(mockRs, 1, new int[]{1, 2, 3, 4, 5});
+        assertThat(read.getComment(), is(COMMENT));
+        assertThat(read.getWeighting(), is(WEIGHT));
+        assertThat(read.getEvent(), is(MAGNA_CARTA));
+        assertThat(read.getId(), is(73));
+    }
+
+    @Test
+    public void generatedCodecsEncodeNonIndexFields() throws Exception {
+        underTest.generateCodec();
+        final TestPojo pojoToInsert = new TestPojo()
+                .setComment(COMMENT)
+                .setEvent(MAGNA_CARTA)
+                .setWeighting(WEIGHT);
+        final PreparedStatement mockPs = mock(PreparedStatement.class);
+        underTest.codec().encode(pojoToInsert, mockPs);
+        verify(mockPs).setInt(1, 0);
+        verify(mockPs).setString(2, COMMENT);
+        verify(mockPs).setNull(3, Types.INTEGER);
+        verify(mockPs).setLong(4, 2301L);
+        verifyNoMoreInteractions(mockPs);
+    }
+
+    @Test
+    public void generatedCodecsReadAndWritePrimitives() throws Exception {
+        final InvertibleRowMapperBase<long[]> primitives = new InvertibleRowMapperBase<long[]>(long[].class, Arrays.asList(
+                ComposedMapper.intField("id", (long[] c) -> (int) c[0], ColumnType.INTEGER_INDEX, (c, v) -> c[0] = v),
+                ComposedMapper.longField("total", (long[] c) -> c[1], ColumnType.LONG, (c, v) -> c[1] = v)
+        ), "primitives", () -> new long[]{-1, -1}) {
+        }.generateCodec();
+        assertThat(RowCodecs.isGenerated(primitives.codec()), is(true));
+        final ResultSet mockRs = mock(ResultSet.class);
+        when(mockRs.getInt(2)).thenReturn(7);
+        when(mockRs.wasNull()).thenReturn(false, true);
+        assertThat(primitives.mapRow(mockRs, 1, new int[]{2, 1}), is(new long[]{7, -1}));
+        final PreparedStatement mockPs = mock(PreparedStatement.class);
+        primitives.codec().encode(new long[]{7, 42}, mockPs);
+        verify(mockPs).setLong(1, 42L);
+        verifyNoMoreInteractions(mockPs);
+    }
+
+    @Test
+    public void copiesKeepGeneratedCodecs() {
+        underTest.generateCodec();
+        final InvertibleRowMapperBase<TestPojo> copy = underTest.copyTransforming(new RowMapperTransform() {
+            @Override
+            public String table(final String table) {
+                return table;
+            }
+
+            @Override
+            public int leftIndex() {
+                return 0;
+            }
+        }, new FieldMapperTransform() {
+            @Override
+            public String fieldName(final String fieldName) {
+                return "_0__" + fieldName;
+            }
+
+            @Override
+            public int joinIndex() {
+                return 0;
+            }
+        });
+        assertThat(RowCodecs.isGenerated(copy.codec()), is(true));
+        assertThat(copy.codec(), sameInstance(underTest.codec()));
+    }
+}
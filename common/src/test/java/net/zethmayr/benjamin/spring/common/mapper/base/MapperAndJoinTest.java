@@ -9,6 +9,7 @@ import org.junit.Test;
 
 import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.DeleteStyle.DONT_DELETE;
 import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.DeleteStyle.MATERIALIZE_PARENT;
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.FetchStyle.EAGER;
 import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.InsertStyle.DONT_INSERT;
 import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.InsertStyle.INDEPENDENT_INSERT;
 import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.single;
@@ -31,6 +32,7 @@ public class MapperAndJoinTest {
         assertThat(pojoToEnum.relation(), is(EQ));
         assertThat(pojoToEnum.insertions(), is(DONT_INSERT));
         assertThat(pojoToEnum.deletions(), is(DONT_DELETE));
+        assertThat(pojoToEnum.fetch(), is(EAGER));
     }
 
     @Test
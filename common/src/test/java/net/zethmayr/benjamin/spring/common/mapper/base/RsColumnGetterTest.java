@@ -0,0 +1,44 @@
+package net.zethmayr.benjamin.spring.common.mapper.base;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isA;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RsColumnGetterTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void canGetByColumn() throws Exception {
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(3)).thenReturn(23L);
+        assertThat(RsColumnGetter.longInteger().from(rs, 3), is(23L));
+    }
+
+    @Test
+    public void checksForNulls() throws Exception {
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.wasNull()).thenReturn(true);
+        assertThat(RsColumnGetter.integer().from(rs, 1), is(nullValue()));
+    }
+
+    @Test
+    public void instancesWrapExceptions() throws Exception {
+        thrown.expect(MappingException.class);
+        thrown.expectCause(isA(SQLException.class));
+        final ResultSet evil = mock(ResultSet.class);
+        when(evil.getString(2)).thenThrow(new SQLException());
+        RsColumnGetter.string().from(evil, 2);
+    }
+}
@@ -3,22 +3,28 @@ package net.zethmayr.benjamin.spring.common.model;
 import java.time.Instant;
 
 public enum History {
-    MAGNA_CARTA("1216"),
-    COLUMBUS("1492"),
-    DECLARATION_OF_INDEPENDENCE("1776", MAGNA_CARTA);
+    MAGNA_CARTA("1216", 12),
+    COLUMBUS("1492", 14),
+    DECLARATION_OF_INDEPENDENCE("1776", 17, MAGNA_CARTA);
 
     final String year;
+    final int bit;
     final Instant when;
     final History priorRelated;
 
-    History(final String year, final History priorRelated) {
+    History(final String year, final int bit, final History priorRelated) {
         this.year = year;
+        this.bit = bit;
         when = Instant.parse(year + "-01-01T00:00:00Z");
         this.priorRelated = priorRelated;
     }
 
-    History(final String year) {
-        this(year, null);
+    History(final String year, final int bit) {
+        this(year, bit, null);
+    }
+
+    public int bit() {
+        return bit;
     }
 
     public String year() {
@@ -0,0 +1,33 @@
+package net.zethmayr.benjamin.spring.common.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import net.zethmayr.benjamin.spring.common.mapper.TestItemMapper;
+import net.zethmayr.benjamin.spring.common.model.base.Trusting;
+
+import java.math.BigDecimal;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+public class TestItem extends Trusting<TestItem> {
+    private int id;
+    private String name;
+    private BigDecimal price;
+
+    @Override
+    protected boolean recordsChanges() {
+        return true;
+    }
+
+    public TestItem setName(final String name) {
+        this.name = name;
+        return changed(TestItemMapper.NAME.fieldName);
+    }
+
+    public TestItem setPrice(final BigDecimal price) {
+        this.price = price;
+        return changed(TestItemMapper.PRICE.fieldName);
+    }
+}
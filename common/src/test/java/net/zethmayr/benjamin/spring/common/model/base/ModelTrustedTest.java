@@ -3,13 +3,38 @@ package net.zethmayr.benjamin.spring.common.model.base;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public class ModelTrustedTest {
-    private static final class TestTrusting extends Trusting<TestTrusting> {}
+    private static final class TestTrusting extends Trusting<TestTrusting> {
+        private String name;
+
+        public TestTrusting setName(final String name) {
+            this.name = name;
+            return changed("name");
+        }
+    }
+
+    private static final class TestRecording extends Trusting<TestRecording> {
+        private String name;
+
+        public TestRecording setName(final String name) {
+            this.name = name;
+            return changed("name");
+        }
+
+        @Override
+        protected boolean recordsChanges() {
+            return true;
+        }
+    }
 
     private static final class TestUntrusting {
         private boolean marshaling;
@@ -75,4 +100,39 @@ public class ModelTrustedTest {
         assertThat(instance.marshaling(), is(true));
     }
 
+    @Test
+    public void tracksChangesOnlyWhenNotMarshaling() {
+        final TestTrusting instance = new TestTrusting();
+        underTest.marshaling(instance, true);
+        instance.setName("read");
+        underTest.marshaling(instance, false);
+        assertThat(underTest.changes(instance), is(nullValue()));
+
+        instance.setName("changed");
+        assertThat(underTest.changes(instance), is(Collections.singleton("name")));
+        assertThat(underTest.unchanged(instance), is(underTest));
+        assertThat(underTest.changes(instance), is(nullValue()));
+    }
+
+    @Test
+    public void knowsNothingChangedWhenRecordingChanges() {
+        final TestRecording instance = new TestRecording();
+        assertThat(underTest.changes(instance), is(nullValue()));
+        underTest.marshaling(instance, true);
+        instance.setName("read");
+        underTest.marshaling(instance, false);
+        assertThat(underTest.changes(instance), is(empty()));
+
+        instance.setName("changed");
+        assertThat(underTest.changes(instance), is(Collections.singleton("name")));
+        underTest.unchanged(instance);
+        assertThat(underTest.changes(instance), is(empty()));
+    }
+
+    @Test
+    public void doesNotTrackChangesForUntrustingInstances() {
+        final TestUntrusting instance = new TestUntrusting();
+        assertThat(underTest.changes(instance), is(nullValue()));
+        assertThat(underTest.unchanged(instance), is(underTest));
+    }
 }
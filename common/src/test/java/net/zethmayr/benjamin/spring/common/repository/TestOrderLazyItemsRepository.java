@@ -0,0 +1,22 @@
+package net.zethmayr.benjamin.spring.common.repository;
+
+import net.zethmayr.benjamin.spring.common.mapper.TestOrderMapper;
+import net.zethmayr.benjamin.spring.common.model.TestOrder;
+import net.zethmayr.benjamin.spring.common.repository.base.JoiningRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.FetchStyle.LAZY;
+
+@Service
+public class TestOrderLazyItemsRepository extends JoiningRepository<TestOrder, Integer> {
+    public TestOrderLazyItemsRepository(final @Autowired JdbcTemplate jdbcTemplate,
+                                        final @Autowired TestOrderItemRepository orderItems,
+                                        final @Autowired TestItemRepository items,
+                                        final @Autowired TestUserRepository users,
+                                        final @Autowired TestOrderSummaryRepository summaries
+    ) {
+        super(jdbcTemplate, new TestOrderMapper(LAZY), new TestOrderRepository.CoreRepository(jdbcTemplate), orderItems, items, users, summaries);
+    }
+}
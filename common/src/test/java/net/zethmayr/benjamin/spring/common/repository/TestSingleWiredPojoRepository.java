@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 @Service
 public class TestSingleWiredPojoRepository extends MapperRepository.SingleWired<TestPojo, Integer> {
     public TestSingleWiredPojoRepository() {
-        super(new TestPojoMapper(), TestPojoMapper.ID);
+        // small batches and fetches, to exercise them
+        super(new TestPojoMapper(), TestPojoMapper.ID, 2, 2);
     }
 }
@@ -0,0 +1,21 @@
+package net.zethmayr.benjamin.spring.common.repository;
+
+import net.zethmayr.benjamin.spring.common.mapper.TestUserOrdersMapper;
+import net.zethmayr.benjamin.spring.common.model.TestUser;
+import net.zethmayr.benjamin.spring.common.repository.base.JoiningRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.FetchStyle.EAGER;
+import static net.zethmayr.benjamin.spring.common.mapper.base.MapperAndJoin.FetchStyle.LAZY;
+
+@Service
+public class TestUserOrdersLazyItemsRepository extends JoiningRepository<TestUser, Integer> {
+    public TestUserOrdersLazyItemsRepository(
+            final @Autowired JdbcTemplate jdbcTemplate,
+            final @Autowired TestUserRepository baseUsers,
+            final @Autowired TestOrderLazyItemsRepository orders) {
+        super(jdbcTemplate, new TestUserOrdersMapper(EAGER, LAZY), baseUsers, orders);
+    }
+}
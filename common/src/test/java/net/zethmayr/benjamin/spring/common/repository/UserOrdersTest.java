@@ -0,0 +1,558 @@
+package net.zethmayr.benjamin.spring.common.repository;
+
+import lombok.val;
+import net.zethmayr.benjamin.spring.common.mapper.TestItemMapper;
+import net.zethmayr.benjamin.spring.common.mapper.TestOrderItemMapper;
+import net.zethmayr.benjamin.spring.common.mapper.TestOrderMapper;
+import net.zethmayr.benjamin.spring.common.mapper.TestUserMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.FetchPlan;
+import net.zethmayr.benjamin.spring.common.mapper.base.SqlOp;
+import net.zethmayr.benjamin.spring.common.model.TestItem;
+import net.zethmayr.benjamin.spring.common.model.TestOrder;
+import net.zethmayr.benjamin.spring.common.model.TestOrderItem;
+import net.zethmayr.benjamin.spring.common.model.TestUser;
+import net.zethmayr.benjamin.spring.common.repository.base.JoiningRepository;
+import net.zethmayr.benjamin.spring.common.repository.base.Query;
+import net.zethmayr.benjamin.spring.common.repository.base.RepositoryException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static net.zethmayr.benjamin.spring.common.repository.FakeOrders.changeSummary;
+import static net.zethmayr.benjamin.spring.common.repository.FakeOrders.userNamed;
+import static net.zethmayr.benjamin.spring.common.repository.FakeOrders.withItemIds;
+import static net.zethmayr.benjamin.spring.common.repository.FakeOrders.withItems;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isA;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class UserOrdersTest {
+    @Autowired
+    private TestUserOrdersRepository underTest;
+
+    @SpyBean
+    private TestOrderRepository orders;
+
+    @SpyBean
+    private TestUserRepository users;
+
+    @SpyBean
+    private TestOrderItemRepository orderItems; // transitive...
+
+    @SpyBean
+    private TestItemRepository items; // transitive
+
+    @SpyBean
+    private TestOrderSummaryRepository summaries; // transitive
+
+    @Autowired
+    private TestUserLazyOrdersRepository lazyOrders;
+
+    @Autowired
+    private TestUserOrdersLazyItemsRepository lazyItems;
+
+    @Autowired
+    private TestSchemaService schemaService;
+
+    @SpyBean
+    private JdbcTemplate db;
+
+    @Autowired
+    private PlatformTransactionManager transactions;
+
+    @Before
+    public void setUp() {
+        //TODO: we'd like to be able to have transitives "just happen..."
+        schemaService.nuke(orders, users, orderItems, items, summaries);
+        schemaService.applySchemaFor(orders, users, orderItems, items, summaries);
+    }
+
+    @After
+    public void tearDown() {
+        underTest.setQueryStyle(JoiningRepository.QueryStyle.JOINED);
+        underTest.setIdentityScope(JoiningRepository.IdentityScope.NONE);
+    }
+
+    @Test
+    public void wires() {
+        assertThat(underTest, isA(TestUserOrdersRepository.class));
+    }
+
+    @Test
+    public void canInsertAUserWithOrders() throws Exception {
+        val now = Instant.now();
+        final TestUser user = userNamed("Also Yarn Bean");
+        user.setOrders(Arrays.asList(
+                changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                changeSummary(withItemIds(now).setUserId(null), "Again the cheese."),
+                withItemIds(now).setUserId(null)
+        ));
+        val id = underTest.insert(user);
+//        verify(users).insert(user);
+//        verify(orders, times(3)).insert(any());
+//        verify(summaries, times(3)).insert(any());
+//        verify(items, times(3)).insert(any());
+//        verify(orderItems, times(9)).insert(any());
+        // that went well. but insert recursion was already known to work.
+        final TestUser read = underTest.get(id).orElseThrow(Exception::new);
+        assertThat(read.getOrders(), hasSize(3));
+        for (val order : read.getOrders()) {
+            val items = order.getItems();
+            assertThat(items, hasSize(3));
+            assertThat(items.get(0).getItem().getName(), is("Soap"));
+            assertThat(items.get(1).getItem().getName(), is("Cheese"));
+            assertThat(items.get(2).getItem().getName(), is("Soda"));
+            assertThat(items.get(2).getQuantity(), is(12));
+        }
+        // golly. issues present in stitching and in deduplication
+        val allUsers = users.getAll();
+        assertThat(allUsers, hasSize(1));
+        assertThat(allUsers.get(0).getName(), is(user.getName()));
+    }
+
+    @Test
+    public void canInsertAllUsersWithOrdersLevelByLevel() throws Exception {
+        val now = Instant.now();
+        val someUsers = Arrays.asList(userNamed("Yarn Bean"), userNamed("Also Yarn Bean"));
+        for (val user : someUsers) {
+            user.setOrders(Arrays.asList(
+                    changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                    changeSummary(withItems(now).setUser(null), "Again the cheese.")
+            ));
+        }
+        val ids = underTest.insertAll(someUsers);
+        // one batch each for users, orders, items, order items, and summaries
+        verify(db, times(5)).execute(any(ConnectionCallback.class));
+        verify(db, never()).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+        assertThat(ids, hasSize(2));
+        for (int u = 0; u < ids.size(); u++) {
+            final TestUser read = underTest.get(ids.get(u)).orElseThrow(Exception::new);
+            assertThat(read.getName(), is(someUsers.get(u).getName()));
+            assertThat(read.getOrders(), hasSize(2));
+            assertThat(read.getOrders().get(1).getSummary().getSummary(), is("Again the cheese."));
+            for (val order : read.getOrders()) {
+                val items = order.getItems();
+                assertThat(items, hasSize(3));
+                assertThat(items.get(0).getItem().getName(), is("Soap"));
+                assertThat(items.get(2).getQuantity(), is(12));
+            }
+        }
+    }
+
+    @Test
+    public void canReadUsersWithOrdersSplit() throws Exception {
+        val now = Instant.now();
+        val someUsers = Arrays.asList(userNamed("Yarn Bean"), userNamed("Also Yarn Bean"), userNamed("No Orders"));
+        for (val user : someUsers.subList(0, 2)) {
+            user.setOrders(Arrays.asList(
+                    changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                    changeSummary(withItems(now).setUser(null), "Again the cheese.")
+            ));
+        }
+        val ids = underTest.insertAll(someUsers);
+        final TestUser joined = underTest.get(ids.get(1)).orElseThrow(Exception::new);
+        underTest.setQueryStyle(JoiningRepository.QueryStyle.SPLIT);
+        final TestUser split = underTest.get(ids.get(1)).orElseThrow(Exception::new);
+        assertThat(split, is(joined));
+        assertThat(split.getOrders(), hasSize(2));
+        for (val order : split.getOrders()) {
+            assertThat(order.getSummary().getSummary(), is(notNullValue()));
+            val items = order.getItems();
+            assertThat(items, hasSize(3));
+            assertThat(items.get(0).getItem().getName(), is("Soap"));
+            assertThat(items.get(1).getItem().getName(), is("Cheese"));
+            assertThat(items.get(2).getQuantity(), is(12));
+        }
+        val all = underTest.getAll();
+        assertThat(all, hasSize(3));
+        assertThat(all.get(0).getOrders(), hasSize(2));
+        assertThat(all.get(2).getOrders(), is(empty()));
+    }
+
+    @Test
+    public void canStreamUsersWithOrders() throws Exception {
+        val now = Instant.now();
+        val someUsers = Arrays.asList(userNamed("Yarn Bean"), userNamed("No Orders"), userNamed("Also Yarn Bean"));
+        for (val user : Arrays.asList(someUsers.get(0), someUsers.get(2))) {
+            user.setOrders(Arrays.asList(
+                    changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                    changeSummary(withItems(now).setUser(null), "Again the cheese.")
+            ));
+        }
+        underTest.insertAll(someUsers);
+        final List<TestUser> expected = underTest.getAll();
+        for (val style : JoiningRepository.QueryStyle.values()) {
+            underTest.setQueryStyle(style);
+            try (val streamed = underTest.stream()) {
+                assertThat(streamed.collect(Collectors.toList()), is(expected));
+            }
+        }
+        assertThat(expected.get(0).getOrders(), hasSize(2));
+        assertThat(expected.get(0).getOrders().get(0).getItems(), hasSize(3));
+        assertThat(expected.get(1).getOrders(), is(empty()));
+    }
+
+    @Test
+    public void streamsUnorderedJoinsAPageAtATime() throws Exception {
+        val someUsers = Arrays.asList(userNamed("Yarn Bean"), userNamed("No Orders"), userNamed("Also Yarn Bean"));
+        someUsers.get(0).setOrders(Collections.singletonList(changeSummary(withItems(Instant.now()).setUser(null), "Cheese.")));
+        underTest.insertAll(someUsers);
+        final List<TestUser> expected = underTest.getAll();
+        final int pageSize = underTest.getDialect().maxInSize();
+        underTest.setQueryStyle(JoiningRepository.QueryStyle.JOINED_UNORDERED);
+        reset(db);
+        try (val streamed = underTest.stream()) {
+            assertThat(streamed.collect(Collectors.toList()), is(expected));
+        }
+        verify(db).query(contains("LIMIT ?"), any(ResultSetExtractor.class), eq(pageSize));
+        verify(db, never()).query(anyString(), any(ResultSetExtractor.class));
+    }
+
+    @Test
+    public void canGetUsersWithOrdersByIdsInGivenOrder() throws Exception {
+        val now = Instant.now();
+        val someUsers = Arrays.asList(userNamed("Yarn Bean"), userNamed("No Orders"), userNamed("Also Yarn Bean"));
+        for (val user : Arrays.asList(someUsers.get(0), someUsers.get(2))) {
+            user.setOrders(Arrays.asList(
+                    changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                    changeSummary(withItems(now).setUser(null), "Again the cheese.")
+            ));
+        }
+        val ids = underTest.insertAll(someUsers);
+        final List<TestUser> expected = underTest.getAll();
+        for (val style : JoiningRepository.QueryStyle.values()) {
+            underTest.setQueryStyle(style);
+            assertThat(underTest.getAll(Arrays.asList(ids.get(2), ids.get(0))), is(Arrays.asList(expected.get(2), expected.get(0))));
+        }
+        assertThat(expected.get(2).getOrders(), hasSize(2));
+    }
+
+    @Test
+    public void canDeleteAllUsersWithTheirOrders() throws Exception {
+        val now = Instant.now();
+        val someUsers = Arrays.asList(userNamed("Yarn Bean"), userNamed("Also Yarn Bean"), userNamed("Kept"));
+        for (val user : someUsers) {
+            user.setOrders(Arrays.asList(
+                    changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                    changeSummary(withItems(now).setUser(null), "Again the cheese.")
+            ));
+        }
+        val ids = underTest.insertAll(someUsers);
+        final TestUser kept = underTest.get(ids.get(2)).orElseThrow(Exception::new);
+        underTest.deleteAll(ids.subList(0, 2));
+        assertThat(underTest.getAll(), is(Collections.singletonList(kept)));
+        assertThat(orders.getAll(), hasSize(2));
+        assertThat(summaries.getAll(), hasSize(2));
+        assertThat(orderItems.getAll(), hasSize(6));
+        assertThat(items.getAll(), hasSize(6)); // order items delete their items too
+    }
+
+    @Test
+    public void canPageUsersWithWholeOrders() throws Exception {
+        val now = Instant.now();
+        val someUsers = Arrays.asList(userNamed("Yarn Bean"), userNamed("No Orders"), userNamed("Also Yarn Bean"));
+        for (val user : Arrays.asList(someUsers.get(0), someUsers.get(2))) {
+            user.setOrders(Arrays.asList(
+                    changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                    changeSummary(withItems(now).setUser(null), "Again the cheese.")
+            ));
+        }
+        underTest.insertAll(someUsers);
+        final List<TestUser> expected = underTest.getAll();
+        for (val style : JoiningRepository.QueryStyle.values()) {
+            underTest.setQueryStyle(style);
+            final List<TestUser> first = underTest.page(null, 2);
+            assertThat(first, is(expected.subList(0, 2)));
+            assertThat(first.get(0).getOrders(), hasSize(2));
+            assertThat(first.get(0).getOrders().get(0).getItems(), hasSize(3));
+            assertThat(underTest.page(first.get(1).getId(), 2), is(expected.subList(2, 3)));
+            assertThat(underTest.page(expected.get(2).getId(), 2), is(empty()));
+        }
+    }
+
+    @Test
+    public void canQueryUsersWithWholeOrdersByJoinedFields() throws Exception {
+        val now = Instant.now();
+        val someUsers = Arrays.asList(userNamed("Yarn Bean"), userNamed("No Orders"), userNamed("Also Yarn Bean"));
+        someUsers.get(2).setOrders(Arrays.asList(
+                changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                changeSummary(withItems(now).setUser(null), "Again the cheese.")
+        ));
+        underTest.insertAll(someUsers);
+        for (val style : JoiningRepository.QueryStyle.values()) {
+            underTest.setQueryStyle(style);
+            final List<TestUser> cheesy = underTest.query()
+                    .where(TestItemMapper.NAME, SqlOp.EQ, "Cheese")
+                    .list();
+            assertThat(cheesy, hasSize(1));
+            assertThat(cheesy.get(0).getName(), is("Also Yarn Bean"));
+            assertThat(cheesy.get(0).getOrders(), hasSize(2));
+            assertThat(cheesy.get(0).getOrders().get(0).getItems(), hasSize(3));
+            final List<TestUser> named = underTest.query()
+                    .in(TestUserMapper.NAME, Arrays.asList("Yarn Bean", "Also Yarn Bean"))
+                    .or().isNull(TestItemMapper.NAME)
+                    .orderBy(TestUserMapper.NAME, false)
+                    .list();
+            assertThat(named.stream().map(TestUser::getName).collect(Collectors.toList()),
+                    is(Arrays.asList("Yarn Bean", "No Orders", "Also Yarn Bean")));
+            assertThat(named.get(2).getOrders(), hasSize(2));
+        }
+    }
+
+    @Test
+    public void queriesJoinedFieldsSharingPrimaryNames() throws Exception {
+        val now = Instant.now();
+        val someUsers = Arrays.asList(userNamed("Yarn Bean"), userNamed("No Orders"), userNamed("Also Yarn Bean"));
+        someUsers.get(2).setOrders(Collections.singletonList(withItems(now).setUser(null)));
+        underTest.insertAll(someUsers);
+        final int orderId = someUsers.get(2).getOrders().get(0).getId();
+        final List<TestUser> found = underTest.query().where(TestOrderMapper.CoreMapper.ID, SqlOp.EQ, orderId).list();
+        assertThat(found, hasSize(1));
+        assertThat(found.get(0).getName(), is("Also Yarn Bean"));
+    }
+
+    @Test
+    public void canCountUsersByJoinedFields() throws Exception {
+        val now = Instant.now();
+        val someUsers = Arrays.asList(userNamed("Yarn Bean"), userNamed("No Orders"), userNamed("Also Yarn Bean"));
+        someUsers.get(2).setOrders(Arrays.asList(
+                changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                changeSummary(withItems(now).setUser(null), "Again the cheese.")
+        ));
+        underTest.insertAll(someUsers);
+        final Query<TestUser> cheesy = underTest.query().where(TestItemMapper.NAME, SqlOp.EQ, "Cheese");
+        assertThat(cheesy.count(), is(1L));
+        assertThat(cheesy.exists(), is(true));
+        assertThat(cheesy.min(TestUserMapper.NAME), is(Optional.of("Also Yarn Bean")));
+        assertThat(cheesy.count(TestUserMapper.NAME), is(Collections.singletonMap("Also Yarn Bean", 1L)));
+        assertThat(underTest.query().in(TestUserMapper.NAME, Arrays.asList("Yarn Bean", "Also Yarn Bean")).count(), is(2L));
+        assertThat(underTest.query().where(TestItemMapper.NAME, SqlOp.EQ, "Gouda").exists(), is(false));
+        assertThat(underTest.count(), is(3L));
+        assertThat(underTest.query().where(TestUserMapper.NAME, SqlOp.EQ, "Yarn Bean").count(), is(1L));
+    }
+
+    @Test(expected = RepositoryException.class)
+    public void cannotAggregateJoinedFields() {
+        underTest.query().max(TestItemMapper.NAME);
+    }
+
+    @Test(expected = RepositoryException.class)
+    public void cannotOrderUsersByJoinedFields() {
+        underTest.query().orderBy(TestItemMapper.NAME).sql();
+    }
+
+    private static List<TestUser> sortedById(final List<TestUser> users) {
+        users.sort(Comparator.comparing(TestUser::getId));
+        for (val user : users) {
+            user.getOrders().sort(Comparator.comparing(TestOrder::getId));
+            for (val order : user.getOrders()) {
+                order.getItems().sort(Comparator.comparing(TestOrderItem::getId));
+            }
+        }
+        return users;
+    }
+
+    @Test
+    public void canReadUsersWithOrdersFromShuffledRows() {
+        val now = Instant.now();
+        val someUsers = Arrays.asList(userNamed("Yarn Bean"), userNamed("No Orders"), userNamed("Also Yarn Bean"));
+        for (val user : Arrays.asList(someUsers.get(0), someUsers.get(2))) {
+            user.setOrders(Arrays.asList(
+                    changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                    changeSummary(withItems(now).setUser(null), "Again the cheese.")
+            ));
+        }
+        underTest.insertAll(someUsers);
+        final List<TestUser> expected = sortedById(underTest.getAll());
+        underTest.setQueryStyle(JoiningRepository.QueryStyle.JOINED_UNORDERED);
+        for (int i = 0; i < 5; i++) {
+            val shuffled = underTest.getUnsafe(underTest.select() + "ORDER BY RAND()");
+            assertThat(sortedById(shuffled), is(expected));
+        }
+        assertThat(expected.get(0).getOrders(), hasSize(2));
+        assertThat(expected.get(0).getOrders().get(1).getItems(), hasSize(3));
+    }
+
+    @Test
+    public void canShareItemsReadWithinOneExtraction() throws Exception {
+        val now = Instant.now();
+        final TestUser user = userNamed("Yarn Bean");
+        user.setOrders(Arrays.asList(
+                withItems(now).setUser(null),
+                withItemIds(now).setUserId(null)
+        ));
+        val id = underTest.insert(user);
+        final TestUser unshared = underTest.get(id).orElseThrow(Exception::new);
+        assertThat(unshared.getOrders().get(1).getItems().get(0).getItem(),
+                not(sameInstance(unshared.getOrders().get(0).getItems().get(0).getItem())));
+        for (val style : Arrays.asList(JoiningRepository.QueryStyle.JOINED, JoiningRepository.QueryStyle.JOINED_UNORDERED)) {
+            underTest.setQueryStyle(style).setIdentityScope(JoiningRepository.IdentityScope.EXTRACTION);
+            final TestUser shared = underTest.getFor(id).get(0);
+            assertThat(shared, is(unshared));
+            val first = shared.getOrders().get(0);
+            val second = shared.getOrders().get(1);
+            for (int i = 0; i < 3; i++) {
+                assertThat(second.getItems().get(i).getItem(), sameInstance(first.getItems().get(i).getItem()));
+                assertThat(second.getItems().get(i), not(sameInstance(first.getItems().get(i))));
+            }
+            assertThat(second.getUser(), sameInstance(first.getUser()));
+        }
+    }
+
+    @Test
+    public void readsWritesWithinOneTransaction() throws Exception {
+        val now = Instant.now();
+        final TestUser user = userNamed("Yarn Bean");
+        user.setOrders(Collections.singletonList(withItems(now).setUser(null)));
+        val id = underTest.insert(user);
+        underTest.setIdentityScope(JoiningRepository.IdentityScope.TRANSACTION);
+        new TransactionTemplate(transactions).execute((status) -> {
+            final TestItem read = underTest.get(id).get().getOrders().get(0).getItems().get(0).getItem();
+            assertThat(read.getName(), is("Soap"));
+            items.update(new TestItem().setId(read.getId()).setName("Lye Soap"));
+            final TestItem reread = underTest.get(id).get().getOrders().get(0).getItems().get(0).getItem();
+            assertThat(reread.getName(), is("Lye Soap"));
+            underTest.update(underTest.get(id).get().setName("Yarn Bean II"));
+            assertThat(underTest.get(id).get().getName(), is("Yarn Bean II"));
+            return null;
+        });
+    }
+
+    @Test
+    public void canFetchLazyOrdersOnRequest() throws Exception {
+        val now = Instant.now();
+        val someUsers = Arrays.asList(userNamed("Yarn Bean"), userNamed("No Orders"));
+        someUsers.get(0).setOrders(Arrays.asList(
+                changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                withItemIds(now).setUserId(null)
+        ));
+        val ids = underTest.insertAll(someUsers);
+        assertThat(lazyOrders.select(), not(containsString("orders")));
+        final TestUser eager = underTest.get(ids.get(0)).orElseThrow(Exception::new);
+        final TestUser lazy = lazyOrders.get(ids.get(0)).orElseThrow(Exception::new);
+        assertThat(lazy.getName(), is(eager.getName()));
+        assertThat(lazy.getOrders(), is(empty()));
+        assertThat(lazyOrders.fetchLazy(lazy), is(eager));
+        final List<TestUser> all = lazyOrders.fetchLazy(lazyOrders.getAll());
+        assertThat(all, is(underTest.getAll()));
+        assertThat(all.get(0).getOrders(), hasSize(2));
+        assertThat(all.get(0).getOrders().get(0).getItems(), hasSize(3));
+        assertThat(all.get(1).getOrders(), is(empty()));
+    }
+
+    @Test
+    public void canFetchLazyItemsUnderEagerOrders() throws Exception {
+        val now = Instant.now();
+        final TestUser user = userNamed("Yarn Bean");
+        user.setOrders(Arrays.asList(
+                changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                withItemIds(now).setUserId(null)
+        ));
+        val id = underTest.insert(user);
+        assertThat(lazyItems.select(), not(containsString(TestOrderItemMapper.CoreMapper.TABLE)));
+        final TestUser eager = underTest.get(id).orElseThrow(Exception::new);
+        final TestUser lazy = lazyItems.get(id).orElseThrow(Exception::new);
+        assertThat(lazy.getOrders(), hasSize(2));
+        assertThat(lazy.getOrders().get(0).getItems(), is(empty()));
+        assertThat(lazyItems.fetchLazy(lazy), is(eager));
+        lazyItems.deleteMonadic(lazy);
+        assertThat(lazyItems.getAll(), is(empty()));
+        assertThat(orderItems.getAll(), is(empty()));
+    }
+
+    @Test
+    public void updatesOnlyWhatProjectionsRead() throws Exception {
+        val now = Instant.now();
+        final TestUser user = userNamed("Yarn Bean");
+        user.setOrders(Collections.singletonList(withItems(now).setUser(null)));
+        val id = underTest.insert(user);
+        final TestItem full = underTest.get(id).orElseThrow(Exception::new).getOrders().get(0).getItems().get(0).getItem();
+
+        final FetchPlan namesOnly = FetchPlan.all().columns("items", "item_name");
+        // plans reading the same are the same
+        assertThat(underTest.mapper.planned(namesOnly.maxDepth(99)), sameInstance(underTest.mapper.planned(namesOnly)));
+        final TestItem partial = underTest.get(id, namesOnly).orElseThrow(Exception::new).getOrders().get(0).getItems().get(0).getItem();
+        assertThat(partial.getName(), is(full.getName()));
+        assertThat(partial.getPrice(), is(nullValue()));
+        items.update(partial);
+        assertThat(items.get(full.getId()).orElseThrow(Exception::new), is(full));
+        partial.setName("Lye Soap");
+        items.update(partial);
+        assertThat(items.get(full.getId()).orElseThrow(Exception::new), is(full.setName("Lye Soap")));
+    }
+
+    @Test
+    public void canReadNarrowerGraphsByPlan() throws Exception {
+        val now = Instant.now();
+        final TestUser user = userNamed("Yarn Bean");
+        user.setOrders(Arrays.asList(
+                changeSummary(withItems(now).setUser(null), "What is this cheese?"),
+                withItemIds(now).setUserId(null)
+        ));
+        val id = underTest.insert(user);
+        final TestUser full = underTest.get(id).orElseThrow(Exception::new);
+
+        final FetchPlan ordersOnly = FetchPlan.all().maxDepth(1).columns("orders", "ordered_at");
+        assertThat(underTest.mapper.planned(ordersOnly), sameInstance(underTest.mapper.planned(ordersOnly)));
+        assertThat(underTest.mapper.planned(ordersOnly).select(), not(containsString("order_items")));
+        final TestUser shallow = underTest.get(id, ordersOnly).orElseThrow(Exception::new);
+        assertThat(shallow.getName(), is(full.getName()));
+        assertThat(shallow.getOrders(), hasSize(2));
+        for (int o = 0; o < 2; o++) {
+            val order = shallow.getOrders().get(o);
+            assertThat(order.getId(), is(full.getOrders().get(o).getId()));
+            assertThat(order.getOrderedAt(), is(full.getOrders().get(o).getOrderedAt()));
+            assertThat(order.getUserId(), is(nullValue()));
+            assertThat(order.getItems(), is(empty()));
+            assertThat(order.getSummary(), is(nullValue()));
+        }
+
+        final FetchPlan summariesOnly = FetchPlan.all().joins(underTest.mapper.joinedMappers().stream()
+                .filter(j -> Arrays.asList("orders", "order_summaries").contains(j.mapper().table()))
+                .collect(Collectors.toList()));
+        final List<TestUser> summarized = underTest.getAll(summariesOnly);
+        assertThat(summarized, hasSize(1));
+        val order = summarized.get(0).getOrders().get(0);
+        assertThat(order.getSummary(), is(full.getOrders().get(0).getSummary()));
+        assertThat(order.getItems(), is(empty()));
+        assertThat(order.getUser(), is(nullValue()));
+        assertThat(underTest.get(id, FetchPlan.all()).orElseThrow(Exception::new), is(full));
+    }
+}
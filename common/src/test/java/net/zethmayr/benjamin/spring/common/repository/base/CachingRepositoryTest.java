@@ -0,0 +1,184 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import net.zethmayr.benjamin.spring.common.mapper.TestPojoMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.SqlOp;
+import net.zethmayr.benjamin.spring.common.model.TestPojo;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CachingRepositoryTest {
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @SuppressWarnings("unchecked")
+    private final Repository<TestPojo, Integer> delegate = mock(Repository.class);
+    private final AtomicLong now = new AtomicLong();
+    private CachingRepository<TestPojo, Integer> underTest;
+
+    @Before
+    public void setUp() {
+        for (int id = 1; id <= 3; id++) {
+            doReturn(Optional.of(new TestPojo().setId(id))).when(delegate).get(id);
+        }
+        doReturn(Optional.empty()).when(delegate).get(4);
+        underTest = new CachingRepository<>(delegate, TestPojoMapper.ID, 2, Duration.ofSeconds(10), now::get);
+    }
+
+    @Test
+    public void readsThrough() {
+        final TestPojo first = underTest.get(1).orElseThrow(IllegalStateException::new);
+        assertThat(underTest.get(1).orElseThrow(IllegalStateException::new), sameInstance(first));
+        assertThat(underTest.getMonadic(new TestPojo().setId(1)).orElseThrow(IllegalStateException::new), sameInstance(first));
+        verify(delegate, times(1)).get(1);
+        assertThat(underTest.getHits(), is(2L));
+        assertThat(underTest.getMisses(), is(1L));
+    }
+
+    @Test
+    public void doesNotCacheAbsence() {
+        assertThat(underTest.get(4).isPresent(), is(false));
+        assertThat(underTest.get(4).isPresent(), is(false));
+        verify(delegate, times(2)).get(4);
+        assertThat(underTest.size(), is(0));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        underTest.get(1);
+        underTest.get(2);
+        underTest.get(1);
+        underTest.get(3);
+        assertThat(underTest.size(), is(2));
+        assertThat(underTest.getEvictions(), is(1L));
+        underTest.get(1);
+        underTest.get(2);
+        verify(delegate, times(1)).get(1);
+        verify(delegate, times(2)).get(2);
+    }
+
+    @Test
+    public void expires() {
+        underTest.get(1);
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+        underTest.get(1);
+        verify(delegate, times(1)).get(1);
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        underTest.get(1);
+        verify(delegate, times(2)).get(1);
+    }
+
+    @Test
+    public void writesInvalidate() {
+        underTest.get(1);
+        underTest.get(2);
+        underTest.delete(1);
+        underTest.get(1);
+        verify(delegate, times(2)).get(1);
+        underTest.deleteMonadic(new TestPojo().setId(1));
+        underTest.get(1);
+        verify(delegate, times(3)).get(1);
+        underTest.insert(new TestPojo().setId(2));
+        underTest.get(2);
+        verify(delegate, times(2)).get(2);
+        underTest.deleteUnsafe("WHERE steve = ?", 2);
+        assertThat(underTest.size(), is(0));
+    }
+
+    @Test
+    public void reboundWritesInvalidate() {
+        @SuppressWarnings("unchecked") final Repository<TestPojo, Integer> rebound = mock(Repository.class);
+        doReturn(rebound).when(delegate).rebindWithRelatedIndex(SqlOp.EQ, TestPojoMapper.ID);
+        final Repository<TestPojo, Integer> related = underTest.rebindWithRelatedIndex(SqlOp.EQ, TestPojoMapper.ID);
+        underTest.get(1);
+        related.insert(new TestPojo().setId(5));
+        assertThat(underTest.size(), is(0));
+        verify(rebound).insert(new TestPojo().setId(5));
+        underTest.get(1);
+        related.deleteAll(Collections.singletonList(1));
+        assertThat(underTest.size(), is(0));
+        verify(rebound).deleteAll(Collections.singletonList(1));
+        verify(delegate, times(2)).get(1);
+    }
+
+    @Test
+    public void invalidatesAgainAfterCompletion() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            underTest.delete(1);
+            // read elsewhere, before the transaction completes
+            CompletableFuture.runAsync(() -> underTest.get(1)).get();
+            assertThat(underTest.size(), is(1));
+            completeTransaction();
+            assertThat(underTest.size(), is(0));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void cachesNothingReadAfterWritingInATransaction() {
+        doReturn(Collections.singletonMap(2, new TestPojo().setId(2))).when(delegate).getAllById(Collections.singletonList(2));
+        underTest.get(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            underTest.update(new TestPojo().setId(3));
+            underTest.get(1);
+            underTest.getAllById(Collections.singletonList(2));
+            // only what was cached before the write
+            assertThat(underTest.size(), is(1));
+            verify(delegate, times(2)).get(1);
+            completeTransaction();
+            underTest.get(1);
+            underTest.getAllById(Collections.singletonList(2));
+            verify(delegate, times(2)).get(1);
+            assertThat(underTest.size(), is(2));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void completeTransaction() {
+        for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+    }
+
+    @Test
+    public void readsMissesTogether() {
+        doReturn(Collections.singletonMap(2, new TestPojo().setId(2))).when(delegate).getAllById(Collections.singletonList(2));
+        final TestPojo first = underTest.get(1).orElseThrow(IllegalStateException::new);
+        final Map<Integer, TestPojo> found = underTest.getAllById(Arrays.asList(2, 1));
+        assertThat(new ArrayList<>(found.keySet()), is(Arrays.asList(2, 1)));
+        assertThat(found.get(1), sameInstance(first));
+        verify(delegate).getAllById(Collections.singletonList(2));
+        assertThat(underTest.get(2).orElseThrow(IllegalStateException::new), sameInstance(found.get(2)));
+    }
+
+    @Test
+    public void needsAPositiveSize() {
+        thrown.expect(RepositoryException.class);
+        new CachingRepository<>(delegate, TestPojoMapper.ID, 0, Duration.ofSeconds(1));
+    }
+}
@@ -0,0 +1,186 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import net.zethmayr.benjamin.spring.common.mapper.TestSparseEnumMapper;
+import net.zethmayr.benjamin.spring.common.model.TestEnum;
+import net.zethmayr.benjamin.spring.common.repository.TestEnumRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class EnumMapperRepositoryTest {
+
+    @Autowired
+    private TestEnumRepository underTest;
+
+    @Autowired
+    private AbstractSchemaService schemaService;
+
+    @SpyBean
+    private JdbcTemplate db;
+
+    @Autowired
+    private PlatformTransactionManager transactions;
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Before
+    public void setUp() {
+        schemaService.applySchemaFor(underTest);
+    }
+
+    @After
+    public void tearDown() {
+        reset(db);
+        schemaService.nuke(underTest);
+    }
+
+    @Test
+    public void canWriteThenRead() {
+        for (final TestEnum each : TestEnum.values()) {
+            underTest.insert(each);
+        }
+        final List<TestEnum> all = underTest.getAll();
+        for (int i = 0, n = TestEnum.values().length; i < n; i++) {
+            assertThat(all.get(i), is(TestEnum.values()[i]));
+        }
+    }
+
+    @Test
+    public void canWriteAllThenRead() {
+        schemaService.writeDataFor(underTest, TestEnum.values());
+        final List<TestEnum> all = underTest.getAll();
+        for (int i = 0, n = TestEnum.values().length; i < n; i++) {
+            assertThat(all.get(i), is(TestEnum.values()[i]));
+        }
+    }
+
+    @Test
+    public void readsFromMemoryUntilInvalidated() {
+        schemaService.writeDataFor(underTest, TestEnum.values());
+        assertThat(underTest.getAll().size(), is(TestEnum.values().length));
+        db.execute("DELETE FROM " + underTest.mapper().table());
+        assertThat(underTest.get(TestEnum.YES.ordinal()).isPresent(), is(true));
+        underTest.invalidate();
+        assertThat(underTest.getAll(), is(empty()));
+        assertThat(underTest.get(TestEnum.YES.ordinal()).isPresent(), is(false));
+    }
+
+    @Test
+    public void readsWithOneQueryUntilInvalidated() {
+        schemaService.writeDataFor(underTest, TestEnum.values());
+        clearInvocations(db);
+        assertThat(underTest.getAll().size(), is(TestEnum.values().length));
+        clearInvocations(db);
+        underTest.get(TestEnum.NO.ordinal());
+        underTest.getFor(TestEnum.NO.ordinal());
+        underTest.getForAll(asList(TestEnum.NO.ordinal(), TestEnum.YES.ordinal()));
+        underTest.getAllById(asList(TestEnum.NO.ordinal(), TestEnum.YES.ordinal()));
+        underTest.page(null, 2);
+        underTest.stream().count();
+        underTest.getAll();
+        verifyNoMoreInteractions(db);
+        underTest.invalidate();
+        assertThat(underTest.getAll().size(), is(TestEnum.values().length));
+    }
+
+    @Test
+    public void upsertsOnlyNewConstants() {
+        underTest.insert(TestEnum.YES);
+        assertThat(underTest.upsertAll(asList(TestEnum.NO, TestEnum.MAYBE)), is(asList(TestEnum.NO.ordinal(), TestEnum.MAYBE.ordinal())));
+        assertThat(underTest.getAll(), is(asList(TestEnum.YES, TestEnum.NO, TestEnum.MAYBE)));
+    }
+
+    @Test
+    public void cannotUpsertExistingConstants() {
+        underTest.insert(TestEnum.YES);
+        thrown.expect(UnsupportedOperationException.class);
+        underTest.upsertAll(asList(TestEnum.NO, TestEnum.YES));
+    }
+
+    @Test
+    public void readsOnlyWrittenConstants() {
+        underTest.insert(TestEnum.NO);
+        assertThat(underTest.get(TestEnum.YES.ordinal()).isPresent(), is(false));
+        assertThat(underTest.getFor(TestEnum.NO.ordinal()), is(singletonList(TestEnum.NO)));
+        assertThat(underTest.getForAll(asList(TestEnum.NO.ordinal(), TestEnum.YES.ordinal(), TestEnum.NO.ordinal(), -1)),
+                is(singletonList(TestEnum.NO)));
+    }
+
+    @Test
+    public void cannotDelete() {
+        thrown.expect(UnsupportedOperationException.class);
+        underTest.delete(0);
+    }
+
+    @Test
+    public void cannotDeleteMonadic() {
+        thrown.expect(UnsupportedOperationException.class);
+        underTest.deleteMonadic(null);
+    }
+
+    @Test
+    public void sharesWritesOnlyOnceCommitted() throws Exception {
+        underTest.insert(TestEnum.YES);
+        assertThat(underTest.getAll(), is(singletonList(TestEnum.YES)));
+        final TransactionTemplate transaction = new TransactionTemplate(transactions);
+        transaction.execute((status) -> {
+            underTest.insert(TestEnum.NO);
+            assertThat(underTest.getAll(), is(asList(TestEnum.YES, TestEnum.NO)));
+            assertThat(CompletableFuture.supplyAsync(underTest::getAll).join(), is(singletonList(TestEnum.YES)));
+            return null;
+        });
+        assertThat(underTest.getAll(), is(asList(TestEnum.YES, TestEnum.NO)));
+        transaction.execute((status) -> {
+            underTest.insert(TestEnum.MAYBE);
+            assertThat(underTest.get(TestEnum.MAYBE.ordinal()).isPresent(), is(true));
+            status.setRollbackOnly();
+            return null;
+        });
+        assertThat(underTest.get(TestEnum.MAYBE.ordinal()).isPresent(), is(false));
+    }
+
+    @Test
+    public void readsSparseIdsFromMemory() {
+        final EnumMapperRepository<TestEnum> sparse = new EnumMapperRepository<TestEnum>(db, new TestSparseEnumMapper()) {
+        };
+        schemaService.applySchemaFor(sparse);
+        try {
+            schemaService.writeDataFor(sparse, TestEnum.NEVER, TestEnum.NO, TestEnum.YOU_HAVE_OFFENDED_ME);
+            assertThat(sparse.getAll(), is(asList(TestEnum.NO, TestEnum.NEVER, TestEnum.YOU_HAVE_OFFENDED_ME)));
+            db.execute("DELETE FROM " + TestSparseEnumMapper.TABLE);
+            final int never = TestEnum.NEVER.ordinal() * TestSparseEnumMapper.SPACING;
+            assertThat(sparse.get(never).isPresent(), is(true));
+            assertThat(sparse.get(never + 1).isPresent(), is(false));
+            assertThat(sparse.getForAll(asList(never, TestEnum.YES.ordinal() * TestSparseEnumMapper.SPACING, never)),
+                    is(singletonList(TestEnum.NEVER)));
+            assertThat(sparse.page(TestEnum.NO.ordinal() * TestSparseEnumMapper.SPACING, 1), is(singletonList(TestEnum.NEVER)));
+        } finally {
+            schemaService.nuke(sparse);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class InClausesTest {
+
+    @Test
+    public void bucketsArePowersOfTwoUpToTheMaximum() {
+        assertThat(InClauses.bucket(1, 1000), is(1));
+        assertThat(InClauses.bucket(2, 1000), is(2));
+        assertThat(InClauses.bucket(3, 1000), is(4));
+        assertThat(InClauses.bucket(512, 1000), is(512));
+        assertThat(InClauses.bucket(513, 1000), is(1000));
+    }
+
+    @Test
+    public void queriesAreCachedBySize() {
+        final InClauses.Query query = new InClauses.Query("SELECT * FROM t WHERE id IN", " ORDER BY id");
+        assertThat(query.sql(3), is("SELECT * FROM t WHERE id IN (?, ?, ?) ORDER BY id"));
+        assertThat(query.sql(3), sameInstance(query.sql(3)));
+    }
+
+    @Test
+    public void chunksArePaddedWithTheirLastKey() {
+        final InClauses.Query query = new InClauses.Query("IN", "");
+        final List<String> sqls = new ArrayList<>();
+        final List<Integer> ids = IntStream.range(0, 7).boxed().collect(Collectors.toList());
+        final List<Object> bound = InClauses.chunked(ids, 4, query, (sql, chunk) -> {
+            sqls.add(sql);
+            return Arrays.asList(chunk);
+        });
+        assertThat(sqls, is(Arrays.asList("IN (?, ?, ?, ?)", "IN (?, ?, ?, ?)")));
+        assertThat(bound, is(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 6)));
+    }
+
+    @Test
+    public void resultsAreArrangedInKeyOrder() {
+        assertThat(new ArrayList<>(InClauses.inKeyOrder(Arrays.asList(3, 1, 2), Arrays.asList(1, 3), (i) -> i).values()),
+                is(Arrays.asList(3, 1)));
+        assertThat(InClauses.inKeyOrder(Collections.singletonList(1), Collections.<Integer>emptyList(), (i) -> i).isEmpty(), is(true));
+    }
+
+    @Test
+    public void dialectsAreDetectedByProductName() {
+        assertThat(SqlDialect.forProductName("H2"), is(SqlDialect.H2));
+        assertThat(SqlDialect.forProductName("PostgreSQL"), is(SqlDialect.POSTGRES));
+        assertThat(SqlDialect.forProductName("Derby"), is(SqlDialect.OTHER));
+        assertThat(SqlDialect.forProductName(null), is(SqlDialect.OTHER));
+    }
+
+    @Test
+    public void limitsAreDialectSpecific() {
+        final String ordered = "SELECT id FROM items ORDER BY id";
+        assertThat(SqlDialect.H2.limit(ordered), is(ordered + " LIMIT ?"));
+        assertThat(SqlDialect.MYSQL.limit(ordered), is(ordered + " LIMIT ?"));
+        assertThat(SqlDialect.ORACLE.limit(ordered), is(ordered + " FETCH FIRST ? ROWS ONLY"));
+        assertThat(SqlDialect.SQL_SERVER.limit(ordered), is(ordered + " OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY"));
+        assertThat(SqlDialect.H2.first("SELECT 1 FROM items"), is("SELECT 1 FROM items LIMIT 1"));
+        assertThat(SqlDialect.ORACLE.first("SELECT 1 FROM items"), is("SELECT 1 FROM items FETCH FIRST 1 ROWS ONLY"));
+        assertThat(SqlDialect.SQL_SERVER.first("SELECT 1 FROM items"), is("SELECT TOP 1 1 FROM items"));
+    }
+
+    @Test
+    public void upsertsAreDialectSpecific() {
+        final List<String> columns = Arrays.asList("id", "name", "price");
+        assertThat(SqlDialect.H2.upsert("items", columns, "id"),
+                is("MERGE INTO items (id, name, price) KEY (id) VALUES (?, ?, ?)"));
+        assertThat(SqlDialect.POSTGRES.upsert("items", columns, "id"),
+                is("INSERT INTO items (id, name, price) VALUES (?, ?, ?) ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, price = EXCLUDED.price"));
+        assertThat(SqlDialect.POSTGRES.upsert("items", Collections.singletonList("id"), "id"),
+                is("INSERT INTO items (id) VALUES (?) ON CONFLICT (id) DO NOTHING"));
+        assertThat(SqlDialect.MYSQL.upsert("items", columns, "id"),
+                is("INSERT INTO items (id, name, price) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE name = VALUES(name), price = VALUES(price)"));
+        assertThat(SqlDialect.OTHER.upsert("items", columns, "id"), is(nullValue()));
+    }
+}
@@ -19,9 +19,11 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 
 import static net.zethmayr.benjamin.spring.common.model.History.DECLARATION_OF_INDEPENDENCE;
 import static net.zethmayr.benjamin.spring.common.model.History.MAGNA_CARTA;
+import static org.hamcrest.Matchers.comparesEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.isA;
 import static org.junit.Assert.assertThat;
@@ -89,4 +91,17 @@ public class JoiningRepositoryTest {
         val id = underTest.insert(toInsert);
         val read = underTest.get(id).orElseThrow(Exception::new);
     }
+
+    @Test
+    public void canUpsertByUpdatingOrInserting() throws Exception {
+        val existing = new TestPojo().setEvent(DECLARATION_OF_INDEPENDENCE).setWeighting(BigDecimal.TEN);
+        val id = underTest.insert(existing);
+        existing.setWeighting(BigDecimal.ONE);
+        val fresh = new TestPojo().setEvent(DECLARATION_OF_INDEPENDENCE).setWeighting(BigDecimal.ZERO);
+        val ids = underTest.upsertAll(Arrays.asList(existing, fresh));
+        assertThat(ids.get(0), is(id));
+        assertThat(ids.get(1), is(fresh.getId()));
+        assertThat(underTest.get(id).orElseThrow(Exception::new).getWeighting(), comparesEqualTo(BigDecimal.ONE));
+        assertThat(underTest.get(fresh.getId()).orElseThrow(Exception::new).getWeighting(), comparesEqualTo(BigDecimal.ZERO));
+    }
 }
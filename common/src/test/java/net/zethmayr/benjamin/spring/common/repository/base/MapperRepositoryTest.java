@@ -0,0 +1,489 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.val;
+import net.zethmayr.benjamin.spring.common.mapper.TestPojoMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.ColumnType;
+import net.zethmayr.benjamin.spring.common.mapper.base.ComposedMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.InvertibleRowMapperBase;
+import net.zethmayr.benjamin.spring.common.mapper.base.Mapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.SqlOp;
+import net.zethmayr.benjamin.spring.common.model.History;
+import net.zethmayr.benjamin.spring.common.model.TestItem;
+import net.zethmayr.benjamin.spring.common.model.TestPojo;
+import net.zethmayr.benjamin.spring.common.repository.TestItemRepository;
+import net.zethmayr.benjamin.spring.common.repository.TestPojoRepository;
+import net.zethmayr.benjamin.spring.common.repository.TestSchemaService;
+import net.zethmayr.benjamin.spring.common.util.ListBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static net.zethmayr.benjamin.spring.common.model.History.DECLARATION_OF_INDEPENDENCE;
+import static net.zethmayr.benjamin.spring.common.model.History.MAGNA_CARTA;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isA;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class MapperRepositoryTest {
+
+    @Autowired
+    private TestPojoRepository underTest;
+
+    @Autowired
+    private TestSchemaService schemaService;
+
+    @Autowired
+    private TestItemRepository items;
+
+    @SpyBean
+    private JdbcTemplate db;
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void exists() {
+        assertThat(underTest, isA(MapperRepository.class));
+    }
+
+    @Before
+    public void setUp() {
+        schemaService.applySchemaFor(underTest);
+    }
+
+    @After
+    public void tearDown() {
+        reset(db);
+        schemaService.nuke(underTest);
+    }
+
+    @Test
+    public void insertReturnsAQuery() {
+        assertThat(underTest.insert(), startsWith("INSERT"));
+    }
+
+    @Test
+    public void selectReturnsAQuery() {
+        assertThat(underTest.select(), startsWith("SELECT"));
+    }
+
+    private TestPojo doi() {
+        return new TestPojo()
+                .setComment("C")
+                .setEvent(DECLARATION_OF_INDEPENDENCE)
+                .setWeighting(new BigDecimal("0.17"));
+    }
+
+    @Test
+    public void insertedPojosWithIndexesAreUpdated() {
+        val inserted = doi();
+        assertThat(inserted.getId(), is(nullValue()));
+        val index = underTest.insert(inserted);
+        assertThat(inserted.getId(), is(index));
+    }
+
+    @Test
+    public void canWriteThenRead() {
+        val inserted = doi();
+        val index = underTest.insert(inserted);
+        val read = underTest.get(index).get();
+        assertThat(read.getComment(), is(inserted.getComment()));
+        assertThat(read.getEvent(), is(inserted.getEvent()));
+        assertThat(read.getWeighting(), is(inserted.getWeighting()));
+    }
+
+    @Test
+    public void canWriteThenDeleteThenNotRead() {
+        val foo = doi();
+        val index = underTest.insert(foo);
+        underTest.delete(index);
+        val read = underTest.get(index);
+        assertThat(read.isPresent(), is(false));
+    }
+
+    private CannotGetJdbcConnectionException oops() {
+        return new CannotGetJdbcConnectionException("oops");
+    }
+
+    @Test
+    public void insertThrowsIfJdbcThrows() {
+        thrown.expect(RepositoryException.class);
+        val foo = doi();
+        doThrow(oops()).when(db).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+        underTest.insert(foo);
+    }
+
+    @Test
+    public void insertThrowsIfItAffectsMoreThanOneRow() {
+        thrown.expect(RepositoryException.class);
+        doReturn(2).when(db).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+        underTest.insert(doi());
+    }
+
+    @Test
+    public void canDeleteMonadic() {
+        val foo = doi();
+        val index = underTest.insert(foo);
+        underTest.deleteMonadic(foo);
+        val read = underTest.get(index);
+        assertThat(read.isPresent(), is(false));
+    }
+
+    @Test
+    public void canGetMonadic() {
+        val original = doi();
+        val index = underTest.insert(original);
+        val copy = new TestPojo().setId(index);
+        val read = underTest.getMonadic(copy);
+        assertThat(read.isPresent(), is(true));
+        assertThat(read.get(), is(original));
+    }
+
+    @Test
+    public void getThrowsWhenItFindsMoreThanOneThing() {
+        thrown.expect(RepositoryException.class);
+        thrown.expectMessage(RepositoryException.TOO_MANY_THINGS);
+        doReturn(Arrays.asList(null, null))
+                .when(db).query(any(), any(RowMapper.class), eq(42));
+        underTest.get(42);
+    }
+
+    @Test
+    public void getRethrowsAnyRepositoryException() {
+        val marker = RepositoryException.writeFailed();
+        thrown.expect(sameInstance(marker));
+        val original = doi();
+        val index = underTest.insert(original);
+        doThrow(marker).when(db).query(anyString(), any(RowMapper.class), any());
+        underTest.get(index);
+    }
+
+    @Test
+    public void getThrowsIfJdbcThrows() {
+        thrown.expect(RepositoryException.class);
+        doThrow(oops()).when(db).query(anyString(), any(RowMapper.class), any());
+        underTest.get(0);
+    }
+
+    @Test
+    public void canGetForIndex() {
+        val fakeReturn = ListBuilder.array().add(doi(), doi()).build();
+        doReturn(fakeReturn).when(db).query(anyString(), any(RowMapper.class), any());
+        val returned = underTest.getFor(0);
+        assertThat(returned, hasSize(2));
+    }
+
+    @Test
+    public void getForThrowsWhenJdbcThrows() {
+        thrown.expect(RepositoryException.class);
+        doThrow(oops()).when(db).query(anyString(), any(RowMapper.class), any());
+        underTest.getFor(0);
+    }
+
+    @Test
+    public void getForRethrowsRepositoryException() {
+        val marker = RepositoryException.writeFailed();
+        thrown.expect(sameInstance(marker));
+        doThrow(marker).when(db).query(anyString(), any(RowMapper.class), any());
+        underTest.getFor(0);
+    }
+
+    @Test
+    public void canGetAll() {
+        val fakeReturn = ListBuilder.array().add(doi(), doi()).build();
+        doReturn(fakeReturn).when(db).query(anyString(), any(RowMapper.class));
+        val returned = underTest.getAll();
+        assertThat(returned, hasSize(2));
+    }
+
+    @Test
+    public void canPageByIndex() {
+        val ids = underTest.insertAll(Arrays.asList(doi(), doi(), doi()));
+        val first = underTest.page(null, 2);
+        assertThat(first, hasSize(2));
+        assertThat(first.get(0).getId(), is(ids.get(0)));
+        assertThat(first.get(1).getId(), is(ids.get(1)));
+        val second = underTest.page(first.get(1).getId(), 2);
+        assertThat(second, hasSize(1));
+        assertThat(second.get(0).getId(), is(ids.get(2)));
+        assertThat(underTest.page(ids.get(2), 2), hasSize(0));
+    }
+
+    @Test
+    public void canGetAllByIdsInGivenOrder() {
+        val ids = underTest.insertAll(Arrays.asList(doi(), doi(), doi()));
+        val found = underTest.getAll(Arrays.asList(ids.get(2), -1, ids.get(0), ids.get(2), null));
+        assertThat(found, hasSize(2));
+        assertThat(found.get(0).getId(), is(ids.get(2)));
+        assertThat(found.get(1).getId(), is(ids.get(0)));
+        val byId = underTest.getAllById(Arrays.asList(ids.get(1), ids.get(0)));
+        assertThat(new ArrayList<>(byId.keySet()), is(Arrays.asList(ids.get(1), ids.get(0))));
+        assertThat(byId.get(ids.get(1)).getId(), is(ids.get(1)));
+        assertThat(underTest.getDialect(), is(SqlDialect.H2));
+    }
+
+    @Test
+    public void getsForAllByTheReboundRelation() {
+        val ids = underTest.insertAll(Arrays.asList(doi(), doi(), doi()));
+        val later = underTest.rebindWithRelatedIndex(SqlOp.LT, TestPojoMapper.ID);
+        val found = later.getForAll(Arrays.asList(ids.get(1), null));
+        assertThat(found, hasSize(1));
+        assertThat(found.get(0).getId(), is(ids.get(2)));
+    }
+
+    @Test
+    public void pagesByTheReboundRelationWithoutSplittingIt() {
+        val ids = underTest.insertAll(Arrays.asList(
+                doi().setSteve(1), doi().setSteve(2), doi().setSteve(1), doi().setSteve(2), doi().setSteve(3)
+        ));
+        val bySteve = underTest.rebindWithRelatedIndex(SqlOp.EQ, TestPojoMapper.STEVE);
+        val first = bySteve.page(null, 1);
+        assertThat(first.stream().map(TestPojo::getId).collect(Collectors.toList()), is(Arrays.asList(ids.get(0), ids.get(2))));
+        val second = bySteve.page(1, 1);
+        assertThat(second.stream().map(TestPojo::getId).collect(Collectors.toList()), is(Arrays.asList(ids.get(1), ids.get(3))));
+        assertThat(bySteve.page(2, 5).stream().map(TestPojo::getId).collect(Collectors.toList()), is(Collections.singletonList(ids.get(4))));
+        assertThat(bySteve.page(3, 5), is(empty()));
+    }
+
+    @Test
+    public void canDeleteAllByIds() {
+        val ids = underTest.insertAll(Arrays.asList(doi(), doi(), doi()));
+        underTest.deleteAll(Arrays.asList(ids.get(0), ids.get(2), null));
+        val left = underTest.getAll();
+        assertThat(left, hasSize(1));
+        assertThat(left.get(0).getId(), is(ids.get(1)));
+    }
+
+    private void assertUpserts() {
+        val existing = doi();
+        underTest.insert(existing);
+        existing.setComment("Amended");
+        val fresh = doi().setSteve(3);
+        val ids = underTest.upsertAll(Arrays.asList(existing, fresh));
+        assertThat(ids, is(Arrays.asList(existing.getId(), fresh.getId())));
+        assertThat(underTest.getAll(), is(Arrays.asList(existing, fresh)));
+        fresh.setSteve(4);
+        underTest.upsertAll(Collections.singletonList(fresh));
+        assertThat(underTest.get(fresh.getId()).orElseThrow(IllegalStateException::new).getSteve(), is(4));
+        // given indexes are kept, even when not found
+        val given = doi().setId(fresh.getId() + 100);
+        assertThat(underTest.upsertAll(Collections.singletonList(given)), is(Collections.singletonList(given.getId())));
+        assertThat(underTest.get(given.getId()).orElseThrow(IllegalStateException::new), is(given));
+        assertThat(underTest.insert(doi()), is(given.getId() + 1));
+    }
+
+    @Test
+    public void canUpsertNewAndExistingObjects() {
+        assertThat(underTest.getDialect(), is(SqlDialect.H2));
+        assertUpserts();
+    }
+
+    @Test
+    public void canUpsertWithoutADialectStatement() {
+        underTest.setDialect(SqlDialect.OTHER);
+        try {
+            assertUpserts();
+        } finally {
+            underTest.setDialect(SqlDialect.H2);
+        }
+    }
+
+    @Getter
+    @Setter
+    @Accessors(chain = true)
+    public static class Calendar {
+        private Integer id;
+        private Set<History> events;
+    }
+
+    private static final Mapper<Calendar, Integer, Integer> CALENDAR_ID = ComposedMapper.simpleField(
+            "id", Calendar::getId, ColumnType.INTEGER_INDEX, Calendar::setId);
+    private static final Mapper<Calendar, Set<History>, Long> EVENTS = ComposedMapper.enumSet(
+            "events", History.class, History::bit, Calendar::getEvents, Calendar::setEvents);
+
+    @Test
+    public void readsStoredBitmasksBack() {
+        val calendars = new MapperRepository<Calendar, Integer>(db, new InvertibleRowMapperBase<Calendar>(
+                Calendar.class, Arrays.asList(CALENDAR_ID, EVENTS), "calendars", Calendar::new) {
+        }, CALENDAR_ID) {
+        };
+        schemaService.applySchemaFor(calendars);
+        try {
+            val stored = new Calendar().setEvents(EnumSet.of(MAGNA_CARTA, DECLARATION_OF_INDEPENDENCE));
+            val id = calendars.insert(stored);
+            assertThat(db.queryForObject("SELECT events FROM calendars WHERE id = ?", Long.class, id), is(1L << 12 | 1L << 17));
+            assertThat(calendars.get(id).orElseThrow(IllegalStateException::new).getEvents(), is(stored.getEvents()));
+            calendars.update(stored.setEvents(EnumSet.noneOf(History.class)));
+            assertThat(calendars.get(id).orElseThrow(IllegalStateException::new).getEvents(), is(empty()));
+        } finally {
+            schemaService.nuke(calendars);
+        }
+    }
+
+    @Test
+    public void canUpdateEveryFieldOfUntrackedObjects() {
+        val inserted = doi();
+        underTest.insert(inserted);
+        inserted.setComment("Amended").setSteve(7);
+        underTest.update(inserted);
+        val read = underTest.get(inserted.getId()).orElseThrow(IllegalStateException::new);
+        assertThat(read, is(inserted));
+    }
+
+    @Test
+    public void updatesOnlyChangedFieldsOfTrackedObjects() {
+        schemaService.applySchemaFor(items);
+        try {
+            val ids = items.insertAll(Arrays.asList(
+                    new TestItem().setName("widget").setPrice(new BigDecimal("2.50")),
+                    new TestItem().setName("gadget").setPrice(new BigDecimal("3.50")),
+                    new TestItem().setName("doohickey").setPrice(new BigDecimal("4.50"))
+            ));
+            val read = new ArrayList<TestItem>(items.getAllById(ids).values());
+            db.update("UPDATE items SET item_name = 'renamed', price = 0 WHERE id IN (?, ?, ?)", ids.toArray());
+            read.get(0).setPrice(new BigDecimal("1.00"));
+            read.get(1).setName("gizmo");
+            items.updateAll(read);
+            assertThat(items.get(ids.get(0)).orElseThrow(IllegalStateException::new),
+                    is(new TestItem().setId(ids.get(0)).setName("renamed").setPrice(new BigDecimal("1.00"))));
+            assertThat(items.get(ids.get(1)).orElseThrow(IllegalStateException::new),
+                    is(new TestItem().setId(ids.get(1)).setName("gizmo").setPrice(new BigDecimal("0.00"))));
+            // with no changes, nothing is written
+            assertThat(items.get(ids.get(2)).orElseThrow(IllegalStateException::new),
+                    is(new TestItem().setId(ids.get(2)).setName("renamed").setPrice(new BigDecimal("0.00"))));
+        } finally {
+            schemaService.nuke(items);
+        }
+    }
+
+    @Test
+    public void writesNothingForUnchangedTrackedObjects() {
+        schemaService.applySchemaFor(items);
+        try {
+            val ids = items.insertAll(Arrays.asList(
+                    new TestItem().setName("widget").setPrice(new BigDecimal("2.50")),
+                    new TestItem().setName("gadget").setPrice(new BigDecimal("3.50"))
+            ));
+            val read = new ArrayList<TestItem>(items.getAllById(ids).values());
+            clearInvocations(db);
+            items.updateAll(read);
+            items.update(read.get(0));
+            verifyNoMoreInteractions(db);
+        } finally {
+            schemaService.nuke(items);
+        }
+    }
+
+    @Test
+    public void updatingAMissingObjectThrows() {
+        thrown.expect(RepositoryException.class);
+        underTest.update(doi().setId(42));
+    }
+
+    @Test
+    public void pagesMustHaveAPositiveSize() {
+        thrown.expect(RepositoryException.class);
+        underTest.page(null, 0);
+    }
+
+    @Test
+    public void getAllThrowsWhenJdbcThrows() {
+        thrown.expect(RepositoryException.class);
+        doThrow(oops()).when(db).query(anyString(), any(RowMapper.class));
+        underTest.getAll();
+    }
+
+    @Test
+    public void getAllRethrowsRepositoryException() {
+        val marker = RepositoryException.writeFailed();
+        thrown.expect(sameInstance(marker));
+        doThrow(marker).when(db).query(anyString(), any(RowMapper.class));
+        underTest.getAll();
+    }
+
+    @Test
+    public void canGetUnsafe() {
+        val fakeReturn = ListBuilder.array().add(doi()).add(doi()).build();
+        doReturn(fakeReturn).when(db).query(anyString(), any(RowMapper.class), any());
+        val returned = underTest.getUnsafe(underTest.getById, 0);
+        assertThat(returned, hasSize(2));
+    }
+
+    @Test
+    public void getUnsafeThrowsWhenJdbcThrows() {
+        thrown.expect(RepositoryException.class);
+        doThrow(oops()).when(db).query(anyString(), any(RowMapper.class), any());
+        underTest.getUnsafe(underTest.getById, 0);
+    }
+
+    @Test
+    public void getUnsafeRethrowsRepositoryException() {
+        val marker = RepositoryException.writeFailed();
+        thrown.expect(sameInstance(marker));
+        doThrow(marker).when(db).query(anyString(), any(RowMapper.class), any());
+        underTest.getUnsafe(underTest.getById, 0);
+    }
+
+    @Test
+    public void canFindAMapper() {
+        val found = underTest.findMapper("steve");
+        assertThat(found, is(not(nullValue())));
+    }
+
+    @Test
+    public void cannotFindANonexistentMapper() {
+        val found = underTest.findMapper("joe");
+        assertThat(found, is(nullValue()));
+    }
+
+    @Test
+    public void canFindAMapperForOurTable() {
+        val found = underTest.findMapper("commentary", "steve");
+        assertThat(found, is(not(nullValue())));
+    }
+
+    @Test
+    public void cannotFindAMapperForNotOurTable() {
+        val found = underTest.findMapper("comments", "steve");
+        assertThat(found, is(nullValue()));
+    }
+}
@@ -0,0 +1,199 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import lombok.val;
+import net.zethmayr.benjamin.spring.common.mapper.TestPojoMapper;
+import net.zethmayr.benjamin.spring.common.model.TestPojo;
+import net.zethmayr.benjamin.spring.common.repository.TestPojoRepository;
+import net.zethmayr.benjamin.spring.common.repository.TestSchemaService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static net.zethmayr.benjamin.spring.common.mapper.base.SqlOp.EQ;
+import static net.zethmayr.benjamin.spring.common.mapper.base.SqlOp.GT;
+import static net.zethmayr.benjamin.spring.common.mapper.base.SqlOp.LIKE;
+import static net.zethmayr.benjamin.spring.common.model.History.DECLARATION_OF_INDEPENDENCE;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class QueryTest {
+
+    @Autowired
+    private TestPojoRepository underTest;
+
+    @Autowired
+    private TestSchemaService schemaService;
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Before
+    public void setUp() {
+        schemaService.applySchemaFor(underTest);
+        underTest.insertAll(Arrays.asList(
+                pojo("Apple", 1),
+                pojo("Avocado", 2),
+                pojo("Banana", 3),
+                pojo("Apricot", 4),
+                pojo(null, 5)
+        ));
+    }
+
+    @After
+    public void tearDown() {
+        schemaService.nuke(underTest);
+    }
+
+    @Test
+    public void cannotCountWithoutReadingUnsafe() {
+        @SuppressWarnings("unchecked")
+        final Repository<TestPojo, Integer> cannotRead = mock(Repository.class, CALLS_REAL_METHODS);
+        doReturn(underTest.mapper()).when(cannotRead).mapper();
+        thrown.expect(RepositoryException.class);
+        thrown.expectMessage("readUnsafe");
+        cannotRead.count();
+    }
+
+    private static TestPojo pojo(final String comment, final int steve) {
+        return new TestPojo()
+                .setComment(comment)
+                .setSteve(steve)
+                .setWeighting(new BigDecimal("1.25").multiply(new BigDecimal(steve)))
+                .setEvent(DECLARATION_OF_INDEPENDENCE);
+    }
+
+    private static List<Integer> steves(final List<TestPojo> pojos) {
+        return pojos.stream().map(TestPojo::getSteve).collect(Collectors.toList());
+    }
+
+    @Test
+    public void composesAlternativeConditions() {
+        val query = underTest.query()
+                .where(TestPojoMapper.STEVE, GT, 1)
+                .and(TestPojoMapper.COMMENT, LIKE, "A%")
+                .or().isNull(TestPojoMapper.COMMENT)
+                .orderBy(TestPojoMapper.STEVE, false);
+        assertThat(query.sql(), is(underTest.select()
+                + " WHERE (steve > ? AND comment LIKE ?) OR (comment IS NULL) ORDER BY steve DESC"));
+        assertThat(steves(query.list()), is(Arrays.asList(5, 4, 2)));
+    }
+
+    @Test
+    public void canSelectRangesAndLists() {
+        assertThat(steves(underTest.query()
+                .between(TestPojoMapper.STEVE, 2, 4)
+                .isNotNull(TestPojoMapper.COMMENT)
+                .orderBy(TestPojoMapper.STEVE)
+                .list()), is(Arrays.asList(2, 3, 4)));
+        assertThat(steves(underTest.query()
+                .in(TestPojoMapper.COMMENT, Arrays.asList("Banana", "Apple", "Cherry"))
+                .orderBy(TestPojoMapper.STEVE)
+                .list()), is(Arrays.asList(1, 3)));
+    }
+
+    @Test
+    public void emptyListsMatchNothing() {
+        assertThat(underTest.query().in(TestPojoMapper.STEVE, Collections.emptyList()).list(), is(empty()));
+    }
+
+    @Test
+    public void sharesSqlPerShape() {
+        val three = underTest.query().in(TestPojoMapper.STEVE, Arrays.asList(1, 2, 3)).and(TestPojoMapper.COMMENT, EQ, "Apple");
+        val four = underTest.query().in(TestPojoMapper.STEVE, Arrays.asList(4, 3, 2, 1)).and(TestPojoMapper.COMMENT, EQ, "Banana");
+        assertThat(three.sql(), sameInstance(four.sql()));
+        assertThat(three.sql(), is(underTest.select() + " WHERE steve IN (?, ?, ?, ?) AND comment = ?"));
+        assertThat(Arrays.asList(three.values()), is(Arrays.<Object>asList(1, 2, 3, 3, "Apple")));
+        assertThat(steves(three.list()), is(Collections.singletonList(1)));
+    }
+
+    @Test
+    public void splitsLongListsAndLimitsParameters() {
+        final List<Integer> many = IntStream.rangeClosed(-1500, 1).boxed().collect(Collectors.toList());
+        val query = underTest.query().in(TestPojoMapper.STEVE, many);
+        assertThat(query.sql(), startsWith(underTest.select() + " WHERE (steve IN (?"));
+        assertThat(query.sql().split(" OR ").length, is(2));
+        assertThat(query.values().length, is(1024 + 512));
+        assertThat(steves(query.list()), is(Collections.singletonList(1)));
+        underTest.setDialect(SqlDialect.SQL_SERVER);
+        try {
+            thrown.expect(RepositoryException.class);
+            underTest.query().in(TestPojoMapper.STEVE, many).in(TestPojoMapper.STEVE, many).list();
+        } finally {
+            underTest.setDialect(SqlDialect.H2);
+        }
+    }
+
+    @Test
+    public void cannotCompareWithNull() {
+        thrown.expect(RepositoryException.class);
+        underTest.query().where(TestPojoMapper.COMMENT, EQ, null);
+    }
+
+    @Test
+    public void cannotEndWithOr() {
+        thrown.expect(RepositoryException.class);
+        underTest.query().where(TestPojoMapper.STEVE, EQ, 1).or().sql();
+    }
+
+    @Test
+    public void countsWithoutReading() {
+        assertThat(underTest.count(), is(5L));
+        assertThat(underTest.exists(), is(true));
+        assertThat(underTest.query().where(TestPojoMapper.COMMENT, LIKE, "A%").count(), is(3L));
+        assertThat(underTest.query().where(TestPojoMapper.COMMENT, EQ, "Banana").exists(), is(true));
+        assertThat(underTest.query().where(TestPojoMapper.COMMENT, EQ, "Cherry").exists(), is(false));
+        assertThat(underTest.query().in(TestPojoMapper.STEVE, Collections.emptyList()).count(), is(0L));
+    }
+
+    @Test
+    public void aggregatesDecodeAsTheirFields() {
+        assertThat(underTest.query().sum(TestPojoMapper.WEIGHTING).orElseThrow(IllegalStateException::new),
+                comparesEqualTo(new BigDecimal("18.75")));
+        assertThat(underTest.query().isNotNull(TestPojoMapper.COMMENT).max(TestPojoMapper.WEIGHTING)
+                .orElseThrow(IllegalStateException::new), comparesEqualTo(new BigDecimal("5.00")));
+        assertThat(underTest.query().min(TestPojoMapper.COMMENT), is(Optional.of("Apple")));
+        assertThat(underTest.query().max(TestPojoMapper.EVENT), is(Optional.of(DECLARATION_OF_INDEPENDENCE)));
+        assertThat(underTest.query().avg(TestPojoMapper.STEVE), is(Optional.of(3.0)));
+        assertThat(underTest.query().where(TestPojoMapper.STEVE, GT, 5).sum(TestPojoMapper.STEVE), is(Optional.empty()));
+    }
+
+    @Test
+    public void aggregatesGroupedByFields() {
+        assertThat(underTest.query().count(TestPojoMapper.EVENT),
+                is(Collections.singletonMap(DECLARATION_OF_INDEPENDENCE, 5L)));
+        final Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("Apple", 1);
+        expected.put("Apricot", 4);
+        expected.put("Avocado", 2);
+        final Map<String, Integer> summed = underTest.query()
+                .where(TestPojoMapper.COMMENT, LIKE, "A%")
+                .sum(TestPojoMapper.STEVE, TestPojoMapper.COMMENT);
+        assertThat(new LinkedHashMap<>(summed), is(expected));
+        assertThat(Arrays.asList(summed.keySet().toArray()), is(Arrays.<Object>asList("Apple", "Apricot", "Avocado")));
+    }
+}
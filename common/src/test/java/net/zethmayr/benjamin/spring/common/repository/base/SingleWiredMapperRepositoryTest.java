@@ -0,0 +1,98 @@
+package net.zethmayr.benjamin.spring.common.repository.base;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import net.zethmayr.benjamin.spring.common.model.TestPojo;
+import net.zethmayr.benjamin.spring.common.repository.TestSchemaService;
+import net.zethmayr.benjamin.spring.common.repository.TestSingleWiredPojoRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Slf4j
+public class SingleWiredMapperRepositoryTest {
+
+    @Autowired
+    private TestSingleWiredPojoRepository underTest;
+
+    @Autowired
+    private TestSchemaService schema;
+
+    @Before
+    public void setUp() {
+        schema.applySchemaFor(underTest);
+    }
+
+    @After
+    public void cleanUp() {
+        schema.nuke(underTest);
+    }
+
+    @Test
+    public void canWriteThenRead() {
+        val writ = new TestPojo();
+        LOG.debug("writ is {}", writ);
+        underTest.insert(writ);
+        LOG.debug("writ is {}", writ);
+        val read = underTest.getMonadic(writ).orElse(null);
+        LOG.debug("read is {}", read);
+        assertThat(read, is(writ));
+    }
+
+    @Test
+    public void canInsertAllInBatchesThenRead() {
+        assertThat(underTest.getBatchSize(), is(2));
+        val writ = Arrays.asList(
+                new TestPojo().setComment("one"),
+                new TestPojo().setComment("two"),
+                new TestPojo().setComment("three"),
+                new TestPojo().setComment("four"),
+                new TestPojo().setComment("five")
+        );
+        val ids = underTest.insertAll(writ);
+        assertThat(ids, hasSize(writ.size()));
+        for (int i = 0; i < writ.size(); i++) {
+            assertThat(writ.get(i).getId(), is(ids.get(i)));
+            assertThat(underTest.get(ids.get(i)).orElse(null), is(writ.get(i)));
+        }
+        assertThat(underTest.getAll(), hasSize(writ.size()));
+    }
+
+    @Test
+    public void insertAllOfNothingIsNothing() {
+        assertThat(underTest.insertAll(Collections.emptyList()), is(empty()));
+    }
+
+    @Test
+    public void canStreamAndForEach() {
+        val writ = Arrays.asList(
+                new TestPojo().setComment("one"),
+                new TestPojo().setComment("two"),
+                new TestPojo().setComment("three")
+        );
+        underTest.insertAll(writ);
+        assertThat(underTest.getFetchSize(), is(2));
+        try (val read = underTest.stream()) {
+            assertThat(read.collect(Collectors.toList()), is(writ));
+        }
+        val seen = new ArrayList<TestPojo>();
+        underTest.forEach(seen::add);
+        assertThat(seen, is(writ));
+    }
+}
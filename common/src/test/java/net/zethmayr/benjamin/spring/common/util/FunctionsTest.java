@@ -0,0 +1,40 @@
+package net.zethmayr.benjamin.spring.common.util;
+
+import net.zethmayr.benjamin.spring.common.model.History;
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static net.zethmayr.benjamin.spring.common.model.History.COLUMBUS;
+import static net.zethmayr.benjamin.spring.common.model.History.DECLARATION_OF_INDEPENDENCE;
+import static net.zethmayr.benjamin.spring.common.model.History.MAGNA_CARTA;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FunctionsTest {
+    @Test
+    public void bitmasksRoundTrip() {
+        for (final EnumSet<History> events : new EnumSet[]{
+                EnumSet.noneOf(History.class), EnumSet.of(COLUMBUS), EnumSet.allOf(History.class)
+        }) {
+            assertThat(Functions.enumSet(History.class, Functions.bitmask(events, History::bit), History::bit), is(events));
+        }
+    }
+
+    @Test
+    public void membershipIsABitTest() {
+        final long bits = Functions.bitmask(EnumSet.of(MAGNA_CARTA, DECLARATION_OF_INDEPENDENCE), History::bit);
+        assertThat((bits & Functions.bitmask(MAGNA_CARTA, History::bit)) != 0L, is(true));
+        assertThat((bits & Functions.bitmask(COLUMBUS, History::bit)) != 0L, is(false));
+    }
+
+    @Test
+    public void extraBitsAreIgnored() {
+        assertThat(Functions.enumSet(History.class, -1L, History::bit), is(EnumSet.allOf(History.class)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bitsMustFitALong() {
+        Functions.bitmask(COLUMBUS, (event) -> Long.SIZE);
+    }
+}
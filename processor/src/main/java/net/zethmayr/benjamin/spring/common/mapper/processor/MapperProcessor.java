@@ -0,0 +1,317 @@
+package net.zethmayr.benjamin.spring.common.mapper.processor;
+
+import net.zethmayr.benjamin.spring.common.mapper.annotation.MappedColumn;
+import net.zethmayr.benjamin.spring.common.mapper.annotation.MappedTable;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static net.zethmayr.benjamin.spring.common.mapper.annotation.MappedColumn.Kind;
+
+/**
+ * Generates row mappers for {@link MappedTable} POJOs at compile time.
+ * <p>
+ * Each generated mapper declares its field mappers, table name, SELECT and INSERT queries as constants,
+ * so nothing is assembled with streams or reflection when it is constructed.
+ * Accessors are bound as method references, and primitive int and long fields
+ * use {@link net.zethmayr.benjamin.spring.common.mapper.base.IntMapper IntMapper} and
+ * {@link net.zethmayr.benjamin.spring.common.mapper.base.LongMapper LongMapper}.
+ * <p>
+ * This processor ships in its own artifact, {@code common-processor}, rather than in the library;
+ * put it on the annotation processor path after lombok, so it sees the accessors lombok generates.
+ */
+@SupportedAnnotationTypes("net.zethmayr.benjamin.spring.common.mapper.annotation.MappedTable")
+public class MapperProcessor extends AbstractProcessor {
+
+    private static final String BASE = "net.zethmayr.benjamin.spring.common.mapper.base.";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment round) {
+        for (final Element element : round.getElementsAnnotatedWith(MappedTable.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@MappedTable applies only to classes");
+                continue;
+            }
+            final TypeElement pojo = (TypeElement) element;
+            final List<Column> columns = columnsOf(pojo);
+            if (columns == null) {
+                continue;
+            }
+            try {
+                write(pojo, columns);
+            } catch (IOException ioe) {
+                error(pojo, "Could not write generated mapper: " + ioe.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A mapped field, as it will appear in generated code.
+     */
+    private static final class Column {
+        private String constant;
+        private String name;
+        private Kind kind;
+        private String javaType;
+        private TypeKind primitive;
+        private String enumType;
+        private String getter;
+        private String setter;
+    }
+
+    private List<Column> columnsOf(final TypeElement pojo) {
+        final List<Column> columns = new ArrayList<>();
+        final Set<String> constants = new HashSet<>();
+        constants.add("FIELDS");
+        constants.add("TABLE");
+        constants.add("SELECT");
+        constants.add("INSERT");
+        boolean ok = true;
+        for (final Element member : pojo.getEnclosedElements()) {
+            final MappedColumn annotation = member.getAnnotation(MappedColumn.class);
+            if (annotation == null || member.getKind() != ElementKind.FIELD) {
+                continue;
+            }
+            final VariableElement field = (VariableElement) member;
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                error(field, "@MappedColumn does not apply to static fields");
+                ok = false;
+                continue;
+            }
+            final Column column = new Column();
+            final String fieldName = field.getSimpleName().toString();
+            final String capitalized = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+            column.name = annotation.name().isEmpty() ? snakeCase(fieldName) : annotation.name();
+            column.constant = snakeCase(fieldName).toUpperCase();
+            column.getter = annotation.getter().isEmpty() ? "get" + capitalized : annotation.getter();
+            column.setter = annotation.setter().isEmpty() ? "set" + capitalized : annotation.setter();
+            if (!constants.add(column.constant)) {
+                error(field, "Field constant " + column.constant + " would be declared twice");
+                ok = false;
+                continue;
+            }
+            if (!resolveKind(column, field.asType(), annotation.type())) {
+                error(field, "Cannot map a field of type " + field.asType() + " as " + annotation.type());
+                ok = false;
+                continue;
+            }
+            columns.add(column);
+        }
+        if (columns.isEmpty()) {
+            error(pojo, "@MappedTable classes need at least one @MappedColumn field");
+            ok = false;
+        }
+        return ok ? columns : null;
+    }
+
+    private boolean resolveKind(final Column column, final TypeMirror type, final Kind requested) {
+        final boolean isId = "id".equals(column.name);
+        switch (type.getKind()) {
+            case INT:
+                column.primitive = TypeKind.INT;
+                column.javaType = "Integer";
+                return integral(column, requested, isId);
+            case LONG:
+                column.primitive = TypeKind.LONG;
+                column.javaType = "Long";
+                return only(column, requested, Kind.LONG);
+            case DECLARED:
+                break;
+            default:
+                return false;
+        }
+        final TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+        final String qualified = typeElement.getQualifiedName().toString();
+        if (typeElement.getKind() == ElementKind.ENUM) {
+            column.javaType = qualified;
+            column.enumType = qualified;
+            return only(column, requested, Kind.INTEGER);
+        }
+        switch (qualified) {
+            case "java.lang.Integer":
+                column.javaType = "Integer";
+                return integral(column, requested, isId);
+            case "java.lang.Long":
+                column.javaType = "Long";
+                return only(column, requested, Kind.LONG);
+            case "java.lang.String":
+                column.javaType = "String";
+                if (requested == Kind.SHORT_STRING) {
+                    column.kind = Kind.SHORT_STRING;
+                    return true;
+                }
+                return only(column, requested, Kind.LONG_STRING);
+            case "java.time.Instant":
+                column.javaType = qualified;
+                return only(column, requested, Kind.INSTANT);
+            case "java.math.BigDecimal":
+                column.javaType = qualified;
+                return only(column, requested, Kind.MONEY);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean integral(final Column column, final Kind requested, final boolean isId) {
+        if (requested == Kind.AUTO) {
+            column.kind = isId ? Kind.INTEGER_INDEX : Kind.INTEGER;
+            return true;
+        }
+        column.kind = requested;
+        return requested == Kind.INTEGER_INDEX || requested == Kind.INTEGER;
+    }
+
+    private static boolean only(final Column column, final Kind requested, final Kind allowed) {
+        column.kind = allowed;
+        return requested == Kind.AUTO || requested == allowed;
+    }
+
+    private void write(final TypeElement pojo, final List<Column> columns) throws IOException {
+        final MappedTable table = pojo.getAnnotation(MappedTable.class);
+        final PackageElement pkg = processingEnv.getElementUtils().getPackageOf(pojo);
+        final String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        final String simpleName = table.mapper().isEmpty()
+                ? pojo.getSimpleName() + "GeneratedMapper"
+                : table.mapper();
+        final String pojoType = pojo.getQualifiedName().toString();
+        final String select = "SELECT "
+                + columns.stream().map(c -> c.name).collect(Collectors.joining(", "))
+                + " FROM " + table.value();
+        final List<Column> inserted = columns.stream()
+                .filter(c -> c.kind != Kind.INTEGER_INDEX)
+                .collect(Collectors.toList());
+        final String insert = "INSERT INTO " + table.value() + " ("
+                + inserted.stream().map(c -> c.name).collect(Collectors.joining(", "))
+                + ") VALUES ("
+                + inserted.stream().map(c -> "?").collect(Collectors.joining(", "))
+                + ")";
+
+        try (final PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(packageName.isEmpty() ? simpleName : packageName + "." + simpleName, pojo)
+                .openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("import " + BASE + "ClassFieldMapper;");
+            out.println("import " + BASE + "ColumnType;");
+            out.println("import " + BASE + "ComposedMapper;");
+            out.println("import " + BASE + "IntMapper;");
+            out.println("import " + BASE + "InvertibleRowMapperBase;");
+            out.println("import " + BASE + "LongMapper;");
+            out.println("import " + BASE + "Mapper;");
+            out.println();
+            out.println("import java.util.Arrays;");
+            out.println("import java.util.Collections;");
+            out.println("import java.util.List;");
+            out.println();
+            out.println("/**");
+            out.println(" * Row mapper for {@link " + pojoType + "}, generated from its annotations.");
+            out.println(" */");
+            out.println("public class " + simpleName + " extends InvertibleRowMapperBase<" + pojoType + "> {");
+            for (final Column c : columns) {
+                if (c.enumType != null) {
+                    out.println("    private static final " + c.enumType + "[] " + c.constant + "_VALUES = " + c.enumType + ".values();");
+                }
+                out.println("    public static final " + declaredType(pojoType, c) + " " + c.constant + " = " + initializer(pojoType, c) + ";");
+            }
+            out.println("    public static final List<ClassFieldMapper<" + pojoType + ">> FIELDS = Collections.unmodifiableList(Arrays.asList(");
+            out.println("            " + columns.stream().map(c -> c.constant).collect(Collectors.joining(", ")));
+            out.println("    ));");
+            out.println("    public static final String TABLE = " + literal(table.value()) + ";");
+            out.println("    public static final String SELECT = " + literal(select) + ";");
+            out.println("    public static final String INSERT = " + literal(insert) + ";");
+            out.println();
+            out.println("    public " + simpleName + "() {");
+            out.println("        super(" + pojoType + ".class, FIELDS, TABLE, " + pojoType + "::new, SELECT, INSERT);");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private static String declaredType(final String pojoType, final Column c) {
+        if (c.primitive == TypeKind.INT) {
+            return "IntMapper<" + pojoType + ">";
+        }
+        if (c.primitive == TypeKind.LONG) {
+            return "LongMapper<" + pojoType + ">";
+        }
+        if (c.kind == Kind.MONEY) {
+            return "Mapper<" + pojoType + ", java.math.BigDecimal, Long>";
+        }
+        if (c.enumType != null) {
+            return "Mapper<" + pojoType + ", " + c.enumType + ", Integer>";
+        }
+        return "Mapper<" + pojoType + ", " + c.javaType + ", " + c.javaType + ">";
+    }
+
+    private static String initializer(final String pojoType, final Column c) {
+        final String name = literal(c.name);
+        final String getter = pojoType + "::" + c.getter;
+        final String setter = pojoType + "::" + c.setter;
+        final String columnType = "ColumnType." + c.kind;
+        if (c.primitive == TypeKind.INT) {
+            return "ComposedMapper.intField(" + name + ", " + getter + ", " + columnType + ", " + setter + ")";
+        }
+        if (c.primitive == TypeKind.LONG) {
+            return "ComposedMapper.longField(" + name + ", " + getter + ", " + columnType + ", " + setter + ")";
+        }
+        if (c.kind == Kind.MONEY) {
+            return "ComposedMapper.money(" + name + ", " + getter + ", " + setter + ")";
+        }
+        if (c.enumType != null) {
+            return "ComposedMapper.field(" + name + ", " + getter + ", " + c.enumType + "::ordinal, " + columnType
+                    + ", (ordinal) -> " + c.constant + "_VALUES[ordinal], " + setter + ")";
+        }
+        return "ComposedMapper.simpleField(" + name + ", " + getter + ", " + columnType + ", " + setter + ")";
+    }
+
+    private static String snakeCase(final String camel) {
+        final StringBuilder sb = new StringBuilder(camel.length() + 4);
+        for (int i = 0; i < camel.length(); i++) {
+            final char c = camel.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0) {
+                    sb.append('_');
+                }
+                sb.append(Character.toLowerCase(c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String literal(final String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
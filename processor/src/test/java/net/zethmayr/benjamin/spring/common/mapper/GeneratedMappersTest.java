@@ -0,0 +1,85 @@
+package net.zethmayr.benjamin.spring.common.mapper;
+
+import net.zethmayr.benjamin.spring.common.mapper.base.ClassFieldMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.IntMapper;
+import net.zethmayr.benjamin.spring.common.mapper.base.InvertibleRowMapperBase;
+import net.zethmayr.benjamin.spring.common.model.AnnotatedItem;
+import net.zethmayr.benjamin.spring.common.model.AnnotatedItemGeneratedMapper;
+import net.zethmayr.benjamin.spring.common.model.AnnotatedPojo;
+import net.zethmayr.benjamin.spring.common.model.AnnotatedPojoGeneratedMapper;
+import org.junit.Test;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.stream.Collectors;
+
+import static net.zethmayr.benjamin.spring.common.model.History.COLUMBUS;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isA;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GeneratedMappersTest {
+
+    private static <T> Object[] fieldNames(final InvertibleRowMapperBase<T> mapper) {
+        return mapper.fields().stream().map(ClassFieldMapper::fieldName).collect(Collectors.toList()).toArray();
+    }
+
+    @Test
+    public void generatedPojoMapperMatchesHandWrittenMapper() {
+        final TestPojoMapper handWritten = new TestPojoMapper();
+        final AnnotatedPojoGeneratedMapper generated = new AnnotatedPojoGeneratedMapper();
+        assertThat(generated.table(), is(handWritten.table()));
+        assertThat(generated.select(), is(handWritten.select()));
+        assertThat(generated.insert(), is(handWritten.insert()));
+        assertThat(fieldNames(generated), arrayContaining(fieldNames(handWritten)));
+    }
+
+    @Test
+    public void generatedItemMapperMatchesHandWrittenMapper() {
+        final TestItemMapper handWritten = new TestItemMapper();
+        final AnnotatedItemGeneratedMapper generated = new AnnotatedItemGeneratedMapper();
+        assertThat(generated.table(), is(handWritten.table()));
+        assertThat(generated.select(), is(handWritten.select()));
+        assertThat(generated.insert(), is(handWritten.insert()));
+        assertThat(fieldNames(generated), arrayContaining(fieldNames(handWritten)));
+        assertThat(AnnotatedItemGeneratedMapper.ID, isA(IntMapper.class));
+    }
+
+    @Test
+    public void generatedMapperCanMapFromRs() throws Exception {
+        final ResultSet mockRs = mock(ResultSet.class);
+        when(mockRs.findColumn("id")).thenReturn(1);
+        when(mockRs.findColumn("event")).thenReturn(2);
+        when(mockRs.findColumn("comment")).thenReturn(3);
+        when(mockRs.findColumn("steve")).thenReturn(4);
+        when(mockRs.findColumn("weighting")).thenReturn(5);
+        when(mockRs.getInt(1)).thenReturn(37);
+        when(mockRs.getInt(2)).thenReturn(COLUMBUS.ordinal());
+        when(mockRs.getString(3)).thenReturn("sailed");
+        when(mockRs.getInt(4)).thenReturn(4);
+        when(mockRs.getLong(5)).thenReturn(1492L);
+        final RowMapper<AnnotatedPojo> bound = new AnnotatedPojoGeneratedMapper().forQuery();
+        final AnnotatedPojo read = bound.mapRow(mockRs, 1);
+        assertThat(read.getId(), is(37));
+        assertThat(read.getEvent(), is(COLUMBUS));
+        assertThat(read.getComment(), is("sailed"));
+        assertThat(read.getSteve(), is(4));
+        assertThat(read.getWeighting(), is(new BigDecimal("14.92")));
+    }
+
+    @Test
+    public void generatedMapperCanSetInsertValues() throws Exception {
+        final AnnotatedItemGeneratedMapper underTest = new AnnotatedItemGeneratedMapper();
+        final AnnotatedItem item = new AnnotatedItem().setId(5).setName("widget").setPrice(new BigDecimal("2.50"));
+        assertThat(underTest.getInsertValues(item), arrayContaining("widget", 250L));
+        final PreparedStatement mockPs = mock(PreparedStatement.class);
+        AnnotatedItemGeneratedMapper.NAME.serInto(mockPs, item);
+        verify(mockPs).setString(1, "widget");
+    }
+}
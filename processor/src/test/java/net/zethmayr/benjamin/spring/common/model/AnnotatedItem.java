@@ -0,0 +1,26 @@
+package net.zethmayr.benjamin.spring.common.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import net.zethmayr.benjamin.spring.common.mapper.annotation.MappedColumn;
+import net.zethmayr.benjamin.spring.common.mapper.annotation.MappedTable;
+import net.zethmayr.benjamin.spring.common.model.base.Trusting;
+
+import java.math.BigDecimal;
+
+/**
+ * {@link TestItem}, for mapping by generated code.
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@MappedTable("items")
+public class AnnotatedItem extends Trusting<AnnotatedItem> {
+    @MappedColumn
+    private int id;
+    @MappedColumn(name = "item_name")
+    private String name;
+    @MappedColumn
+    private BigDecimal price;
+}
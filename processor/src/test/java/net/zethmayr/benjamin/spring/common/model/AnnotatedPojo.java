@@ -0,0 +1,35 @@
+package net.zethmayr.benjamin.spring.common.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+import net.zethmayr.benjamin.spring.common.mapper.annotation.MappedColumn;
+import net.zethmayr.benjamin.spring.common.mapper.annotation.MappedTable;
+
+import java.math.BigDecimal;
+
+/**
+ * {@link TestPojo}, for mapping by generated code.
+ */
+@ToString
+@EqualsAndHashCode
+@Accessors(chain = true)
+@Setter
+@Getter
+@MappedTable("commentary")
+public class AnnotatedPojo {
+
+    @MappedColumn
+    private Integer id;
+    @MappedColumn
+    private History event;
+    @MappedColumn
+    private String comment;
+    @MappedColumn
+    private Integer steve;
+    @MappedColumn
+    private BigDecimal weighting;
+
+}